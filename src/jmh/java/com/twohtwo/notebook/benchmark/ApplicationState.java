@@ -0,0 +1,132 @@
+package com.twohtwo.notebook.benchmark;
+
+import com.twohtwo.notebook.NotebookApp;
+import com.twohtwo.notebook.domain.Note;
+import com.twohtwo.notebook.domain.NoteBook;
+import com.twohtwo.notebook.domain.User;
+import com.twohtwo.notebook.repository.NoteBookRepository;
+import com.twohtwo.notebook.repository.NoteRepository;
+import com.twohtwo.notebook.repository.UserRepository;
+import com.twohtwo.notebook.service.NoteSearchService;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Starts the application once per benchmark fork, with the "jmh" profile, and seeds
+ * {@value #NOTE_COUNT} notes spread over {@value #NOTEBOOK_COUNT} notebooks.
+ */
+@State(Scope.Benchmark)
+public class ApplicationState {
+
+    static final int NOTE_COUNT = 5_000;
+
+    static final int NOTEBOOK_COUNT = 20;
+
+    /**
+     * A term that appears in roughly one note out of ten.
+     */
+    static final String SEARCHED_TERM = "benchmark";
+
+    private static final String[] WORDS = {
+        "alpha",
+        "bravo",
+        "charlie",
+        "delta",
+        "echo",
+        "foxtrot",
+        "golf",
+        "hotel",
+        "india",
+        "juliett",
+        "kilo",
+        "lima",
+        "mike",
+        "november",
+        "oscar",
+        "papa",
+        "quebec",
+        "romeo",
+        "sierra",
+        "tango",
+    };
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+        start(new String[0]);
+    }
+
+    /**
+     * Starts the application outside of JMH, for benchmarks that need to pass it arguments.
+     *
+     * @param args additional command line arguments, such as {@code --application.threads.virtual=true}.
+     */
+    void start(String... args) {
+        String[] allArgs = Arrays.copyOf(args, args.length + 1);
+        allArgs[args.length] = "--spring.profiles.active=jmh";
+        context = new SpringApplicationBuilder(NotebookApp.class).run(allArgs);
+        new TransactionTemplate(getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> seed());
+        getBean(NoteSearchService.class).rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public int getPort() {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    private void seed() {
+        User admin = getBean(UserRepository.class).findOneByLogin("admin").orElseThrow();
+        List<NoteBook> noteBooks = new ArrayList<>();
+        for (int i = 0; i < NOTEBOOK_COUNT; i++) {
+            noteBooks.add(new NoteBook().name("Notebook " + i).handle("notebook-" + i).user(admin));
+        }
+        getBean(NoteBookRepository.class).saveAll(noteBooks);
+
+        Random random = new Random(42);
+        Instant now = Instant.now();
+        List<Note> notes = new ArrayList<>(NOTE_COUNT);
+        for (int i = 0; i < NOTE_COUNT; i++) {
+            notes.add(
+                new Note()
+                    .title("Note " + i)
+                    .content(content(random, i % 10 == 0))
+                    .date(now.minusSeconds(i))
+                    .user(admin)
+                    .notebook(noteBooks.get(i % NOTEBOOK_COUNT))
+            );
+        }
+        getBean(NoteRepository.class).saveAll(notes);
+    }
+
+    static String content(Random random, boolean withSearchedTerm) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            content.append(WORDS[random.nextInt(WORDS.length)]).append(i % 15 == 14 ? ".\n" : " ");
+        }
+        if (withSearchedTerm) {
+            content.append(SEARCHED_TERM);
+        }
+        return content.toString();
+    }
+}
@@ -0,0 +1,77 @@
+package com.twohtwo.notebook.benchmark;
+
+import com.twohtwo.notebook.domain.User;
+import com.twohtwo.notebook.service.MailTemplateRenderer;
+import com.twohtwo.notebook.service.MailTemplateRenderer.RenderedEmail;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.MessageSource;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Benchmarks the rendering of an activation email by {@code MailService}: Thymeleaf on every email, as before the
+ * {@link MailTemplateRenderer} cache, against the cached output.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MailTemplateBenchmark {
+
+    private static final String TEMPLATE_NAME = "mail/activationEmail";
+
+    private static final String TITLE_KEY = "email.activation.title";
+
+    private SpringTemplateEngine templateEngine;
+
+    private MessageSource messageSource;
+
+    private MailTemplateRenderer mailTemplateRenderer;
+
+    private String baseUrl;
+
+    private User user;
+
+    @Setup
+    public void setUp(ApplicationState application) {
+        templateEngine = application.getBean(SpringTemplateEngine.class);
+        messageSource = application.getBean(MessageSource.class);
+        mailTemplateRenderer = application.getBean(MailTemplateRenderer.class);
+        baseUrl = application.getBean(JHipsterProperties.class).getMail().getBaseUrl();
+        user = new User();
+        user.setLogin("benchmark");
+        user.setEmail("benchmark@localhost");
+        user.setLangKey("en");
+        user.setActivationKey(RandomStringUtils.randomNumeric(20));
+    }
+
+    @Benchmark
+    public String renderWithTemplateEngine() {
+        Locale locale = Locale.forLanguageTag(user.getLangKey());
+        Context context = new Context(locale);
+        context.setVariable("user", user);
+        context.setVariable("baseUrl", baseUrl);
+        String content = templateEngine.process(TEMPLATE_NAME, context);
+        return messageSource.getMessage(TITLE_KEY, null, locale) + content;
+    }
+
+    @Benchmark
+    public RenderedEmail renderFromCache() {
+        return mailTemplateRenderer.render(user, TEMPLATE_NAME, TITLE_KEY);
+    }
+}
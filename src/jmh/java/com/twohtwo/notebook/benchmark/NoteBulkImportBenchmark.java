@@ -0,0 +1,86 @@
+package com.twohtwo.notebook.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.twohtwo.notebook.domain.Note;
+import com.twohtwo.notebook.service.NoteBulkService;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Benchmarks the throughput of {@code POST /api/notes/bulk}, in notes per second. Imported notes are deleted after
+ * each iteration so that the table size stays the same.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class NoteBulkImportBenchmark {
+
+    private static final int NOTES_PER_IMPORT = 1_000;
+
+    private static final String TITLE = "bulk-benchmark";
+
+    private NoteBulkService noteBulkService;
+
+    private EntityManager entityManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private byte[] ndjson;
+
+    @Setup
+    public void setUp(ApplicationState application) throws IOException {
+        noteBulkService = application.getBean(NoteBulkService.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(application.getBean(EntityManagerFactory.class));
+        transactionTemplate = new TransactionTemplate(application.getBean(PlatformTransactionManager.class));
+
+        ObjectWriter writer = application.getBean(ObjectMapper.class).writer().without(SerializationFeature.INDENT_OUTPUT);
+        Random random = new Random(42);
+        Instant now = Instant.now();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < NOTES_PER_IMPORT; i++) {
+            out.write(writer.writeValueAsBytes(new Note().title(TITLE).content(ApplicationState.content(random, false)).date(now)));
+            out.write('\n');
+        }
+        ndjson = out.toByteArray();
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteImportedNotes() {
+        transactionTemplate.executeWithoutResult(status ->
+            entityManager.createQuery("delete from Note note where note.title = :title").setParameter("title", TITLE).executeUpdate()
+        );
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NOTES_PER_IMPORT)
+    public long importNotes() throws IOException {
+        return noteBulkService.importNotes(new ByteArrayInputStream(ndjson));
+    }
+}
@@ -0,0 +1,76 @@
+package com.twohtwo.notebook.benchmark;
+
+import com.twohtwo.notebook.domain.CompressedTextConverter;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the time to write and read the content of a note with {@link CompressedTextConverter}, against the plain
+ * UTF-8 text stored before, for markdown notes of increasing size. The stored size is printed at the end of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoteContentCompressionBenchmark {
+
+    @Param({ "plain", "zstd" })
+    private String storage;
+
+    @Param({ "512", "16384", "262144" })
+    private int contentSize;
+
+    private final CompressedTextConverter converter = new CompressedTextConverter();
+
+    private String content;
+
+    private byte[] stored;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder markdown = new StringBuilder();
+        for (int section = 1; markdown.length() < contentSize; section++) {
+            markdown.append("## Section ").append(section).append("\n\n- ").append(ApplicationState.content(random, false)).append('\n');
+        }
+        content = markdown.substring(0, contentSize);
+        stored = write();
+    }
+
+    @Benchmark
+    public byte[] write() {
+        return "zstd".equals(storage) ? converter.convertToDatabaseColumn(content) : content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String read() {
+        return "zstd".equals(storage) ? converter.convertToEntityAttribute(stored) : new String(stored, StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void printStoredSize() {
+        System.out.printf(
+            "%nContent of %d bytes stored as %s: %d bytes (%.1f%% saved)%n",
+            contentSize,
+            storage,
+            stored.length,
+            100.0 * (contentSize - stored.length) / contentSize
+        );
+    }
+}
@@ -0,0 +1,56 @@
+package com.twohtwo.notebook.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.twohtwo.notebook.domain.Note;
+import com.twohtwo.notebook.repository.NoteRepository;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Benchmarks the Jackson serialization of a page of notes, as returned by {@code GET /api/notes?eagerload=true},
+ * with the application {@link ObjectMapper}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotePageSerializationBenchmark {
+
+    @Param({ "20", "100" })
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+
+    private List<Note> page;
+
+    @Setup
+    public void setUp(ApplicationState application) {
+        objectMapper = application.getBean(ObjectMapper.class);
+        page =
+            application
+                .getBean(NoteRepository.class)
+                .findAllWithToOneRelationships(PageRequest.of(0, pageSize, Sort.by("id")))
+                .getContent();
+    }
+
+    @Benchmark
+    public byte[] writeNotePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
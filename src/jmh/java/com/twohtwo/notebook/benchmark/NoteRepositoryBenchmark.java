@@ -0,0 +1,57 @@
+package com.twohtwo.notebook.benchmark;
+
+import com.twohtwo.notebook.domain.Note;
+import com.twohtwo.notebook.repository.NoteRepository;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Benchmarks the {@link NoteRepository} queries behind {@code GET /api/notes}, and the {@code LIKE} query that
+ * {@code GET /api/notes/search} falls back to in the {@code LIKE} mode. The search itself is benchmarked by
+ * {@link NoteSearchBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoteRepositoryBenchmark {
+
+    @Param({ "20", "100" })
+    private int pageSize;
+
+    private NoteRepository noteRepository;
+
+    private Pageable pageable;
+
+    @Setup
+    public void setUp(ApplicationState application) {
+        noteRepository = application.getBean(NoteRepository.class);
+        pageable = PageRequest.of(0, pageSize, Sort.by("id"));
+    }
+
+    @Benchmark
+    public Page<Note> searchAllByTitle() {
+        return noteRepository.searchAllByTitle("Note 42", pageable);
+    }
+
+    @Benchmark
+    public Page<Note> findAllWithToOneRelationships() {
+        return noteRepository.findAllWithToOneRelationships(pageable);
+    }
+}
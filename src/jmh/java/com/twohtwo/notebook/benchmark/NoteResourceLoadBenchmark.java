@@ -0,0 +1,85 @@
+package com.twohtwo.notebook.benchmark;
+
+import com.twohtwo.notebook.security.AuthoritiesConstants;
+import com.twohtwo.notebook.security.jwt.TokenProvider;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Load test of {@code GET /api/notes} over HTTP with {@value #CLIENTS} concurrent clients, with servlet requests on
+ * platform threads and on virtual threads ({@code application.threads.virtual}). Virtual threads need a Java 21
+ * runtime, on older ones both runs use platform threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(NoteResourceLoadBenchmark.CLIENTS)
+@Fork(1)
+public class NoteResourceLoadBenchmark {
+
+    static final int CLIENTS = 256;
+
+    @Param({ "false", "true" })
+    private boolean virtualThreads;
+
+    private final ApplicationState application = new ApplicationState();
+
+    private HttpClient client;
+
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void start() {
+        application.start("--application.threads.virtual=" + virtualThreads);
+        String token = application
+            .getBean(TokenProvider.class)
+            .createToken(
+                new UsernamePasswordAuthenticationToken("admin", null, List.of(new SimpleGrantedAuthority(AuthoritiesConstants.ADMIN))),
+                false
+            );
+        client = HttpClient.newHttpClient();
+        request =
+            HttpRequest
+                .newBuilder(URI.create("http://localhost:" + application.getPort() + "/api/notes?page=0&size=20"))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        application.stop();
+    }
+
+    @Benchmark
+    public int getAllNotes() throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET /api/notes answered " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
@@ -0,0 +1,96 @@
+package com.twohtwo.notebook.benchmark;
+
+import com.twohtwo.notebook.domain.Note;
+import com.twohtwo.notebook.repository.NoteSummary;
+import com.twohtwo.notebook.security.AuthoritiesConstants;
+import com.twohtwo.notebook.service.NoteSearchService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * Benchmarks {@link NoteSearchService}, which answers {@code GET /api/notes/search}, in each search mode that runs on
+ * the in-memory database of the "jmh" profile. The notes are searched as their owner, who is not an administrator, so
+ * that the readable-notes filter applies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoteSearchBenchmark {
+
+    @Param({ "INDEX", "LIKE" })
+    private String mode;
+
+    @Param({ "20", "100" })
+    private int pageSize;
+
+    private final ApplicationState application = new ApplicationState();
+
+    private NoteSearchService noteSearchService;
+
+    private Pageable pageable;
+
+    @Setup(Level.Trial)
+    public void start() {
+        application.start("--application.search.mode=" + mode);
+        noteSearchService = application.getBean(NoteSearchService.class);
+        pageable = PageRequest.of(0, pageSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        application.stop();
+    }
+
+    @Benchmark
+    public Page<Note> search(Caller caller) {
+        return noteSearchService.search(ApplicationState.SEARCHED_TERM, pageable);
+    }
+
+    @Benchmark
+    public Page<NoteSummary> searchSummaries(Caller caller) {
+        return noteSearchService.searchSummaries(ApplicationState.SEARCHED_TERM, pageable);
+    }
+
+    /**
+     * The authenticated owner of the notes, set on each benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Caller {
+
+        @Setup(Level.Trial)
+        public void authenticate() {
+            List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(AuthoritiesConstants.USER));
+            User principal = new User("admin", "", authorities);
+            SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(principal, "", authorities));
+        }
+
+        @TearDown(Level.Trial)
+        public void clear() {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
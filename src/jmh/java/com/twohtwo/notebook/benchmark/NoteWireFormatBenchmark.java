@@ -0,0 +1,97 @@
+package com.twohtwo.notebook.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.luben.zstd.ZstdOutputStream;
+import com.twohtwo.notebook.domain.Note;
+import com.twohtwo.notebook.repository.NoteRepository;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Benchmarks the time to serialize and encode a page of notes, as returned by {@code GET /api/notes?eagerload=true},
+ * in JSON and in Smile, without compression, with the gzip of {@code server.compression} and with the zstd of
+ * {@code application.compression}. The size of the payloads is printed at the end of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoteWireFormatBenchmark {
+
+    @Param({ "json", "smile" })
+    private String format;
+
+    @Param({ "identity", "gzip", "zstd" })
+    private String encoding;
+
+    @Param({ "100" })
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+
+    private List<Note> page;
+
+    private int payloadSize;
+
+    @Setup
+    public void setUp(ApplicationState application) {
+        objectMapper =
+            "smile".equals(format)
+                ? application.getBean(MappingJackson2SmileHttpMessageConverter.class).getObjectMapper()
+                : application.getBean(ObjectMapper.class);
+        page =
+            application
+                .getBean(NoteRepository.class)
+                .findAllWithToOneRelationships(PageRequest.of(0, pageSize, Sort.by("id")))
+                .getContent();
+    }
+
+    @Benchmark
+    public byte[] writeNotePage() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream output = encode(bytes)) {
+            objectMapper.writeValue(output, page);
+        }
+        payloadSize = bytes.size();
+        return bytes.toByteArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void printPayloadSize() {
+        System.out.printf("%nPayload of %d notes in %s with %s encoding: %d bytes%n", pageSize, format, encoding, payloadSize);
+    }
+
+    private OutputStream encode(OutputStream output) throws IOException {
+        switch (encoding) {
+            case "gzip":
+                return new GZIPOutputStream(output);
+            case "zstd":
+                // the default level of application.compression.zstd-level
+                return new ZstdOutputStream(output, 3);
+            default:
+                return output;
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * JMH benchmarks for the repository, security and REST hot paths.
+ */
+package com.twohtwo.notebook.benchmark;
@@ -1,6 +1,7 @@
 package com.twohtwo.notebook.aop.logging;
 
 import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.AfterThrowing;
@@ -16,15 +17,23 @@ import tech.jhipster.config.JHipsterConstants;
 /**
  * Aspect for logging execution of service and repository Spring components.
  *
- * By default, it only runs with the "dev" profile.
+ * It is only applied when {@code application.tracing.enabled} is set, as in the "dev" profile. Tracing is sampled by
+ * {@code application.tracing.sample-rate}: the decision is taken once for the outermost call of a thread, such as a
+ * REST call, and applies to all its nested calls, so that sampled traces are complete while the other calls only pay
+ * for a thread-local lookup.
  */
 @Aspect
 public class LoggingAspect {
 
     private final Environment env;
 
-    public LoggingAspect(Environment env) {
+    private final double sampleRate;
+
+    private final ThreadLocal<Trace> trace = ThreadLocal.withInitial(Trace::new);
+
+    public LoggingAspect(Environment env, double sampleRate) {
         this.env = env;
+        this.sampleRate = sampleRate;
     }
 
     /**
@@ -63,12 +72,18 @@ public class LoggingAspect {
 
     /**
      * Advice that logs methods throwing exceptions.
+     * <p>
+     * It runs within {@link #logAround(ProceedingJoinPoint)}, so exceptions are only logged for sampled traces.
      *
      * @param joinPoint join point for advice.
      * @param e exception.
      */
     @AfterThrowing(pointcut = "applicationPackagePointcut() && springBeanPointcut()", throwing = "e")
     public void logAfterThrowing(JoinPoint joinPoint, Throwable e) {
+        Trace current = trace.get();
+        if (current.depth == 0 ? !sample() : !current.sampled) {
+            return;
+        }
         if (env.acceptsProfiles(Profiles.of(JHipsterConstants.SPRING_PROFILE_DEVELOPMENT))) {
             logger(joinPoint)
                 .error(
@@ -97,6 +112,22 @@ public class LoggingAspect {
      */
     @Around("applicationPackagePointcut() && springBeanPointcut()")
     public Object logAround(ProceedingJoinPoint joinPoint) throws Throwable {
+        Trace current = trace.get();
+        if (current.depth++ == 0) {
+            current.sampled = sample();
+        }
+        try {
+            return current.sampled ? logAndProceed(joinPoint) : joinPoint.proceed();
+        } finally {
+            current.depth--;
+        }
+    }
+
+    private boolean sample() {
+        return sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private Object logAndProceed(ProceedingJoinPoint joinPoint) throws Throwable {
         Logger log = logger(joinPoint);
         if (log.isDebugEnabled()) {
             log.debug("Enter: {}() with argument[s] = {}", joinPoint.getSignature().getName(), Arrays.toString(joinPoint.getArgs()));
@@ -112,4 +143,14 @@ public class LoggingAspect {
             throw e;
         }
     }
+
+    /**
+     * The nesting depth of the advised calls of a thread, and whether they are sampled.
+     */
+    private static final class Trace {
+
+        private int depth;
+
+        private boolean sampled;
+    }
 }
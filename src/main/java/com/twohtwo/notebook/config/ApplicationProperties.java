@@ -1,5 +1,10 @@
 package com.twohtwo.notebook.config;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -10,7 +15,650 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
+    private final Search search = new Search();
+
+    private final Bulk bulk = new Bulk();
+
+    private final Cache cache = new Cache();
+
+    private final Mail mail = new Mail();
+
+    private final Threads threads = new Threads();
+
+    private final Instrumentation instrumentation = new Instrumentation();
+
+    private final Tracing tracing = new Tracing();
+
+    private final Autosave autosave = new Autosave();
+
+    private final ResponseCache responseCache = new ResponseCache();
+
+    private final Compression compression = new Compression();
+
+    private final Access access = new Access();
+
+    private final Revisions revisions = new Revisions();
+
+    private final Sync sync = new Sync();
+
     // jhipster-needle-application-properties-property
+
+    public Search getSearch() {
+        return search;
+    }
+
+    public Bulk getBulk() {
+        return bulk;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Mail getMail() {
+        return mail;
+    }
+
+    public Threads getThreads() {
+        return threads;
+    }
+
+    public Instrumentation getInstrumentation() {
+        return instrumentation;
+    }
+
+    public Tracing getTracing() {
+        return tracing;
+    }
+
+    public Autosave getAutosave() {
+        return autosave;
+    }
+
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public Access getAccess() {
+        return access;
+    }
+
+    public Revisions getRevisions() {
+        return revisions;
+    }
+
+    public Sync getSync() {
+        return sync;
+    }
+
     // jhipster-needle-application-properties-property-getter
+
+    public static class Search {
+
+        /**
+         * How {@code /api/notes/search} is answered.
+         */
+        public enum Mode {
+            /**
+             * In-process inverted index, rebuilt at startup.
+             */
+            INDEX,
+            /**
+             * PostgreSQL full-text search on the {@code note.search_vector} column, falls back to {@link #INDEX} on other databases.
+             */
+            FULL_TEXT,
+            /**
+             * Substring match on the note title, as the content is stored compressed.
+             */
+            LIKE,
+        }
+
+        private Mode mode = Mode.INDEX;
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(Mode mode) {
+            this.mode = mode;
+        }
+    }
+
+    public static class Bulk {
+
+        /**
+         * Number of rows persisted between two flushes of a bulk import. Keep it a multiple of
+         * {@code hibernate.jdbc.batch_size} so that every flush sends full JDBC batches.
+         */
+        private int batchSize = 500;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+    }
+
+    public static class Cache {
+
+        /**
+         * Root directory of the disk tiers. Required when a region has a disk tier.
+         */
+        private String diskPath;
+
+        /**
+         * Tiers and expiry of the Ehcache regions, by cache name. A region that is not listed here uses a single heap
+         * tier sized and expired by {@code jhipster.cache.ehcache}. Use the bracket notation for names containing
+         * dots, such as {@code "[com.twohtwo.notebook.domain.Note]"}.
+         */
+        private final Map<String, Region> regions = new HashMap<>();
+
+        public String getDiskPath() {
+            return diskPath;
+        }
+
+        public void setDiskPath(String diskPath) {
+            this.diskPath = diskPath;
+        }
+
+        public Map<String, Region> getRegions() {
+            return regions;
+        }
+
+        public static class Region {
+
+            /**
+             * Number of entries kept on heap, defaults to {@code jhipster.cache.ehcache.max-entries}.
+             */
+            private Long heapEntries;
+
+            /**
+             * Size of the off-heap tier in megabytes, no off-heap tier when not set. Entries are serialized.
+             */
+            private Long offHeapMb;
+
+            /**
+             * Size of the disk tier in megabytes, no disk tier when not set. Must be larger than the off-heap tier.
+             */
+            private Long diskMb;
+
+            /**
+             * Whether the disk tier survives restarts.
+             */
+            private boolean diskPersistent;
+
+            /**
+             * Time to live of the entries, defaults to {@code jhipster.cache.ehcache.time-to-live-seconds}.
+             */
+            private Long timeToLiveSeconds;
+
+            /**
+             * Time to idle of the entries. When set, it replaces the time to live.
+             */
+            private Long timeToIdleSeconds;
+
+            public Long getHeapEntries() {
+                return heapEntries;
+            }
+
+            public void setHeapEntries(Long heapEntries) {
+                this.heapEntries = heapEntries;
+            }
+
+            public Long getOffHeapMb() {
+                return offHeapMb;
+            }
+
+            public void setOffHeapMb(Long offHeapMb) {
+                this.offHeapMb = offHeapMb;
+            }
+
+            public Long getDiskMb() {
+                return diskMb;
+            }
+
+            public void setDiskMb(Long diskMb) {
+                this.diskMb = diskMb;
+            }
+
+            public boolean isDiskPersistent() {
+                return diskPersistent;
+            }
+
+            public void setDiskPersistent(boolean diskPersistent) {
+                this.diskPersistent = diskPersistent;
+            }
+
+            public Long getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(Long timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+
+            public Long getTimeToIdleSeconds() {
+                return timeToIdleSeconds;
+            }
+
+            public void setTimeToIdleSeconds(Long timeToIdleSeconds) {
+                this.timeToIdleSeconds = timeToIdleSeconds;
+            }
+        }
+    }
+
+    public static class Mail {
+
+        /**
+         * Delay between two polls of the outbox, in the ISO-8601 format (such as {@code PT5S}) as it is also read by
+         * {@code @Scheduled}.
+         */
+        private Duration pollInterval = Duration.ofSeconds(5);
+
+        /**
+         * Maximum number of messages sent over a single SMTP connection.
+         */
+        private int batchSize = 50;
+
+        /**
+         * Number of attempts after which a message is marked as failed and no longer retried.
+         */
+        private int maxAttempts = 8;
+
+        /**
+         * Delay before the first retry, doubled after each failed attempt.
+         */
+        private Duration initialBackoff = Duration.ofSeconds(30);
+
+        /**
+         * Upper bound of the delay between two attempts.
+         */
+        private Duration maxBackoff = Duration.ofHours(1);
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        public void setInitialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+    }
+
+    public static class Threads {
+
+        /**
+         * Whether servlet requests and {@code @Async} tasks run on virtual threads. Requires a Java 21 runtime.
+         */
+        private boolean virtual;
+
+        public boolean isVirtual() {
+            return virtual;
+        }
+
+        public void setVirtual(boolean virtual) {
+            this.virtual = virtual;
+        }
+    }
+
+    public static class Instrumentation {
+
+        /**
+         * Number of executions of the same SQL statement by a single request from which the request is reported as a
+         * possible N+1 select.
+         */
+        private int repeatedStatementThreshold = 10;
+
+        public int getRepeatedStatementThreshold() {
+            return repeatedStatementThreshold;
+        }
+
+        public void setRepeatedStatementThreshold(int repeatedStatementThreshold) {
+            this.repeatedStatementThreshold = repeatedStatementThreshold;
+        }
+    }
+
+    public static class Tracing {
+
+        /**
+         * Whether the {@code LoggingAspect} is applied. When disabled, repositories, services and REST controllers are
+         * not proxied for it at all.
+         */
+        private boolean enabled;
+
+        /**
+         * Fraction of the calls into the application, between 0 and 1, whose nested repository, service and REST calls
+         * are logged at debug level.
+         */
+        private double sampleRate = 1;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+    }
+
+    public static class Autosave {
+
+        /**
+         * Delay between two writes of the pending drafts to the database, in the ISO-8601 format (such as
+         * {@code PT2S}) as it is also read by {@code @Scheduled}.
+         */
+        private Duration flushInterval = Duration.ofSeconds(2);
+
+        /**
+         * Number of changed characters from which a draft is written to the database without waiting for the next
+         * flush.
+         */
+        private int flushThreshold = 4096;
+
+        /**
+         * Time after which a draft that was neither read nor changed is dropped from memory.
+         */
+        private Duration idleTimeout = Duration.ofMinutes(10);
+
+        /**
+         * Number of revisions of a draft kept to rebase the deltas sent against an older revision.
+         */
+        private int historySize = 100;
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public int getFlushThreshold() {
+            return flushThreshold;
+        }
+
+        public void setFlushThreshold(int flushThreshold) {
+            this.flushThreshold = flushThreshold;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        public int getHistorySize() {
+            return historySize;
+        }
+
+        public void setHistorySize(int historySize) {
+            this.historySize = historySize;
+        }
+    }
+
+    public static class ResponseCache {
+
+        /**
+         * How long clients may reuse a cached API response without revalidating it with its {@code ETag}.
+         */
+        private Duration maxAge = Duration.ZERO;
+
+        public Duration getMaxAge() {
+            return maxAge;
+        }
+
+        public void setMaxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+        }
+    }
+
+    public static class Compression {
+
+        /**
+         * Whether responses are compressed with zstd for the clients accepting it, rather than with the gzip of
+         * {@code server.compression}.
+         */
+        private boolean zstdEnabled;
+
+        /**
+         * Compression level of zstd, from 1 (fastest) to 19.
+         */
+        private int zstdLevel = 3;
+
+        /**
+         * Content types of the responses compressed with zstd.
+         */
+        private List<String> mimeTypes = new ArrayList<>(List.of("application/json", "application/x-jackson-smile"));
+
+        /**
+         * Minimum size in bytes of the responses compressed with zstd, when their length is known in advance.
+         */
+        private long minResponseSize = 1024;
+
+        public boolean isZstdEnabled() {
+            return zstdEnabled;
+        }
+
+        public void setZstdEnabled(boolean zstdEnabled) {
+            this.zstdEnabled = zstdEnabled;
+        }
+
+        public int getZstdLevel() {
+            return zstdLevel;
+        }
+
+        public void setZstdLevel(int zstdLevel) {
+            this.zstdLevel = zstdLevel;
+        }
+
+        public List<String> getMimeTypes() {
+            return mimeTypes;
+        }
+
+        public void setMimeTypes(List<String> mimeTypes) {
+            this.mimeTypes = mimeTypes;
+        }
+
+        public long getMinResponseSize() {
+            return minResponseSize;
+        }
+
+        public void setMinResponseSize(long minResponseSize) {
+            this.minResponseSize = minResponseSize;
+        }
+    }
+
+    public static class Access {
+
+        /**
+         * Maximum number of users whose readable notes are kept in memory, the least recently used are evicted and
+         * reloaded on their next request.
+         */
+        private int maxUsers = 10_000;
+
+        /**
+         * Time after which the readable notes of a user are loaded again. The notes are kept up to date with the
+         * changes made through this instance only, so this bounds how long a share revoked, or a note given away,
+         * through another instance stays readable here. Zero keeps them until evicted, for single-instance
+         * deployments only.
+         */
+        private Duration timeToLive = Duration.ofSeconds(30);
+
+        public int getMaxUsers() {
+            return maxUsers;
+        }
+
+        public void setMaxUsers(int maxUsers) {
+            this.maxUsers = maxUsers;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+    }
+
+    public static class Revisions {
+
+        /**
+         * Maximum number of revisions from one full snapshot of a note to the next, the revisions in between are stored
+         * as deltas. It bounds the number of deltas applied to reconstruct a revision.
+         */
+        private int snapshotInterval = 20;
+
+        /**
+         * Age from which the revisions are compacted: only the last revision of each {@code compaction-resolution} is
+         * kept.
+         */
+        private Duration compactAfter = Duration.ofDays(30);
+
+        private Duration compactionResolution = Duration.ofDays(1);
+
+        /**
+         * Delay between two runs of the compaction, in the ISO-8601 format (such as {@code PT1H}) as it is also read by
+         * {@code @Scheduled}.
+         */
+        private Duration compactionInterval = Duration.ofHours(1);
+
+        public int getSnapshotInterval() {
+            return snapshotInterval;
+        }
+
+        public void setSnapshotInterval(int snapshotInterval) {
+            this.snapshotInterval = snapshotInterval;
+        }
+
+        public Duration getCompactAfter() {
+            return compactAfter;
+        }
+
+        public void setCompactAfter(Duration compactAfter) {
+            this.compactAfter = compactAfter;
+        }
+
+        public Duration getCompactionResolution() {
+            return compactionResolution;
+        }
+
+        public void setCompactionResolution(Duration compactionResolution) {
+            this.compactionResolution = compactionResolution;
+        }
+
+        public Duration getCompactionInterval() {
+            return compactionInterval;
+        }
+
+        public void setCompactionInterval(Duration compactionInterval) {
+            this.compactionInterval = compactionInterval;
+        }
+    }
+
+    public static class Sync {
+
+        /**
+         * Number of changes returned by a sync request when the client does not ask for a size.
+         */
+        private int pageSize = 500;
+
+        /**
+         * Maximum number of changes returned by a sync request.
+         */
+        private int maxPageSize = 5000;
+
+        /**
+         * Age from which the tombstones of the deleted entities are trimmed. A client that did not sync for longer
+         * must sync again from scratch.
+         */
+        private Duration tombstoneRetention = Duration.ofDays(30);
+
+        /**
+         * Delay between two runs of the compaction, in the ISO-8601 format (such as {@code PT1H}) as it is also read by
+         * {@code @Scheduled}.
+         */
+        private Duration compactionInterval = Duration.ofHours(1);
+
+        public int getPageSize() {
+            return pageSize;
+        }
+
+        public void setPageSize(int pageSize) {
+            this.pageSize = pageSize;
+        }
+
+        public int getMaxPageSize() {
+            return maxPageSize;
+        }
+
+        public void setMaxPageSize(int maxPageSize) {
+            this.maxPageSize = maxPageSize;
+        }
+
+        public Duration getTombstoneRetention() {
+            return tombstoneRetention;
+        }
+
+        public void setTombstoneRetention(Duration tombstoneRetention) {
+            this.tombstoneRetention = tombstoneRetention;
+        }
+
+        public Duration getCompactionInterval() {
+            return compactionInterval;
+        }
+
+        public void setCompactionInterval(Duration compactionInterval) {
+            this.compactionInterval = compactionInterval;
+        }
+    }
     // jhipster-needle-application-properties-property-class
 }
@@ -1,10 +1,24 @@
 package com.twohtwo.notebook.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.File;
 import java.time.Duration;
+import javax.cache.Caching;
 import org.ehcache.config.builders.*;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.event.EventType;
+import org.ehcache.expiry.ExpiryPolicy;
+import org.ehcache.impl.config.persistence.DefaultPersistenceConfiguration;
+import org.ehcache.impl.serialization.PlainJavaSerializer;
 import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
 import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.boot.info.BuildProperties;
@@ -19,12 +33,20 @@ import tech.jhipster.config.cache.PrefixedKeyGenerator;
 @EnableCaching
 public class CacheConfiguration {
 
+    /**
+     * The update timestamps region holds one entry per table, it must never evict or expire them.
+     */
+    private static final long UPDATE_TIMESTAMPS_MAX_ENTRIES = 10_000;
+
     private GitProperties gitProperties;
     private BuildProperties buildProperties;
     private final javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration;
+    private final JHipsterProperties.Cache.Ehcache ehcache;
+    private final ApplicationProperties.Cache cacheProperties;
 
-    public CacheConfiguration(JHipsterProperties jHipsterProperties) {
-        JHipsterProperties.Cache.Ehcache ehcache = jHipsterProperties.getCache().getEhcache();
+    public CacheConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
+        ehcache = jHipsterProperties.getCache().getEhcache();
+        cacheProperties = applicationProperties.getCache();
 
         jcacheConfiguration =
             Eh107Configuration.fromEhcacheCacheConfiguration(
@@ -35,14 +57,35 @@ public class CacheConfiguration {
             );
     }
 
+    /**
+     * Replaces the cache manager created by Spring Boot when {@code application.cache.disk-path} is set, as disk tiers
+     * need a persistence directory configured on the cache manager itself.
+     */
+    @Bean
+    @ConditionalOnProperty("application.cache.disk-path")
+    public javax.cache.CacheManager jCacheCacheManager(ObjectProvider<JCacheManagerCustomizer> cacheManagerCustomizers) {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        DefaultConfiguration configuration = new DefaultConfiguration(
+            provider.getDefaultClassLoader(),
+            new DefaultPersistenceConfiguration(new File(cacheProperties.getDiskPath()))
+        );
+        javax.cache.CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), configuration);
+        cacheManagerCustomizers.orderedStream().forEach(customizer -> customizer.customize(cacheManager));
+        return cacheManager;
+    }
+
     @Bean
     public HibernatePropertiesCustomizer hibernatePropertiesCustomizer(javax.cache.CacheManager cacheManager) {
         return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
     }
 
     @Bean
-    public JCacheManagerCustomizer cacheManagerCustomizer() {
+    public JCacheManagerCustomizer cacheManagerCustomizer(MeterRegistry meterRegistry) {
         return cm -> {
+            createUpdateTimestampsCache(cm, meterRegistry);
+            createCache(cm, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME);
+            createCache(cm, com.twohtwo.notebook.repository.NoteBookRepository.NOTE_BOOKS_BY_CURRENT_USER_QUERY_CACHE);
+            createCache(cm, com.twohtwo.notebook.repository.ShareRepository.SHARES_WITH_CURRENT_USER_QUERY_CACHE);
             createCache(cm, com.twohtwo.notebook.repository.UserRepository.USERS_BY_LOGIN_CACHE);
             createCache(cm, com.twohtwo.notebook.repository.UserRepository.USERS_BY_EMAIL_CACHE);
             createCache(cm, com.twohtwo.notebook.domain.User.class.getName());
@@ -51,6 +94,9 @@ public class CacheConfiguration {
             createCache(cm, com.twohtwo.notebook.domain.NoteBook.class.getName());
             createCache(cm, com.twohtwo.notebook.domain.Note.class.getName());
             createCache(cm, com.twohtwo.notebook.domain.Share.class.getName());
+            createCache(cm, com.twohtwo.notebook.web.rest.util.HttpResponseCache.PUBLIC_USERS_CACHE);
+            createCache(cm, com.twohtwo.notebook.web.rest.util.HttpResponseCache.AUTHORITIES_CACHE);
+            createCache(cm, com.twohtwo.notebook.web.rest.util.HttpResponseCache.NOTE_BOOKS_CACHE);
             // jhipster-needle-ehcache-add-entry
         };
     }
@@ -60,8 +106,74 @@ public class CacheConfiguration {
         if (cache != null) {
             cache.clear();
         } else {
-            cm.createCache(cacheName, jcacheConfiguration);
+            cm.createCache(cacheName, cacheConfiguration(cacheName));
+        }
+    }
+
+    private void createUpdateTimestampsCache(javax.cache.CacheManager cm, MeterRegistry meterRegistry) {
+        String cacheName = RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME;
+        javax.cache.Cache<Object, Object> cache = cm.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+            return;
+        }
+        cm.createCache(
+            cacheName,
+            Eh107Configuration.fromEhcacheCacheConfiguration(
+                CacheConfigurationBuilder
+                    .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(UPDATE_TIMESTAMPS_MAX_ENTRIES))
+                    .withExpiry(ExpiryPolicyBuilder.noExpiration())
+                    .withService(
+                        CacheEventListenerConfigurationBuilder
+                            .newEventListenerConfiguration(
+                                new QueryCacheInvalidationListener(meterRegistry),
+                                EventType.CREATED,
+                                EventType.UPDATED
+                            )
+                            .unordered()
+                            .asynchronous()
+                    )
+                    .build()
+            )
+        );
+    }
+
+    /**
+     * Builds the configuration of a region listed in {@code application.cache.regions}, or returns the default one.
+     */
+    private javax.cache.configuration.Configuration<Object, Object> cacheConfiguration(String cacheName) {
+        ApplicationProperties.Cache.Region region = cacheProperties.getRegions().get(cacheName);
+        if (region == null) {
+            return jcacheConfiguration;
+        }
+        long heapEntries = region.getHeapEntries() != null ? region.getHeapEntries() : ehcache.getMaxEntries();
+        ResourcePoolsBuilder resourcePools = ResourcePoolsBuilder.newResourcePoolsBuilder().heap(heapEntries, EntryUnit.ENTRIES);
+        if (region.getOffHeapMb() != null) {
+            resourcePools = resourcePools.offheap(region.getOffHeapMb(), MemoryUnit.MB);
+        }
+        if (region.getDiskMb() != null) {
+            resourcePools = resourcePools.disk(region.getDiskMb(), MemoryUnit.MB, region.isDiskPersistent());
+        }
+        CacheConfigurationBuilder<Object, Object> builder = CacheConfigurationBuilder
+            .newCacheConfigurationBuilder(Object.class, Object.class, resourcePools)
+            .withExpiry(expiryPolicy(region));
+        if (region.getOffHeapMb() != null || region.getDiskMb() != null) {
+            // entries leave the heap serialized, Ehcache has no default serializer for the Object type
+            ClassLoader classLoader = CacheConfiguration.class.getClassLoader();
+            builder =
+                builder
+                    .withKeySerializer(new PlainJavaSerializer<>(classLoader))
+                    .withValueSerializer(new PlainJavaSerializer<>(classLoader));
+        }
+        return Eh107Configuration.fromEhcacheCacheConfiguration(builder.build());
+    }
+
+    private ExpiryPolicy<Object, Object> expiryPolicy(ApplicationProperties.Cache.Region region) {
+        if (region.getTimeToIdleSeconds() != null) {
+            return ExpiryPolicyBuilder.timeToIdleExpiration(Duration.ofSeconds(region.getTimeToIdleSeconds()));
         }
+        long timeToLiveSeconds = region.getTimeToLiveSeconds() != null ? region.getTimeToLiveSeconds() : ehcache.getTimeToLiveSeconds();
+        return ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(timeToLiveSeconds));
     }
 
     @Autowired(required = false)
@@ -1,8 +1,11 @@
 package com.twohtwo.notebook.config;
 
+import com.twohtwo.notebook.management.RequestStatementsRecorder;
 import java.sql.SQLException;
+import org.hibernate.cfg.AvailableSettings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -27,6 +30,14 @@ public class DatabaseConfiguration {
         this.env = env;
     }
 
+    /**
+     * Counts the statements of each request, see {@link RequestStatementsRecorder}.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(RequestStatementsRecorder requestStatementsRecorder) {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, requestStatementsRecorder);
+    }
+
     /**
      * Open the TCP port for the H2 database, so it is available remotely.
      *
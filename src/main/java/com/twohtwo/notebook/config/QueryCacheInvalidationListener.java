@@ -0,0 +1,33 @@
+package com.twohtwo.notebook.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.ehcache.event.CacheEvent;
+import org.ehcache.event.CacheEventListener;
+
+/**
+ * Counts the writes to the Hibernate update timestamps region. Each of them invalidates the cached query results that
+ * read the written table, so a high rate on a table means that caching queries on it does not pay off.
+ */
+public class QueryCacheInvalidationListener implements CacheEventListener<Object, Object> {
+
+    public static final String INVALIDATIONS_METER_NAME = "hibernate.query.cache.invalidations";
+    public static final String INVALIDATIONS_METER_DESCRIPTION = "Indicates invalidations of the cached query results, by table.";
+    public static final String INVALIDATIONS_METER_TABLE_DIMENSION = "table";
+
+    private final MeterRegistry registry;
+
+    public QueryCacheInvalidationListener(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void onEvent(CacheEvent<?, ?> event) {
+        Counter
+            .builder(INVALIDATIONS_METER_NAME)
+            .description(INVALIDATIONS_METER_DESCRIPTION)
+            .tag(INVALIDATIONS_METER_TABLE_DIMENSION, String.valueOf(event.getKey()))
+            .register(registry)
+            .increment();
+    }
+}
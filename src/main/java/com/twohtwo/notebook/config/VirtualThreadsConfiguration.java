@@ -0,0 +1,57 @@
+package com.twohtwo.notebook.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.undertow.UndertowServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Runs servlet requests on virtual threads when {@code application.threads.virtual} is set, see also
+ * {@link AsyncConfiguration}.
+ * <p>
+ * The application is built for Java 11, so virtual threads are looked up reflectively and require a Java 21 runtime;
+ * on older runtimes, a warning is logged and platform threads are kept. With virtual threads, the number of concurrent
+ * requests is no longer bounded by the Undertow worker pool: {@code spring.datasource.hikari.maximum-pool-size} is what
+ * bounds the database load, and requests wait up to {@code spring.datasource.hikari.connection-timeout} for a
+ * connection.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.threads", name = "virtual", havingValue = "true")
+public class VirtualThreadsConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadsConfiguration.class);
+
+    @Bean
+    public WebServerFactoryCustomizer<UndertowServletWebServerFactory> virtualThreadsUndertowCustomizer() {
+        return factory ->
+            newVirtualThreadPerTaskExecutor()
+                .ifPresent(executor -> {
+                    log.info("Running servlet requests on virtual threads");
+                    factory.addDeploymentInfoCustomizers(deploymentInfo -> deploymentInfo.setExecutor(executor).setAsyncExecutor(executor));
+                });
+    }
+
+    /**
+     * @return an executor starting a virtual thread per task, or empty if the runtime does not support virtual threads.
+     */
+    static Optional<ExecutorService> newVirtualThreadPerTaskExecutor() {
+        try {
+            return Optional.of((ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null));
+        } catch (NoSuchMethodException e) {
+            log.warn("Virtual threads require Java 21, running on Java {}: keeping platform threads", Runtime.version().feature());
+        } catch (InvocationTargetException e) {
+            // Java 19 and 20 without --enable-preview
+            log.warn("Virtual threads are not available, keeping platform threads: {}", e.getCause().toString());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+        return Optional.empty();
+    }
+}
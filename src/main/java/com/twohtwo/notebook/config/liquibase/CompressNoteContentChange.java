@@ -0,0 +1,91 @@
+package com.twohtwo.notebook.config.liquibase;
+
+import com.twohtwo.notebook.domain.CompressedTextConverter;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+
+/**
+ * Copies the text content of every note to the binary {@code content_data} column, converted with
+ * {@link CompressedTextConverter}.
+ * <p>
+ * Notes are read in id order by batches of {@value #BATCH_SIZE}, each batch being written with one JDBC batch and
+ * committed, so that the backfill neither holds the whole table in memory nor locks it in a single transaction. It
+ * can be run again from the start if interrupted, as the text column is left untouched.
+ */
+public class CompressNoteContentChange implements CustomTaskChange {
+
+    static final int BATCH_SIZE = 500;
+
+    private final CompressedTextConverter converter = new CompressedTextConverter();
+
+    private long noteCount;
+
+    private long textLength;
+
+    private long storedBytes;
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        JdbcConnection connection = (JdbcConnection) database.getConnection();
+        try (
+            PreparedStatement select = connection.prepareStatement("select id, content from note where id > ? order by id");
+            PreparedStatement update = connection.prepareStatement("update note set content_data = ? where id = ?")
+        ) {
+            select.setMaxRows(BATCH_SIZE);
+            long lastId = Long.MIN_VALUE;
+            int batchCount;
+            do {
+                batchCount = 0;
+                select.setLong(1, lastId);
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        lastId = rows.getLong(1);
+                        String content = rows.getString(2);
+                        byte[] data = converter.convertToDatabaseColumn(content);
+                        update.setBytes(1, data);
+                        update.setLong(2, lastId);
+                        update.addBatch();
+                        batchCount++;
+                        textLength += data == null ? 0 : content.length();
+                        storedBytes += data == null ? 0 : data.length;
+                    }
+                }
+                if (batchCount > 0) {
+                    update.executeBatch();
+                    connection.commit();
+                    noteCount += batchCount;
+                }
+            } while (batchCount == BATCH_SIZE);
+        } catch (DatabaseException | SQLException e) {
+            throw new CustomChangeException("Could not compress the content of the notes", e);
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return String.format("Converted the content of %d notes, %d characters stored in %d bytes", noteCount, textLength, storedBytes);
+    }
+
+    @Override
+    public void setUp() {
+        // no parameters
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+        // no resources
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        return new ValidationErrors();
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Liquibase changes written in Java.
+ */
+package com.twohtwo.notebook.config.liquibase;
@@ -0,0 +1,59 @@
+package com.twohtwo.notebook.domain;
+
+import com.github.luben.zstd.Zstd;
+import java.nio.charset.StandardCharsets;
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Stores large texts compressed with zstd in a binary column.
+ * <p>
+ * Texts of at least {@value #MIN_COMPRESSED_LENGTH} bytes are stored as a zstd frame when it is smaller, other texts as
+ * their plain UTF-8 bytes. Both are told apart by the magic number of zstd frames, which a valid UTF-8 text never
+ * starts with, so the plain UTF-8 bytes of existing rows can be read without rewriting them.
+ */
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, byte[]> {
+
+    public static final int MIN_COMPRESSED_LENGTH = 1024;
+
+    static final int LEVEL = 3;
+
+    private static final byte[] ZSTD_MAGIC = { (byte) 0x28, (byte) 0xB5, (byte) 0x2F, (byte) 0xFD };
+
+    @Override
+    public byte[] convertToDatabaseColumn(String text) {
+        if (text == null) {
+            return null;
+        }
+        byte[] plain = text.getBytes(StandardCharsets.UTF_8);
+        if (plain.length < MIN_COMPRESSED_LENGTH) {
+            return plain;
+        }
+        byte[] compressed = Zstd.compress(plain, LEVEL);
+        return compressed.length < plain.length ? compressed : plain;
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (!isCompressed(data)) {
+            return new String(data, StandardCharsets.UTF_8);
+        }
+        return new String(Zstd.decompress(data, (int) Zstd.decompressedSize(data)), StandardCharsets.UTF_8);
+    }
+
+    public static boolean isCompressed(byte[] data) {
+        if (data.length < ZSTD_MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < ZSTD_MAGIC.length; i++) {
+            if (data[i] != ZSTD_MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -7,19 +7,49 @@ import javax.persistence.*;
 import javax.validation.constraints.*;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
-import org.hibernate.annotations.Type;
+import org.hibernate.annotations.Filter;
+import org.hibernate.annotations.FilterDef;
+import org.hibernate.annotations.FilterDefs;
+import org.hibernate.annotations.Filters;
+import org.hibernate.annotations.ParamDef;
 
 /**
  * A Note.
+ * <p>
+ * The filters restrict the queries of the session enabling them to the notes readable by a user, see
+ * {@link com.twohtwo.notebook.service.NoteAccessService}.
  */
 @Entity
 @Table(name = "note")
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@FilterDefs(
+    {
+        @FilterDef(name = Note.UNOWNED_FILTER, defaultCondition = "user_id is null"),
+        @FilterDef(
+            name = Note.READABLE_FILTER,
+            parameters = @ParamDef(name = "userId", type = "long"),
+            defaultCondition = "(user_id = :userId or user_id is null)"
+        ),
+        @FilterDef(
+            name = Note.READABLE_OR_SHARED_FILTER,
+            parameters = @ParamDef(name = "userId", type = "long"),
+            defaultCondition = "(user_id = :userId or user_id is null" +
+            " or id in (select s.sharing_id from share s where s.with_user_id = :userId))"
+        )
+    }
+)
+@Filters({ @Filter(name = Note.UNOWNED_FILTER), @Filter(name = Note.READABLE_FILTER), @Filter(name = Note.READABLE_OR_SHARED_FILTER) })
 @SuppressWarnings("common-java:DuplicatedBlocks")
 public class Note implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    public static final String UNOWNED_FILTER = "unownedNotes";
+
+    public static final String READABLE_FILTER = "readableNotes";
+
+    public static final String READABLE_OR_SHARED_FILTER = "readableOrSharedNotes";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
     @SequenceGenerator(name = "sequenceGenerator")
@@ -30,8 +60,7 @@ public class Note implements Serializable {
     @Column(name = "title", nullable = false)
     private String title;
 
-    @Lob
-    @Type(type = "org.hibernate.type.TextType")
+    @Convert(converter = CompressedTextConverter.class)
     @Column(name = "content", nullable = false)
     private String content;
 
@@ -46,6 +75,10 @@ public class Note implements Serializable {
     @JsonIgnoreProperties(value = { "user" }, allowSetters = true)
     private NoteBook notebook;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
 
     public Long getId() {
@@ -126,6 +159,14 @@ public class Note implements Serializable {
         return this;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
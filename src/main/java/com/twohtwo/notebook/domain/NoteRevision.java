@@ -0,0 +1,162 @@
+package com.twohtwo.notebook.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.io.Serializable;
+import java.time.Instant;
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+/**
+ * A saved version of a {@link Note}, see {@link com.twohtwo.notebook.service.NoteRevisionService}.
+ * <p>
+ * The content of a snapshot revision is stored in full, the content of the other revisions as the JSON list of the
+ * {@link com.twohtwo.notebook.service.autosave.TextDelta}s from the previous revision of the note.
+ */
+@Entity
+@Table(name = "note_revision")
+public class NoteRevision implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
+    @Column(name = "id")
+    private Long id;
+
+    @NotNull
+    @Column(name = "note_id", nullable = false)
+    private Long noteId;
+
+    @NotNull
+    @Column(name = "revision", nullable = false)
+    private Integer revision;
+
+    @Column(name = "snapshot", nullable = false)
+    private boolean snapshot;
+
+    @JsonIgnore
+    @Column(name = "compacted", nullable = false)
+    private boolean compacted;
+
+    @Column(name = "title")
+    private String title;
+
+    @JsonIgnore
+    @NotNull
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "data", nullable = false)
+    private String data;
+
+    @Size(max = 50)
+    @Column(name = "author_login", length = 50)
+    private String authorLogin;
+
+    @NotNull
+    @Column(name = "created_date", nullable = false)
+    private Instant createdDate;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(Long noteId) {
+        this.noteId = noteId;
+    }
+
+    public Integer getRevision() {
+        return revision;
+    }
+
+    public void setRevision(Integer revision) {
+        this.revision = revision;
+    }
+
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(boolean snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public boolean isCompacted() {
+        return compacted;
+    }
+
+    public void setCompacted(boolean compacted) {
+        this.compacted = compacted;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getData() {
+        return data;
+    }
+
+    public void setData(String data) {
+        this.data = data;
+    }
+
+    public String getAuthorLogin() {
+        return authorLogin;
+    }
+
+    public void setAuthorLogin(String authorLogin) {
+        this.authorLogin = authorLogin;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof NoteRevision)) {
+            return false;
+        }
+        return id != null && id.equals(((NoteRevision) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "NoteRevision{" +
+            "id=" + id +
+            ", noteId=" + noteId +
+            ", revision=" + revision +
+            ", snapshot=" + snapshot +
+            ", compacted=" + compacted +
+            ", title='" + title + "'" +
+            ", authorLogin='" + authorLogin + "'" +
+            ", createdDate='" + createdDate + "'" +
+            "}";
+    }
+}
@@ -18,6 +18,11 @@ public class Share implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * The invite of a share that lets its recipient update the note, and not only read it.
+     */
+    public static final String WRITE_INVITE = "write";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
     @SequenceGenerator(name = "sequenceGenerator")
@@ -34,10 +39,17 @@ public class Share implements Serializable {
     @ManyToOne
     private User withUser;
 
+    /**
+     * The shared note, serialized without its content, which shares must not expose to users who cannot read the note.
+     */
     @ManyToOne
-    @JsonIgnoreProperties(value = { "user", "notebook" }, allowSetters = true)
+    @JsonIgnoreProperties(value = { "user", "notebook", "content" }, allowSetters = true)
     private Note sharing;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
 
     public Long getId() {
@@ -105,6 +117,14 @@ public class Share implements Serializable {
         return this;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -0,0 +1,143 @@
+package com.twohtwo.notebook.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+/**
+ * A {@link Share} as listed in the "shared with me" inbox of its recipient, see
+ * {@link com.twohtwo.notebook.service.ShareInboxService}.
+ * <p>
+ * It copies the title of the shared note and the login of the author, so that the inbox is read from this table alone.
+ */
+@Entity
+@Table(name = "share_inbox")
+public class ShareInboxEntry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "share_id")
+    private Long shareId;
+
+    @NotNull
+    @Column(name = "recipient_id", nullable = false)
+    private Long recipientId;
+
+    @Column(name = "author_id")
+    private Long authorId;
+
+    @Size(max = 50)
+    @Column(name = "author_login", length = 50)
+    private String authorLogin;
+
+    @Column(name = "note_id")
+    private Long noteId;
+
+    @Column(name = "note_title")
+    private String noteTitle;
+
+    @NotNull
+    @Column(name = "invite", nullable = false)
+    private String invite;
+
+    @NotNull
+    @Column(name = "shared_date", nullable = false)
+    private Instant sharedDate;
+
+    public Long getShareId() {
+        return shareId;
+    }
+
+    public void setShareId(Long shareId) {
+        this.shareId = shareId;
+    }
+
+    public Long getRecipientId() {
+        return recipientId;
+    }
+
+    public void setRecipientId(Long recipientId) {
+        this.recipientId = recipientId;
+    }
+
+    public Long getAuthorId() {
+        return authorId;
+    }
+
+    public void setAuthorId(Long authorId) {
+        this.authorId = authorId;
+    }
+
+    public String getAuthorLogin() {
+        return authorLogin;
+    }
+
+    public void setAuthorLogin(String authorLogin) {
+        this.authorLogin = authorLogin;
+    }
+
+    public Long getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(Long noteId) {
+        this.noteId = noteId;
+    }
+
+    public String getNoteTitle() {
+        return noteTitle;
+    }
+
+    public void setNoteTitle(String noteTitle) {
+        this.noteTitle = noteTitle;
+    }
+
+    public String getInvite() {
+        return invite;
+    }
+
+    public void setInvite(String invite) {
+        this.invite = invite;
+    }
+
+    public Instant getSharedDate() {
+        return sharedDate;
+    }
+
+    public void setSharedDate(Instant sharedDate) {
+        this.sharedDate = sharedDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ShareInboxEntry)) {
+            return false;
+        }
+        return shareId != null && shareId.equals(((ShareInboxEntry) o).shareId);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ShareInboxEntry{" +
+            "shareId=" + shareId +
+            ", recipientId=" + recipientId +
+            ", authorLogin='" + authorLogin + "'" +
+            ", noteId=" + noteId +
+            ", noteTitle='" + noteTitle + "'" +
+            ", invite='" + invite + "'" +
+            ", sharedDate='" + sharedDate + "'" +
+            "}";
+    }
+}
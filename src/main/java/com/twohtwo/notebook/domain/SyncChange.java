@@ -0,0 +1,116 @@
+package com.twohtwo.notebook.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+/**
+ * The last change of a {@link Note}, {@link NoteBook} or {@link Share}, as listed by the sync API, see
+ * {@link com.twohtwo.notebook.service.SyncService}.
+ * <p>
+ * Each change takes the next sequence number and replaces the previous change of the same entity, so that a client
+ * syncing from a sequence number gets every entity changed since then once. A deleted entity is kept as a tombstone
+ * until the compaction trims it.
+ */
+@Entity
+@Table(name = "sync_change")
+public class SyncChange implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum EntityType {
+        NOTE,
+        NOTE_BOOK,
+        SHARE,
+    }
+
+    @Id
+    @Column(name = "seq")
+    private Long seq;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", length = 16, nullable = false)
+    private EntityType entityType;
+
+    @NotNull
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(name = "deleted", nullable = false)
+    private boolean deleted;
+
+    @NotNull
+    @Column(name = "changed_date", nullable = false)
+    private Instant changedDate;
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(EntityType entityType) {
+        this.entityType = entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+
+    public Instant getChangedDate() {
+        return changedDate;
+    }
+
+    public void setChangedDate(Instant changedDate) {
+        this.changedDate = changedDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SyncChange)) {
+            return false;
+        }
+        return seq != null && seq.equals(((SyncChange) o).seq);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SyncChange{" +
+            "seq=" + seq +
+            ", entityType='" + entityType + "'" +
+            ", entityId=" + entityId +
+            ", deleted=" + deleted +
+            ", changedDate='" + changedDate + "'" +
+            "}";
+    }
+}
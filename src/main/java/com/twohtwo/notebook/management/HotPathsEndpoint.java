@@ -0,0 +1,184 @@
+package com.twohtwo.notebook.management;
+
+import com.twohtwo.notebook.management.RequestStatementsRecorder.NPlusOneSuspect;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /management/hotpaths}: where requests spend their database time.
+ * <p>
+ * Reports the repository methods by total time, from the {@value #REPOSITORY_INVOCATIONS_METER_NAME} timers that Spring
+ * Boot records for every repository method, the number of SQL statements per request, and the latest N+1 suspects, see
+ * {@link RequestStatementsRecorder}.
+ */
+@Component
+@Endpoint(id = "hotpaths")
+public class HotPathsEndpoint {
+
+    static final String REPOSITORY_INVOCATIONS_METER_NAME = "spring.data.repository.invocations";
+
+    private final MeterRegistry registry;
+
+    private final RequestStatementsRecorder recorder;
+
+    public HotPathsEndpoint(MeterRegistry registry, RequestStatementsRecorder recorder) {
+        this.registry = registry;
+        this.recorder = recorder;
+    }
+
+    @ReadOperation
+    public HotPaths hotPaths() {
+        return new HotPaths(repositoryMethods(), requests(), recorder.getSuspects());
+    }
+
+    private List<RepositoryMethod> repositoryMethods() {
+        // one timer per outcome (state and exception tags) of each method
+        Map<String, RepositoryMethod> methods = new LinkedHashMap<>();
+        for (Timer timer : registry.find(REPOSITORY_INVOCATIONS_METER_NAME).timers()) {
+            String repository = timer.getId().getTag("repository");
+            String method = timer.getId().getTag("method");
+            methods.computeIfAbsent(repository + '.' + method, key -> new RepositoryMethod(repository, method)).add(timer);
+        }
+        return methods
+            .values()
+            .stream()
+            .sorted(Comparator.comparingDouble(RepositoryMethod::getTotalMillis).reversed())
+            .collect(Collectors.toList());
+    }
+
+    private List<RequestStatements> requests() {
+        return registry
+            .find(RequestStatementsRecorder.STATEMENTS_METER_NAME)
+            .summaries()
+            .stream()
+            .map(RequestStatements::new)
+            .sorted(Comparator.comparingDouble(RequestStatements::getMeanStatements).reversed())
+            .collect(Collectors.toList());
+    }
+
+    public static final class HotPaths {
+
+        private final List<RepositoryMethod> repositoryMethods;
+
+        private final List<RequestStatements> requests;
+
+        private final List<NPlusOneSuspect> suspects;
+
+        HotPaths(List<RepositoryMethod> repositoryMethods, List<RequestStatements> requests, List<NPlusOneSuspect> suspects) {
+            this.repositoryMethods = repositoryMethods;
+            this.requests = requests;
+            this.suspects = suspects;
+        }
+
+        public List<RepositoryMethod> getRepositoryMethods() {
+            return repositoryMethods;
+        }
+
+        public List<RequestStatements> getRequests() {
+            return requests;
+        }
+
+        /**
+         * @return the latest N+1 suspects, latest first.
+         */
+        public List<NPlusOneSuspect> getSuspects() {
+            return suspects;
+        }
+    }
+
+    public static final class RepositoryMethod {
+
+        private final String repository;
+
+        private final String method;
+
+        private long count;
+
+        private double totalMillis;
+
+        private double maxMillis;
+
+        RepositoryMethod(String repository, String method) {
+            this.repository = repository;
+            this.method = method;
+        }
+
+        private RepositoryMethod add(Timer timer) {
+            count += timer.count();
+            totalMillis += timer.totalTime(TimeUnit.MILLISECONDS);
+            maxMillis = Math.max(maxMillis, timer.max(TimeUnit.MILLISECONDS));
+            return this;
+        }
+
+        public String getRepository() {
+            return repository;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getTotalMillis() {
+            return totalMillis;
+        }
+
+        public double getMeanMillis() {
+            return count == 0 ? 0 : totalMillis / count;
+        }
+
+        /**
+         * @return the maximum over the last few minutes, as decayed by Micrometer.
+         */
+        public double getMaxMillis() {
+            return maxMillis;
+        }
+    }
+
+    public static final class RequestStatements {
+
+        private final String uri;
+
+        private final long count;
+
+        private final double meanStatements;
+
+        private final double maxStatements;
+
+        RequestStatements(DistributionSummary summary) {
+            this.uri = summary.getId().getTag(RequestStatementsRecorder.URI_DIMENSION);
+            this.count = summary.count();
+            this.meanStatements = summary.mean();
+            this.maxStatements = summary.max();
+        }
+
+        public String getUri() {
+            return uri;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMeanStatements() {
+            return meanStatements;
+        }
+
+        public double getMaxStatements() {
+            return maxStatements;
+        }
+    }
+}
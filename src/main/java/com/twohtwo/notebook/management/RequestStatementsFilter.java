@@ -0,0 +1,38 @@
+package com.twohtwo.notebook.management;
+
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Counts the SQL statements of each HTTP request with the {@link RequestStatementsRecorder}, by URI pattern as
+ * {@code http.server.requests} does.
+ */
+@Component
+public class RequestStatementsFilter extends OncePerRequestFilter {
+
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final RequestStatementsRecorder recorder;
+
+    public RequestStatementsFilter(RequestStatementsRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        recorder.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            recorder.end(pattern != null ? pattern.toString() : UNKNOWN_URI);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.twohtwo.notebook.management;
+
+import com.twohtwo.notebook.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Counts the SQL statements prepared by Hibernate during each HTTP request, see {@link RequestStatementsFilter}.
+ * <p>
+ * The count of every request is recorded in the {@value #STATEMENTS_METER_NAME} distribution summary, by URI pattern.
+ * A statement prepared at least {@code application.instrumentation.repeated-statement-threshold} times by the same request is
+ * most likely a lazy association loaded in a loop: it is logged, counted in {@value #N_PLUS_ONE_METER_NAME} and kept
+ * among the {@value #MAX_SUSPECTS} latest N+1 suspects. Statements prepared outside of a request, such as by scheduled
+ * jobs, are not counted.
+ */
+@Service
+public class RequestStatementsRecorder implements StatementInspector {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String STATEMENTS_METER_NAME = "hibernate.statements.per-request";
+    public static final String STATEMENTS_METER_DESCRIPTION = "Indicates the number of SQL statements prepared by each request.";
+    public static final String N_PLUS_ONE_METER_NAME = "hibernate.statements.n-plus-one";
+    public static final String N_PLUS_ONE_METER_DESCRIPTION = "Indicates the requests repeating a statement, as N+1 selects do.";
+    public static final String URI_DIMENSION = "uri";
+
+    static final int MAX_SUSPECTS = 100;
+
+    private final transient Logger log = LoggerFactory.getLogger(RequestStatementsRecorder.class);
+
+    private final transient ThreadLocal<Map<String, Counts>> statements = new ThreadLocal<>();
+
+    private final transient Deque<NPlusOneSuspect> suspects = new ArrayDeque<>(MAX_SUSPECTS);
+
+    private final transient MeterRegistry registry;
+
+    private final int repeatedStatementThreshold;
+
+    public RequestStatementsRecorder(MeterRegistry registry, ApplicationProperties applicationProperties) {
+        this.registry = registry;
+        this.repeatedStatementThreshold = applicationProperties.getInstrumentation().getRepeatedStatementThreshold();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Map<String, Counts> current = statements.get();
+        if (current != null) {
+            current.computeIfAbsent(sql, key -> new Counts()).value++;
+        }
+        return sql;
+    }
+
+    /**
+     * Starts counting the statements of the current thread.
+     */
+    void begin() {
+        statements.set(new HashMap<>());
+    }
+
+    /**
+     * Stops counting the statements of the current thread and records them.
+     *
+     * @param uri the URI pattern of the request.
+     */
+    void end(String uri) {
+        Map<String, Counts> current = statements.get();
+        statements.remove();
+        if (current == null) {
+            return;
+        }
+        int total = 0;
+        for (Map.Entry<String, Counts> statement : current.entrySet()) {
+            int executions = statement.getValue().value;
+            total += executions;
+            if (executions >= repeatedStatementThreshold) {
+                flag(uri, statement.getKey(), executions);
+            }
+        }
+        DistributionSummary
+            .builder(STATEMENTS_METER_NAME)
+            .baseUnit("statements")
+            .description(STATEMENTS_METER_DESCRIPTION)
+            .tag(URI_DIMENSION, uri)
+            .register(registry)
+            .record(total);
+    }
+
+    private void flag(String uri, String sql, int executions) {
+        log.warn("Possible N+1 selects in {}: {} executions of {}", uri, executions, sql);
+        Counter
+            .builder(N_PLUS_ONE_METER_NAME)
+            .description(N_PLUS_ONE_METER_DESCRIPTION)
+            .tag(URI_DIMENSION, uri)
+            .register(registry)
+            .increment();
+        synchronized (suspects) {
+            if (suspects.size() == MAX_SUSPECTS) {
+                suspects.removeFirst();
+            }
+            suspects.addLast(new NPlusOneSuspect(Instant.now(), uri, sql, executions));
+        }
+    }
+
+    /**
+     * @return the latest N+1 suspects, latest first.
+     */
+    public List<NPlusOneSuspect> getSuspects() {
+        synchronized (suspects) {
+            List<NPlusOneSuspect> latestFirst = new ArrayList<>(suspects);
+            Collections.reverse(latestFirst);
+            return latestFirst;
+        }
+    }
+
+    private static final class Counts {
+
+        private int value;
+    }
+
+    /**
+     * A statement repeated by a request.
+     */
+    public static final class NPlusOneSuspect {
+
+        private final Instant timestamp;
+
+        private final String uri;
+
+        private final String statement;
+
+        private final int executions;
+
+        NPlusOneSuspect(Instant timestamp, String uri, String statement, int executions) {
+            this.timestamp = timestamp;
+            this.uri = uri;
+            this.statement = statement;
+            this.executions = executions;
+        }
+
+        public Instant getTimestamp() {
+            return timestamp;
+        }
+
+        public String getUri() {
+            return uri;
+        }
+
+        public String getStatement() {
+            return statement;
+        }
+
+        public int getExecutions() {
+            return executions;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.twohtwo.notebook.repository;
+
+import com.twohtwo.notebook.domain.MailOutboxMessage;
+import com.twohtwo.notebook.domain.MailOutboxMessage.Status;
+import java.time.Instant;
+import java.util.List;
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the {@link MailOutboxMessage} entity.
+ */
+@Repository
+public interface MailOutboxRepository extends JpaRepository<MailOutboxMessage, Long> {
+    /**
+     * Locks the next messages due for an attempt. Rows already locked by another application instance are skipped
+     * ({@code for update skip locked} on PostgreSQL, {@code LockOptions.SKIP_LOCKED} being {@code -2}), so that
+     * instances dispatch disjoint batches.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    List<MailOutboxMessage> findByStatusAndNextAttemptAtLessThanEqual(Status status, Instant now, Pageable pageable);
+
+    long countByStatus(Status status);
+}
@@ -1,10 +1,19 @@
 package com.twohtwo.notebook.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 import com.twohtwo.notebook.domain.NoteBook;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,7 +23,15 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface NoteBookRepository extends JpaRepository<NoteBook, Long> {
+    String NOTE_BOOKS_BY_CURRENT_USER_QUERY_CACHE = "noteBooksByCurrentUserQuery";
+
     @Query("select noteBook from NoteBook noteBook where noteBook.user.login = ?#{principal.username}")
+    @QueryHints(
+        {
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = NOTE_BOOKS_BY_CURRENT_USER_QUERY_CACHE),
+        }
+    )
     List<NoteBook> findByUserIsCurrentUser();
 
     default Optional<NoteBook> findOneWithEagerRelationships(Long id) {
@@ -40,4 +57,21 @@ public interface NoteBookRepository extends JpaRepository<NoteBook, Long> {
 
     @Query("select noteBook from NoteBook noteBook left join fetch noteBook.user where noteBook.id =:id")
     Optional<NoteBook> findOneWithToOneRelationships(@Param("id") Long id);
+
+    @Query("select noteBook from NoteBook noteBook left join fetch noteBook.user where noteBook.id in :ids")
+    List<NoteBook> findAllWithToOneRelationshipsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Page of the keyset pagination over {@code id} starting right after the given id. No count query is issued.
+     * The given pageable must be unsorted.
+     */
+    @Query("select noteBook from NoteBook noteBook left join fetch noteBook.user where noteBook.id > :id order by noteBook.id")
+    Slice<NoteBook> findKeysetPageAfter(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * Streams all the noteBooks in id order from a read-only database cursor. Must be consumed in a transaction and closed.
+     */
+    @QueryHints({ @QueryHint(name = HINT_FETCH_SIZE, value = "100"), @QueryHint(name = HINT_READONLY, value = "true") })
+    @Query("select noteBook from NoteBook noteBook left join fetch noteBook.user order by noteBook.id")
+    Stream<NoteBook> streamAllWithToOneRelationships();
 }
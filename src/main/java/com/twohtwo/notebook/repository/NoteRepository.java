@@ -1,10 +1,18 @@
 package com.twohtwo.notebook.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 import com.twohtwo.notebook.domain.Note;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -13,10 +21,21 @@ import org.springframework.stereotype.Repository;
  * Spring Data JPA repository for the Note entity.
  */
 @Repository
-public interface NoteRepository extends JpaRepository<Note, Long> {
+public interface NoteRepository extends NoteRepositoryWithSearchVector, JpaRepository<Note, Long> {
     @Query("select note from Note note where note.user.login = ?#{principal.username}")
     List<Note> findByUserIsCurrentUser();
 
+    /**
+     * Timeline of the notes of a user, newest first, served by the {@code (user_id, date desc, id)} index.
+     * The given pageable must be unsorted.
+     */
+    @Query(
+        value = "select note from Note note left join fetch note.user left join fetch note.notebook" +
+        " where note.user.id = :userId order by note.date desc, note.id",
+        countQuery = "select count(note) from Note note where note.user.id = :userId"
+    )
+    Page<Note> findTimelineByUserId(@Param("userId") Long userId, Pageable pageable);
+
     default Optional<Note> findOneWithEagerRelationships(Long id) {
         return this.findOneWithToOneRelationships(id);
     }
@@ -37,14 +56,120 @@ public interface NoteRepository extends JpaRepository<Note, Long> {
 
 
     @Query(
-        value = "select distinct note from Note note left join fetch note.user left join fetch note.notebook where note.content like %:searchingFor%",
-        countQuery = "select count(distinct note) from Note note where note.content like %:searchingFor%"
+        value = "select distinct note from Note note left join fetch note.user left join fetch note.notebook where note.title like %:searchingFor%",
+        countQuery = "select count(distinct note) from Note note where note.title like %:searchingFor%"
+    )
+    Page<Note> searchAllByTitle(@Param("searchingFor") String searchingFor, Pageable pageable);
+
+    /**
+     * Restricts the native full-text queries to the notes readable by a user, as the {@link Note} filters do not apply to
+     * native queries: every note if {@code :allNotes}, else the notes without owner, owned by {@code :userId} or shared
+     * with them.
+     */
+    String FULL_TEXT_READABLE =
+        " and (:allNotes = true or n.user_id is null or n.user_id = :userId" +
+        " or n.id in (select s.sharing_id from share s where s.with_user_id = :userId))";
+
+    /**
+     * PostgreSQL full-text search on the {@code search_vector} column, ranked by {@code ts_rank_cd}, over the notes
+     * readable by a user, see {@link #FULL_TEXT_READABLE}. Returns the ids of the matching notes only, as the driver
+     * returns them, to be hydrated by {@link #findAllWithToOneRelationshipsByIdIn(Collection)}: loading the notes
+     * themselves from a native query would load their relationships one by one. The given pageable must be unsorted.
+     */
+    @Query(
+        value = "select n.id from note n where n.search_vector @@ websearch_to_tsquery('english', :query)" +
+        FULL_TEXT_READABLE +
+        " order by ts_rank_cd(n.search_vector, websearch_to_tsquery('english', :query)) desc, n.id desc",
+        countQuery = "select count(*) from note n where n.search_vector @@ websearch_to_tsquery('english', :query)" +
+        FULL_TEXT_READABLE,
+        nativeQuery = true
     )
-    Page<Note> searchAllByTextBlob(String searchingFor, Pageable pageable);
+    Page<Number> searchIdsByFullText(
+        @Param("query") String query,
+        @Param("allNotes") boolean allNotes,
+        @Param("userId") Long userId,
+        Pageable pageable
+    );
 
     @Query("select distinct note from Note note left join fetch note.user left join fetch note.notebook")
     List<Note> findAllWithToOneRelationships();
 
     @Query("select note from Note note left join fetch note.user left join fetch note.notebook where note.id =:id")
     Optional<Note> findOneWithToOneRelationships(@Param("id") Long id);
+
+    @Query("select note from Note note left join fetch note.user left join fetch note.notebook where note.id in :ids")
+    List<Note> findAllWithToOneRelationshipsByIdIn(@Param("ids") Collection<Long> ids);
+
+    Slice<Note> findByIdGreaterThan(Long id, Pageable pageable);
+
+    @Query("select note.id from Note note where note.user.id = :userId")
+    List<Long> findIdsByUserId(@Param("userId") Long userId);
+
+    @Query("select note.id from Note note where note.user is null")
+    List<Long> findIdsByUserIsNull();
+
+    String SUMMARY_SELECT =
+        "select note.id as id, note.title as title, note.date as date, nb.id as notebookId, nb.name as notebookName," +
+        " u.login as userLogin from Note note left join note.notebook nb left join note.user u";
+
+    @Query(value = SUMMARY_SELECT, countQuery = "select count(note) from Note note")
+    Page<NoteSummary> findAllSummaries(Pageable pageable);
+
+    @Query(SUMMARY_SELECT + " where note.id in :ids")
+    List<NoteSummary> findAllSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select note.id as id, note.title as title, note.content as content from Note note where note.id in :ids")
+    List<NoteText> findAllTextsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(
+        value = SUMMARY_SELECT + " where note.title like %:searchingFor%",
+        countQuery = "select count(note) from Note note where note.title like %:searchingFor%"
+    )
+    Page<NoteSummary> searchAllSummariesByTitle(@Param("searchingFor") String searchingFor, Pageable pageable);
+
+    /**
+     * Summary variant of {@link #searchIdsByFullText(String, boolean, Long, Pageable)}. The given pageable must be unsorted.
+     */
+    @Query(
+        value = "select n.id as \"id\", n.title as \"title\", n.date as \"date\", nb.id as \"notebookId\"," +
+        " nb.name as \"notebookName\", u.login as \"userLogin\"" +
+        " from note n left join note_book nb on nb.id = n.notebook_id left join jhi_user u on u.id = n.user_id" +
+        " where n.search_vector @@ websearch_to_tsquery('english', :query)" +
+        FULL_TEXT_READABLE +
+        " order by ts_rank_cd(n.search_vector, websearch_to_tsquery('english', :query)) desc, n.id desc",
+        countQuery = "select count(*) from note n where n.search_vector @@ websearch_to_tsquery('english', :query)" +
+        FULL_TEXT_READABLE,
+        nativeQuery = true
+    )
+    Page<NoteSummary> searchAllSummariesByFullText(
+        @Param("query") String query,
+        @Param("allNotes") boolean allNotes,
+        @Param("userId") Long userId,
+        Pageable pageable
+    );
+
+    /**
+     * First page of the keyset pagination over {@code (date, id)}, newest first. No count query is issued.
+     * The given pageable must be unsorted.
+     */
+    @Query("select note from Note note left join fetch note.user left join fetch note.notebook order by note.date desc, note.id desc")
+    Slice<Note> findKeysetFirstPage(Pageable pageable);
+
+    /**
+     * Page of the keyset pagination over {@code (date, id)} starting right after the given key, newest first.
+     * No count query is issued. The given pageable must be unsorted.
+     */
+    @Query(
+        "select note from Note note left join fetch note.user left join fetch note.notebook" +
+        " where note.date < :date or (note.date = :date and note.id < :id)" +
+        " order by note.date desc, note.id desc"
+    )
+    Slice<Note> findKeysetPageAfter(@Param("date") Instant date, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Streams all the notes in id order from a read-only database cursor. Must be consumed in a transaction and closed.
+     */
+    @QueryHints({ @QueryHint(name = HINT_FETCH_SIZE, value = "100"), @QueryHint(name = HINT_READONLY, value = "true") })
+    @Query("select note from Note note left join fetch note.user left join fetch note.notebook order by note.id")
+    Stream<Note> streamAllWithToOneRelationships();
 }
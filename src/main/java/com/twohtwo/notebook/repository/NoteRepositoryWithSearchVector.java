@@ -0,0 +1,17 @@
+package com.twohtwo.notebook.repository;
+
+/**
+ * Writes the PostgreSQL full-text search vectors of the notes, see {@link NoteRepository}.
+ */
+public interface NoteRepositoryWithSearchVector {
+    /**
+     * Writes the PostgreSQL full-text search vector of a note, which the database cannot compute from the compressed
+     * content. The pending changes are flushed first.
+     *
+     * @param id the id of the note.
+     * @param title the title of the note.
+     * @param content the uncompressed content of the note.
+     * @return the number of updated rows.
+     */
+    int updateSearchVector(Long id, String title, String content);
+}
@@ -0,0 +1,34 @@
+package com.twohtwo.notebook.repository;
+
+import com.twohtwo.notebook.domain.Note;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+
+/**
+ * The update is a native query declaring the {@code note} table as its only query space. Without it, Hibernate would
+ * evict every second-level cache region and invalidate every cached query on each update, which happens on every save
+ * of a note in the full-text mode, autosaves included.
+ */
+public class NoteRepositoryWithSearchVectorImpl implements NoteRepositoryWithSearchVector {
+
+    private static final String UPDATE_SEARCH_VECTOR =
+        "update note set search_vector = setweight(to_tsvector('english', :title), 'A') ||" +
+        " setweight(to_tsvector('english', :content), 'B') where id = :id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int updateSearchVector(Long id, String title, String content) {
+        entityManager.flush();
+        return entityManager
+            .createNativeQuery(UPDATE_SEARCH_VECTOR)
+            .unwrap(NativeQuery.class)
+            .addSynchronizedEntityClass(Note.class)
+            .setParameter("id", id)
+            .setParameter("title", title)
+            .setParameter("content", content)
+            .executeUpdate();
+    }
+}
@@ -0,0 +1,52 @@
+package com.twohtwo.notebook.repository;
+
+import com.twohtwo.notebook.domain.NoteRevision;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the {@link NoteRevision} entity.
+ */
+@Repository
+public interface NoteRevisionRepository extends JpaRepository<NoteRevision, Long> {
+    /**
+     * Page of the revisions of a note, most recent first. The given pageable must be unsorted.
+     */
+    Page<NoteRevision> findByNoteIdOrderByRevisionDesc(Long noteId, Pageable pageable);
+
+    Optional<NoteRevision> findFirstByNoteIdOrderByRevisionDesc(Long noteId);
+
+    Optional<NoteRevision> findFirstByNoteIdAndRevisionLessThanOrderByRevisionDesc(Long noteId, Integer revision);
+
+    Optional<NoteRevision> findOneByNoteIdAndRevision(Long noteId, Integer revision);
+
+    /**
+     * @return the latest snapshot of a note at or before a revision, from which the revision is reconstructed.
+     */
+    Optional<NoteRevision> findFirstByNoteIdAndSnapshotIsTrueAndRevisionLessThanEqualOrderByRevisionDesc(Long noteId, Integer revision);
+
+    /**
+     * @return the revisions of a note after {@code after}, up to and including {@code upTo}, in order.
+     */
+    @Query(
+        "select revision from NoteRevision revision where revision.noteId = :noteId" +
+        " and revision.revision > :after and revision.revision <= :upTo order by revision.revision"
+    )
+    List<NoteRevision> findRange(@Param("noteId") Long noteId, @Param("after") Integer after, @Param("upTo") Integer upTo);
+
+    /**
+     * @return the first revisions of a note after a revision, in order.
+     */
+    List<NoteRevision> findByNoteIdAndRevisionGreaterThanOrderByRevision(Long noteId, Integer revision, Pageable pageable);
+
+    List<NoteRevision> findByNoteIdAndCompactedIsFalseAndCreatedDateBeforeOrderByRevision(Long noteId, Instant before);
+
+    @Query("select distinct revision.noteId from NoteRevision revision where revision.compacted = false and revision.createdDate < :before")
+    List<Long> findNoteIdsToCompact(@Param("before") Instant before, Pageable pageable);
+}
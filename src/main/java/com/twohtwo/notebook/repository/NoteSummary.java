@@ -0,0 +1,22 @@
+package com.twohtwo.notebook.repository;
+
+import java.time.Instant;
+
+/**
+ * Read-only projection of a {@link com.twohtwo.notebook.domain.Note} for list views.
+ * <p>
+ * It does not include the note content, so queries returning it never read the {@code content} column.
+ */
+public interface NoteSummary {
+    Long getId();
+
+    String getTitle();
+
+    Instant getDate();
+
+    Long getNotebookId();
+
+    String getNotebookName();
+
+    String getUserLogin();
+}
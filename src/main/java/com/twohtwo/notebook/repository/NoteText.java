@@ -0,0 +1,14 @@
+package com.twohtwo.notebook.repository;
+
+/**
+ * Read-only projection of a {@link com.twohtwo.notebook.domain.Note} for indexing.
+ * <p>
+ * It is not an entity, so loading many of them does not grow the persistence context.
+ */
+public interface NoteText {
+    Long getId();
+
+    String getTitle();
+
+    String getContent();
+}
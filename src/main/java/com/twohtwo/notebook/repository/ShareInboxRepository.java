@@ -0,0 +1,31 @@
+package com.twohtwo.notebook.repository;
+
+import com.twohtwo.notebook.domain.ShareInboxEntry;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the {@link ShareInboxEntry} entity.
+ */
+@Repository
+public interface ShareInboxRepository extends JpaRepository<ShareInboxEntry, Long> {
+    /**
+     * Page of the inbox of a user, most recent first, read from the {@code (recipient_id, shared_date desc, share_id desc)}
+     * index. The given pageable must be unsorted.
+     */
+    Page<ShareInboxEntry> findByRecipientIdOrderBySharedDateDescShareIdDesc(Long recipientId, Pageable pageable);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update ShareInboxEntry entry set entry.noteTitle = :title where entry.noteId = :noteId")
+    int updateNoteTitle(@Param("noteId") Long noteId, @Param("title") String title);
+
+    @Modifying(flushAutomatically = true)
+    @Query(
+        "update ShareInboxEntry entry set entry.authorLogin = (select author.login from User author where author.id = :authorId)" +
+        " where entry.authorId = :authorId"
+    )
+    int updateAuthorLogin(@Param("authorId") Long authorId);
+}
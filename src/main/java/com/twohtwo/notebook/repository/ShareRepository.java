@@ -1,10 +1,19 @@
 package com.twohtwo.notebook.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 import com.twohtwo.notebook.domain.Share;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,10 +23,18 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface ShareRepository extends JpaRepository<Share, Long> {
+    String SHARES_WITH_CURRENT_USER_QUERY_CACHE = "sharesWithCurrentUserQuery";
+
     @Query("select share from Share share where share.author.login = ?#{principal.username}")
     List<Share> findByAuthorIsCurrentUser();
 
     @Query("select share from Share share where share.withUser.login = ?#{principal.username}")
+    @QueryHints(
+        {
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = SHARES_WITH_CURRENT_USER_QUERY_CACHE),
+        }
+    )
     List<Share> findByWithUserIsCurrentUser();
 
     default Optional<Share> findOneWithEagerRelationships(Long id) {
@@ -47,4 +64,35 @@ public interface ShareRepository extends JpaRepository<Share, Long> {
         "select share from Share share left join fetch share.author left join fetch share.withUser left join fetch share.sharing where share.id =:id"
     )
     Optional<Share> findOneWithToOneRelationships(@Param("id") Long id);
+
+    @Query(
+        "select share from Share share left join fetch share.author left join fetch share.withUser left join fetch share.sharing" +
+        " where share.id in :ids"
+    )
+    List<Share> findAllWithToOneRelationshipsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select share.sharing.id from Share share where share.withUser.id = :userId and share.sharing is not null")
+    List<Long> findSharedNoteIdsByWithUserId(@Param("userId") Long userId);
+
+    boolean existsBySharingIdAndWithUserIdAndInvite(Long noteId, Long userId, String invite);
+
+    /**
+     * Page of the keyset pagination over {@code id} starting right after the given id. No count query is issued.
+     * The given pageable must be unsorted.
+     */
+    @Query(
+        "select share from Share share left join fetch share.author left join fetch share.withUser left join fetch share.sharing" +
+        " where share.id > :id order by share.id"
+    )
+    Slice<Share> findKeysetPageAfter(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * Streams all the shares in id order from a read-only database cursor. Must be consumed in a transaction and closed.
+     */
+    @QueryHints({ @QueryHint(name = HINT_FETCH_SIZE, value = "100"), @QueryHint(name = HINT_READONLY, value = "true") })
+    @Query(
+        "select share from Share share left join fetch share.author left join fetch share.withUser left join fetch share.sharing" +
+        " order by share.id"
+    )
+    Stream<Share> streamAllWithToOneRelationships();
 }
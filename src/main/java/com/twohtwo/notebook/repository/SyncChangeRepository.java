@@ -0,0 +1,35 @@
+package com.twohtwo.notebook.repository;
+
+import com.twohtwo.notebook.domain.SyncChange;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the {@link SyncChange} entity, and the {@code sync_sequence} counter numbering the
+ * changes. The changes themselves are written by {@link com.twohtwo.notebook.service.SyncService} with JDBC.
+ */
+@Repository
+public interface SyncChangeRepository extends JpaRepository<SyncChange, Long> {
+    /**
+     * @return the first changes after a sequence number, in order. The given pageable must be unsorted.
+     */
+    List<SyncChange> findBySeqGreaterThanOrderBySeq(Long seq, Pageable pageable);
+
+    @Query(value = "select trimmed_seq from sync_sequence where id = 1", nativeQuery = true)
+    Long findTrimmedSeq();
+
+    @Query("select max(change.seq) from SyncChange change where change.deleted = true and change.changedDate < :before")
+    Long findLastTombstoneSeqBefore(@Param("before") Instant before);
+
+    @Modifying
+    @Query("delete from SyncChange change where change.deleted = true and change.changedDate < :before and change.seq <= :seq")
+    int deleteTombstonesBefore(@Param("before") Instant before, @Param("seq") Long seq);
+
+    @Modifying
+    @Query(value = "update sync_sequence set trimmed_seq = :seq where id = 1 and trimmed_seq < :seq", nativeQuery = true)
+    int updateTrimmedSeq(@Param("seq") Long seq);
+}
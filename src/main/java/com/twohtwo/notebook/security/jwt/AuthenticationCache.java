@@ -0,0 +1,140 @@
+package com.twohtwo.notebook.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Bounded, approximately least recently used cache of the {@link Authentication}s resolved from JWT tokens.
+ * <p>
+ * Entries are keyed by the SHA-256 digest of the token, so that the cache does not need to compare full tokens, and
+ * expire with the token itself: an expired token is never served from the cache, it is parsed again and rejected.
+ * <p>
+ * Every authenticated request reads the cache, so hits take no lock: they only stamp the entry with its access time.
+ * Once the cache is full, a put evicts the least recently used tenth of the entries at once, so that the cost of
+ * sorting them is shared by the following puts.
+ */
+class AuthenticationCache {
+
+    private final int maxSize;
+
+    private final int evictionTarget;
+
+    private final LongSupplier ticker;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Object evictionLock = new Object();
+
+    AuthenticationCache(int maxSize) {
+        this(maxSize, System::nanoTime);
+    }
+
+    /**
+     * @param maxSize the maximum number of entries.
+     * @param ticker the source of the access times, such as {@link System#nanoTime()}.
+     */
+    AuthenticationCache(int maxSize, LongSupplier ticker) {
+        this.maxSize = maxSize;
+        this.evictionTarget = maxSize - maxSize / 10;
+        this.ticker = ticker;
+    }
+
+    /**
+     * @param key the token digest, see {@link #digest(String)}.
+     * @param now the current time, in milliseconds.
+     * @return the cached authentication, or {@code null} if absent or expired.
+     */
+    Authentication get(String key, long now) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (now >= entry.expiresAt) {
+            entries.remove(key, entry);
+            return null;
+        }
+        entry.lastAccess = ticker.getAsLong();
+        return entry.authentication;
+    }
+
+    /**
+     * @param key the token digest, see {@link #digest(String)}.
+     * @param authentication the authentication resolved from the token.
+     * @param expiresAt the expiration time of the token, in milliseconds.
+     */
+    void put(String key, Authentication authentication, long expiresAt) {
+        entries.put(key, new Entry(authentication, expiresAt, ticker.getAsLong()));
+        if (entries.size() > maxSize) {
+            evict();
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void evict() {
+        synchronized (evictionLock) {
+            int excess = entries.size() - evictionTarget;
+            if (entries.size() <= maxSize || excess <= 0) {
+                return;
+            }
+            // the access times are copied, as hits keep updating them meanwhile
+            List<Candidate> candidates = new ArrayList<>(entries.size());
+            entries.forEach((key, entry) -> candidates.add(new Candidate(key, entry, entry.lastAccess)));
+            candidates.sort(Comparator.comparingLong(candidate -> candidate.lastAccess));
+            for (int i = 0; i < excess && i < candidates.size(); i++) {
+                entries.remove(candidates.get(i).key, candidates.get(i).entry);
+            }
+        }
+    }
+
+    static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Entry {
+
+        private final Authentication authentication;
+
+        private final long expiresAt;
+
+        private volatile long lastAccess;
+
+        private Entry(Authentication authentication, long expiresAt, long lastAccess) {
+            this.authentication = authentication;
+            this.expiresAt = expiresAt;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private static final class Candidate {
+
+        private final String key;
+
+        private final Entry entry;
+
+        private final long lastAccess;
+
+        private Candidate(String key, Entry entry, long lastAccess) {
+            this.key = key;
+            this.entry = entry;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
@@ -29,6 +29,8 @@ public class TokenProvider {
 
     private static final String INVALID_JWT_TOKEN = "Invalid JWT token.";
 
+    private static final int AUTHENTICATION_CACHE_SIZE = 10_000;
+
     private final Key key;
 
     private final JwtParser jwtParser;
@@ -39,6 +41,8 @@ public class TokenProvider {
 
     private final SecurityMetersService securityMetersService;
 
+    private final AuthenticationCache authenticationCache = new AuthenticationCache(AUTHENTICATION_CACHE_SIZE);
+
     public TokenProvider(JHipsterProperties jHipsterProperties, SecurityMetersService securityMetersService) {
         byte[] keyBytes;
         String secret = jHipsterProperties.getSecurity().getAuthentication().getJwt().getBase64Secret();
@@ -83,8 +87,38 @@ public class TokenProvider {
     }
 
     public Authentication getAuthentication(String token) {
-        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        return toAuthentication(jwtParser.parseClaimsJws(token).getBody(), token);
+    }
 
+    /**
+     * Validates the token and resolves its authentication, parsing and verifying the token at most once.
+     * <p>
+     * Resolved authentications are cached until the token expires, keyed by the digest of the token, so that a client
+     * sending the same token on every request is only verified once.
+     *
+     * @param token the JWT token.
+     * @return the authentication, or empty if the token is not valid.
+     */
+    public Optional<Authentication> resolveAuthentication(String token) {
+        String key = AuthenticationCache.digest(token);
+        Authentication authentication = authenticationCache.get(key, System.currentTimeMillis());
+        if (authentication != null) {
+            securityMetersService.trackTokenCacheHit();
+            return Optional.of(authentication);
+        }
+        securityMetersService.trackTokenCacheMiss();
+        Claims claims = parseClaims(token);
+        if (claims == null) {
+            return Optional.empty();
+        }
+        authentication = toAuthentication(claims, token);
+        if (claims.getExpiration() != null) {
+            authenticationCache.put(key, authentication, claims.getExpiration().getTime());
+        }
+        return Optional.of(authentication);
+    }
+
+    private Authentication toAuthentication(Claims claims, String token) {
         Collection<? extends GrantedAuthority> authorities = Arrays
             .stream(claims.get(AUTHORITIES_KEY).toString().split(","))
             .filter(auth -> !auth.trim().isEmpty())
@@ -97,10 +131,15 @@ public class TokenProvider {
     }
 
     public boolean validateToken(String authToken) {
-        try {
-            jwtParser.parseClaimsJws(authToken);
+        return parseClaims(authToken) != null;
+    }
 
-            return true;
+    /**
+     * @return the claims of the token, or {@code null} if the token is not valid.
+     */
+    private Claims parseClaims(String authToken) {
+        try {
+            return jwtParser.parseClaimsJws(authToken).getBody();
         } catch (ExpiredJwtException e) {
             this.securityMetersService.trackTokenExpired();
 
@@ -121,6 +160,6 @@ public class TokenProvider {
             log.error("Token validation error {}", e.getMessage());
         }
 
-        return false;
+        return null;
     }
 }
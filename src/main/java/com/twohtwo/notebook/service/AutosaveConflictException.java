@@ -0,0 +1,23 @@
+package com.twohtwo.notebook.service;
+
+import com.twohtwo.notebook.service.dto.NoteDraftDTO;
+
+/**
+ * Thrown when autosaved deltas cannot be merged into the current draft of a note. The editor is expected to reload
+ * the draft it carries and apply its changes again.
+ */
+public class AutosaveConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final NoteDraftDTO draft;
+
+    public AutosaveConflictException(String message, NoteDraftDTO draft) {
+        super(message);
+        this.draft = draft;
+    }
+
+    public NoteDraftDTO getDraft() {
+        return draft;
+    }
+}
@@ -0,0 +1,20 @@
+package com.twohtwo.notebook.service;
+
+/**
+ * Thrown when a line of a bulk import cannot be imported. The whole import is rolled back.
+ */
+public class BulkImportException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long lineNumber;
+
+    public BulkImportException(long lineNumber, String message, Throwable cause) {
+        super("Line " + lineNumber + ": " + message, cause);
+        this.lineNumber = lineNumber;
+    }
+
+    public long getLineNumber() {
+        return lineNumber;
+    }
+}
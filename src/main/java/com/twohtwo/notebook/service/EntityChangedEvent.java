@@ -0,0 +1,33 @@
+package com.twohtwo.notebook.service;
+
+/**
+ * Published when an entity is created, updated or deleted, so that the views derived from it are refreshed.
+ */
+public class EntityChangedEvent {
+
+    private final Class<?> entityType;
+
+    private final Object entityId;
+
+    public EntityChangedEvent(Class<?> entityType, Object entityId) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+    }
+
+    public Class<?> getEntityType() {
+        return entityType;
+    }
+
+    public Object getEntityId() {
+        return entityId;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "EntityChangedEvent{" +
+            "entityType=" + entityType.getSimpleName() +
+            ", entityId=" + entityId +
+            "}";
+    }
+}
@@ -0,0 +1,231 @@
+package com.twohtwo.notebook.service;
+
+import com.twohtwo.notebook.config.ApplicationProperties;
+import com.twohtwo.notebook.domain.MailOutboxMessage;
+import com.twohtwo.notebook.domain.MailOutboxMessage.Status;
+import com.twohtwo.notebook.repository.MailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Sends the emails queued in the outbox by {@link MailService}.
+ * <p>
+ * Every {@code application.mail.poll-interval}, due messages are locked by batches of {@code application.mail.batch-size}
+ * and each batch is sent over a single SMTP connection. Sent messages are deleted; a message the server did not accept
+ * is retried with an exponential backoff, from {@code application.mail.initial-backoff} up to
+ * {@code application.mail.max-backoff}, until it is marked as {@link Status#FAILED} after
+ * {@code application.mail.max-attempts}.
+ * <p>
+ * The outbox is monitored with the {@value #MESSAGES_METER_NAME} counters, by result, and the
+ * {@value #PENDING_METER_NAME} gauge, refreshed after each poll.
+ */
+@Service
+public class MailOutboxDispatcher {
+
+    public static final String MESSAGES_METER_NAME = "mail.outbox.messages";
+    public static final String MESSAGES_METER_DESCRIPTION = "Indicates the outcome of the attempts to send the emails of the outbox.";
+    public static final String MESSAGES_METER_RESULT_DIMENSION = "result";
+
+    public static final String PENDING_METER_NAME = "mail.outbox.pending";
+    public static final String PENDING_METER_DESCRIPTION = "Indicates the number of emails waiting in the outbox.";
+
+    private static final String METER_BASE_UNIT = "messages";
+
+    private static final int LAST_ERROR_MAX_LENGTH = 1024;
+
+    private final Logger log = LoggerFactory.getLogger(MailOutboxDispatcher.class);
+
+    private final MailOutboxRepository mailOutboxRepository;
+
+    private final JavaMailSender javaMailSender;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final String from;
+
+    private final ApplicationProperties.Mail properties;
+
+    private final AtomicLong pending = new AtomicLong();
+
+    private final Counter sentCounter;
+
+    private final Counter retriedCounter;
+
+    private final Counter failedCounter;
+
+    public MailOutboxDispatcher(
+        MailOutboxRepository mailOutboxRepository,
+        JavaMailSender javaMailSender,
+        JHipsterProperties jHipsterProperties,
+        ApplicationProperties applicationProperties,
+        PlatformTransactionManager transactionManager,
+        MeterRegistry registry
+    ) {
+        this.mailOutboxRepository = mailOutboxRepository;
+        this.javaMailSender = javaMailSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.from = jHipsterProperties.getMail().getFrom();
+        this.properties = applicationProperties.getMail();
+
+        this.sentCounter = messagesCounterForResultBuilder("sent").register(registry);
+        this.retriedCounter = messagesCounterForResultBuilder("retried").register(registry);
+        this.failedCounter = messagesCounterForResultBuilder("failed").register(registry);
+        Gauge
+            .builder(PENDING_METER_NAME, pending, AtomicLong::get)
+            .baseUnit(METER_BASE_UNIT)
+            .description(PENDING_METER_DESCRIPTION)
+            .register(registry);
+    }
+
+    private Counter.Builder messagesCounterForResultBuilder(String result) {
+        return Counter
+            .builder(MESSAGES_METER_NAME)
+            .baseUnit(METER_BASE_UNIT)
+            .description(MESSAGES_METER_DESCRIPTION)
+            .tag(MESSAGES_METER_RESULT_DIMENSION, result);
+    }
+
+    /**
+     * Sends the due messages, batch after batch, until fewer than a full batch are due.
+     */
+    @Scheduled(fixedDelayString = "${application.mail.poll-interval:PT5S}", initialDelayString = "${application.mail.poll-interval:PT5S}")
+    public void dispatch() {
+        Integer handled;
+        do {
+            handled = transactionTemplate.execute(status -> dispatchBatch(Instant.now()));
+        } while (handled != null && handled == properties.getBatchSize());
+        pending.set(mailOutboxRepository.countByStatus(Status.PENDING));
+    }
+
+    private int dispatchBatch(Instant now) {
+        Pageable batch = PageRequest.of(0, properties.getBatchSize(), Sort.by("nextAttemptAt", "id"));
+        List<MailOutboxMessage> messages = mailOutboxRepository.findByStatusAndNextAttemptAtLessThanEqual(Status.PENDING, now, batch);
+        if (messages.isEmpty()) {
+            return 0;
+        }
+        Map<MimeMessage, MailOutboxMessage> messagesByMimeMessage = new LinkedHashMap<>();
+        for (MailOutboxMessage message : messages) {
+            try {
+                messagesByMimeMessage.put(toMimeMessage(message), message);
+            } catch (MessagingException e) {
+                // an invalid address or subject will not get any better
+                giveUp(message, e);
+            }
+        }
+        Map<Object, Exception> failures = send(new ArrayList<>(messagesByMimeMessage.keySet()));
+        List<MailOutboxMessage> sent = new ArrayList<>();
+        messagesByMimeMessage.forEach((mimeMessage, message) -> {
+            Exception failure = failures.get(mimeMessage);
+            if (failure == null) {
+                sent.add(message);
+            } else if (message.getAttempts() + 1 >= properties.getMaxAttempts()) {
+                giveUp(message, failure);
+            } else {
+                retryLater(message, failure, now);
+            }
+        });
+        mailOutboxRepository.deleteAllInBatch(sent);
+        sentCounter.increment(sent.size());
+        log.debug("Sent {} of {} emails", sent.size(), messages.size());
+        return messages.size();
+    }
+
+    private MimeMessage toMimeMessage(MailOutboxMessage message) throws MessagingException {
+        MimeMessage mimeMessage = javaMailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, message.isMultipart(), StandardCharsets.UTF_8.name());
+        helper.setTo(message.getRecipient());
+        helper.setFrom(from);
+        helper.setSubject(message.getSubject());
+        helper.setText(message.getContent(), message.isHtml());
+        return mimeMessage;
+    }
+
+    /**
+     * Sends the messages over a single connection.
+     *
+     * @return the messages that were not sent, with the cause.
+     */
+    private Map<Object, Exception> send(List<MimeMessage> batch) {
+        if (batch.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        try {
+            javaMailSender.send(batch.toArray(new MimeMessage[0]));
+            return Collections.emptyMap();
+        } catch (MailSendException e) {
+            if (!e.getFailedMessages().isEmpty()) {
+                return e.getFailedMessages();
+            }
+            return allFailed(batch, e);
+        } catch (MailException e) {
+            // such as an authentication failure: nothing was sent
+            return allFailed(batch, e);
+        }
+    }
+
+    private static Map<Object, Exception> allFailed(List<MimeMessage> batch, Exception cause) {
+        Map<Object, Exception> failures = new LinkedHashMap<>();
+        batch.forEach(mimeMessage -> failures.put(mimeMessage, cause));
+        return failures;
+    }
+
+    private void retryLater(MailOutboxMessage message, Exception cause, Instant now) {
+        int attempts = message.getAttempts() + 1;
+        Instant nextAttemptAt = now.plus(backoff(attempts));
+        log.warn(
+            "Email to '{}' could not be sent (attempt {}), retrying at {}: {}",
+            message.getRecipient(),
+            attempts,
+            nextAttemptAt,
+            cause.toString()
+        );
+        message.setAttempts(attempts);
+        message.setLastError(StringUtils.abbreviate(cause.toString(), LAST_ERROR_MAX_LENGTH));
+        message.setNextAttemptAt(nextAttemptAt);
+        retriedCounter.increment();
+    }
+
+    private void giveUp(MailOutboxMessage message, Exception cause) {
+        log.error("Email to '{}' could not be sent, giving up after {} attempts", message.getRecipient(), message.getAttempts() + 1, cause);
+        message.setAttempts(message.getAttempts() + 1);
+        message.setLastError(StringUtils.abbreviate(cause.toString(), LAST_ERROR_MAX_LENGTH));
+        message.setStatus(Status.FAILED);
+        failedCounter.increment();
+    }
+
+    /**
+     * @param attempts the number of failed attempts so far, at least 1.
+     * @return the delay before the next attempt.
+     */
+    Duration backoff(int attempts) {
+        Duration delay = properties.getInitialBackoff().multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(properties.getMaxBackoff()) > 0 ? properties.getMaxBackoff() : delay;
+    }
+}
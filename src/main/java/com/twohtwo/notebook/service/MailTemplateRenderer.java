@@ -0,0 +1,199 @@
+package com.twohtwo.notebook.service;
+
+import com.twohtwo.notebook.domain.User;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.springframework.boot.autoconfigure.thymeleaf.ThymeleafProperties;
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.unbescape.html.HtmlEscape;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Renders the email templates sent to users, caching the output by template and locale.
+ * <p>
+ * Emails built from the same template and locale only differ by a few user fields. The first one is rendered by
+ * Thymeleaf with placeholders in place of these fields, the output is split around the placeholders and kept with the
+ * subject; the following ones are rendered by joining the literal parts and the HTML-escaped user fields, as
+ * {@code th:text} would. Templates can therefore print the {@link #FIELDS} of {@code user} in text and attribute values,
+ * but not use them in conditions or pass them to other expressions.
+ * <p>
+ * The cache follows the Thymeleaf template cache ({@code spring.thymeleaf.cache}), so that template changes are picked
+ * up in development.
+ */
+@Service
+public class MailTemplateRenderer {
+
+    private static final String USER = "user";
+
+    private static final String BASE_URL = "baseUrl";
+
+    private static final String PLACEHOLDER_CHARACTERS = "abcdefghijklmnopqrstuvwxyz0123456789";
+
+    /**
+     * The user fields substituted in the cached output.
+     */
+    private static final Map<String, Function<User, String>> FIELDS = new LinkedHashMap<>();
+
+    static {
+        FIELDS.put("login", User::getLogin);
+        FIELDS.put("firstName", User::getFirstName);
+        FIELDS.put("lastName", User::getLastName);
+        FIELDS.put("email", User::getEmail);
+        FIELDS.put("activationKey", User::getActivationKey);
+        FIELDS.put("resetKey", User::getResetKey);
+    }
+
+    private final MessageSource messageSource;
+
+    private final SpringTemplateEngine templateEngine;
+
+    private final String baseUrl;
+
+    private final boolean cacheEnabled;
+
+    /**
+     * Delimits the placeholders, lowercase alphanumeric so that neither escaping, link expressions nor the lowercasing
+     * {@link User#setLogin(String)} alter it.
+     */
+    private final String placeholderDelimiter = RandomStringUtils.random(16, PLACEHOLDER_CHARACTERS);
+
+    private final Map<List<Object>, CompiledTemplate> cache = new ConcurrentHashMap<>();
+
+    public MailTemplateRenderer(
+        JHipsterProperties jHipsterProperties,
+        ThymeleafProperties thymeleafProperties,
+        MessageSource messageSource,
+        SpringTemplateEngine templateEngine
+    ) {
+        this.messageSource = messageSource;
+        this.templateEngine = templateEngine;
+        this.baseUrl = jHipsterProperties.getMail().getBaseUrl();
+        this.cacheEnabled = thymeleafProperties.isCache();
+    }
+
+    /**
+     * Renders an email for a user, in the user's language.
+     *
+     * @param user the recipient.
+     * @param templateName the Thymeleaf template of the content.
+     * @param titleKey the message key of the subject.
+     * @return the subject and HTML content of the email.
+     */
+    public RenderedEmail render(User user, String templateName, String titleKey) {
+        Locale locale = Locale.forLanguageTag(user.getLangKey());
+        if (!cacheEnabled) {
+            return new RenderedEmail(messageSource.getMessage(titleKey, null, locale), process(templateName, locale, user));
+        }
+        CompiledTemplate template = cache.computeIfAbsent(
+            List.of(templateName, titleKey, locale),
+            key -> compile(templateName, titleKey, locale)
+        );
+        return new RenderedEmail(template.subject, template.render(user));
+    }
+
+    private String process(String templateName, Locale locale, User user) {
+        Context context = new Context(locale);
+        context.setVariable(USER, user);
+        context.setVariable(BASE_URL, baseUrl);
+        return templateEngine.process(templateName, context);
+    }
+
+    private CompiledTemplate compile(String templateName, String titleKey, Locale locale) {
+        User placeholders = new User();
+        placeholders.setLogin(placeholder("login"));
+        placeholders.setFirstName(placeholder("firstName"));
+        placeholders.setLastName(placeholder("lastName"));
+        placeholders.setEmail(placeholder("email"));
+        placeholders.setActivationKey(placeholder("activationKey"));
+        placeholders.setResetKey(placeholder("resetKey"));
+        String output = process(templateName, locale, placeholders);
+
+        List<String> literals = new ArrayList<>();
+        List<Function<User, String>> fields = new ArrayList<>();
+        int from = 0;
+        int next;
+        while ((next = output.indexOf(placeholderDelimiter, from)) >= 0) {
+            String field = fieldAt(output, next);
+            literals.add(output.substring(from, next));
+            fields.add(FIELDS.get(field));
+            from = next + placeholder(field).length();
+        }
+        literals.add(output.substring(from));
+        return new CompiledTemplate(messageSource.getMessage(titleKey, null, locale), literals, fields);
+    }
+
+    private String fieldAt(String output, int index) {
+        for (String field : FIELDS.keySet()) {
+            if (output.startsWith(placeholder(field), index)) {
+                return field;
+            }
+        }
+        throw new IllegalStateException("A user field is altered by the template at index " + index + " of: " + output);
+    }
+
+    private String placeholder(String field) {
+        return placeholderDelimiter + field.toLowerCase(Locale.ROOT) + placeholderDelimiter;
+    }
+
+    /**
+     * The subject and content of an email.
+     */
+    public static final class RenderedEmail {
+
+        private final String subject;
+
+        private final String content;
+
+        RenderedEmail(String subject, String content) {
+            this.subject = subject;
+            this.content = content;
+        }
+
+        public String getSubject() {
+            return subject;
+        }
+
+        public String getContent() {
+            return content;
+        }
+    }
+
+    private static final class CompiledTemplate {
+
+        private final String subject;
+
+        private final List<String> literals;
+
+        private final List<Function<User, String>> fields;
+
+        private final int literalsLength;
+
+        private CompiledTemplate(String subject, List<String> literals, List<Function<User, String>> fields) {
+            this.subject = subject;
+            this.literals = literals;
+            this.fields = fields;
+            this.literalsLength = literals.stream().mapToInt(String::length).sum();
+        }
+
+        private String render(User user) {
+            StringBuilder output = new StringBuilder(literalsLength + 64 * fields.size());
+            for (int i = 0; i < fields.size(); i++) {
+                output.append(literals.get(i));
+                String value = fields.get(i).apply(user);
+                if (value != null) {
+                    output.append(HtmlEscape.escapeHtml4Xml(value));
+                }
+            }
+            return output.append(literals.get(fields.size())).toString();
+        }
+    }
+}
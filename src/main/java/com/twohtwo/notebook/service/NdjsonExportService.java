@@ -0,0 +1,68 @@
+package com.twohtwo.notebook.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service for streaming entities as newline-delimited JSON.
+ * <p>
+ * Rows are read from a database cursor and written one by one, and the persistence context is cleared every
+ * {@value #CLEAR_EVERY} rows, so memory stays flat regardless of the number of rows.
+ */
+@Service
+public class NdjsonExportService {
+
+    static final int CLEAR_EVERY = 100;
+
+    private static final byte NEWLINE = '\n';
+
+    private final Logger log = LoggerFactory.getLogger(NdjsonExportService.class);
+
+    private final EntityManager entityManager;
+
+    private final ObjectWriter writer;
+
+    public NdjsonExportService(EntityManager entityManager, ObjectMapper objectMapper) {
+        this.entityManager = entityManager;
+        this.writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    /**
+     * Writes every row of the given stream as one JSON document per line.
+     *
+     * @param rows the supplier of the database stream, which is opened and closed by this method.
+     * @param out the target stream, flushed but not closed.
+     * @param <T> the type of rows.
+     * @return the number of rows written.
+     * @throws IOException if writing to the target stream fails.
+     */
+    @Transactional(readOnly = true)
+    public <T> long export(Supplier<Stream<T>> rows, OutputStream out) throws IOException {
+        long count = 0;
+        try (Stream<T> stream = rows.get()) {
+            Iterator<T> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                out.write(writer.writeValueAsBytes(iterator.next()));
+                out.write(NEWLINE);
+                if (++count % CLEAR_EVERY == 0) {
+                    entityManager.clear();
+                    out.flush();
+                }
+            }
+        }
+        out.flush();
+        log.debug("Exported {} rows as NDJSON", count);
+        return count;
+    }
+}
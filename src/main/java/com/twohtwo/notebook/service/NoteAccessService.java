@@ -0,0 +1,401 @@
+package com.twohtwo.notebook.service;
+
+import com.twohtwo.notebook.config.ApplicationProperties;
+import com.twohtwo.notebook.domain.Note;
+import com.twohtwo.notebook.domain.Share;
+import com.twohtwo.notebook.domain.User;
+import com.twohtwo.notebook.repository.NoteRepository;
+import com.twohtwo.notebook.repository.ShareRepository;
+import com.twohtwo.notebook.repository.UserRepository;
+import com.twohtwo.notebook.security.AuthoritiesConstants;
+import com.twohtwo.notebook.security.SecurityUtils;
+import com.twohtwo.notebook.service.access.NoteIdSet;
+import com.twohtwo.notebook.service.access.ReadableNotes;
+import com.twohtwo.notebook.service.access.UserNotes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Service deciding which {@link Note}s the current user can read: the notes they own, the notes shared with them by a
+ * {@link Share}, and the notes without owner. Administrators can read every note. Writing a note shared with the user
+ * also needs a share that allows it, see {@link #canWrite(Long)}.
+ * <p>
+ * The readable notes of the most recently active users are kept in {@link ReadableNotes}, as compressed bitmaps of
+ * note ids loaded on the first request of each user, so that checking a note costs no query. The bitmaps follow the
+ * writes of notes, shares and users through Hibernate post-insert, post-update and post-delete listeners: the changes
+ * flushed by a transaction are applied once it commits, and dropped if it rolls back. Until then, the transaction reads
+ * its own changes from an overlay index of its own, loaded from the database in the transaction.
+ * <p>
+ * The listeners only see the writes made through this instance. With several instances, the bitmaps of a user are
+ * loaded again after {@code application.access.time-to-live}, which bounds how long a change made through another
+ * instance, such as a revoked share, takes to apply here.
+ * <p>
+ * Listings are restricted in the query itself by the {@link Note} filters, on the {@code user_id} column and a
+ * subquery on the shares.
+ */
+@Service
+public class NoteAccessService {
+
+    /**
+     * The user id given to {@link #queryReadable(BiFunction)} when there is no current user, which no user has.
+     */
+    public static final long NO_USER_ID = -1L;
+
+    /**
+     * The users kept by the overlay index of a transaction, which usually only reads the notes of the current user.
+     */
+    private static final int OVERLAY_MAX_USERS = 16;
+
+    private final Logger log = LoggerFactory.getLogger(NoteAccessService.class);
+
+    private final ReadableNotes readableNotes;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final EntityManager entityManager;
+
+    private final NoteRepository noteRepository;
+
+    private final ShareRepository shareRepository;
+
+    private final UserRepository userRepository;
+
+    public NoteAccessService(
+        EntityManagerFactory entityManagerFactory,
+        EntityManager entityManager,
+        NoteRepository noteRepository,
+        ShareRepository shareRepository,
+        UserRepository userRepository,
+        ApplicationProperties applicationProperties
+    ) {
+        ApplicationProperties.Access access = applicationProperties.getAccess();
+        this.readableNotes = new ReadableNotes(access.getMaxUsers(), access.getTimeToLive(), System::nanoTime);
+        this.entityManagerFactory = entityManagerFactory;
+        this.entityManager = entityManager;
+        this.noteRepository = noteRepository;
+        this.shareRepository = shareRepository;
+        this.userRepository = userRepository;
+    }
+
+    @PostConstruct
+    public void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory
+            .unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+        ChangeListener listener = new ChangeListener();
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+    }
+
+    /**
+     * @param noteId the id of the note.
+     * @return whether the current user can read the note. Does not check that the note exists.
+     */
+    public boolean canRead(Long noteId) {
+        return noteId != null && readable().test(noteId);
+    }
+
+    /**
+     * Checks that the current user can update or delete a note: they own it, it has no owner, or it is shared with
+     * them by a share with the {@link Share#WRITE_INVITE} invite. The shares that allow writing are not indexed, as
+     * writes are much less frequent than reads, so they cost a query.
+     *
+     * @param noteId the id of the note.
+     * @return whether the current user can update or delete the note. Does not check that the note exists.
+     */
+    public boolean canWrite(Long noteId) {
+        if (noteId == null) {
+            return false;
+        }
+        if (SecurityUtils.hasCurrentUserThisAuthority(AuthoritiesConstants.ADMIN) || unowned().contains(noteId)) {
+            return true;
+        }
+        Optional<UserNotes> user = currentUser();
+        if (user.isEmpty()) {
+            return false;
+        }
+        UserNotes notes = user.get();
+        if (notes.getOwned().contains(noteId)) {
+            return true;
+        }
+        if (!notes.getShared().contains(noteId)) {
+            return false;
+        }
+        return shareRepository.existsBySharingIdAndWithUserIdAndInvite(noteId, notes.getUserId(), Share.WRITE_INVITE);
+    }
+
+    /**
+     * Gets the notes readable by the current user, as a predicate on note ids that can be evaluated later, from
+     * another thread.
+     *
+     * @return the predicate.
+     */
+    public LongPredicate readable() {
+        if (SecurityUtils.hasCurrentUserThisAuthority(AuthoritiesConstants.ADMIN)) {
+            return noteId -> true;
+        }
+        NoteIdSet unowned = unowned();
+        Optional<UserNotes> user = currentUser();
+        if (user.isEmpty()) {
+            return unowned::contains;
+        }
+        UserNotes notes = user.get();
+        return noteId -> notes.canRead(noteId) || unowned.contains(noteId);
+    }
+
+    /**
+     * Runs queries over the notes readable by the current user only, by enabling a {@link Note} filter on the
+     * session. The filter applies to the JPQL and criteria queries whose root is a note, not to native queries nor to
+     * loading a note by id.
+     *
+     * @param query the queries to run.
+     * @param <T> the type of the result.
+     * @return the result of the queries.
+     */
+    @Transactional(readOnly = true)
+    public <T> T filterReadable(Supplier<T> query) {
+        if (SecurityUtils.hasCurrentUserThisAuthority(AuthoritiesConstants.ADMIN)) {
+            return query.get();
+        }
+        Session session = entityManager.unwrap(Session.class);
+        Optional<UserNotes> user = currentUser();
+        String filterName;
+        if (user.isEmpty()) {
+            filterName = Note.UNOWNED_FILTER;
+            session.enableFilter(filterName);
+        } else {
+            filterName = user.get().getShared().isEmpty() ? Note.READABLE_FILTER : Note.READABLE_OR_SHARED_FILTER;
+            session.enableFilter(filterName).setParameter("userId", user.get().getUserId());
+        }
+        try {
+            return query.get();
+        } finally {
+            session.disableFilter(filterName);
+        }
+    }
+
+    /**
+     * Runs a native query over the notes readable by the current user, which the {@link Note} filters do not apply to.
+     * The query is given whether the current user can read every note, and the id of the current user or
+     * {@link #NO_USER_ID}, see {@link com.twohtwo.notebook.repository.NoteRepository#FULL_TEXT_READABLE}.
+     *
+     * @param query the query to run.
+     * @param <T> the type of the result.
+     * @return the result of the query.
+     */
+    public <T> T queryReadable(BiFunction<Boolean, Long, T> query) {
+        if (SecurityUtils.hasCurrentUserThisAuthority(AuthoritiesConstants.ADMIN)) {
+            return query.apply(true, NO_USER_ID);
+        }
+        return query.apply(false, currentUser().map(UserNotes::getUserId).orElse(NO_USER_ID));
+    }
+
+    /**
+     * @return the index read by the current transaction: its overlay if it changed readable notes, else the shared one.
+     */
+    private ReadableNotes index() {
+        TransactionChanges changes = (TransactionChanges) TransactionSynchronizationManager.getResource(this);
+        return changes == null ? readableNotes : changes.overlay;
+    }
+
+    private NoteIdSet unowned() {
+        ReadableNotes index = index();
+        NoteIdSet unowned = index.getUnowned();
+        if (unowned != null) {
+            return unowned;
+        }
+        long generation = index.generation();
+        unowned = NoteIdSet.of(noteRepository.findIdsByUserIsNull());
+        index.putUnowned(unowned, generation);
+        return unowned;
+    }
+
+    private Optional<UserNotes> currentUser() {
+        Optional<String> login = SecurityUtils.getCurrentUserLogin();
+        if (login.isEmpty()) {
+            return Optional.empty();
+        }
+        ReadableNotes index = index();
+        UserNotes cached = index.getUser(login.get());
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long generation = index.generation();
+        return userRepository
+            .findOneByLogin(login.get())
+            .map(user -> {
+                UserNotes loaded = new UserNotes(
+                    user.getId(),
+                    user.getLogin(),
+                    NoteIdSet.of(noteRepository.findIdsByUserId(user.getId())),
+                    NoteIdSet.of(shareRepository.findSharedNoteIdsByWithUserId(user.getId()))
+                );
+                if (index.putUser(loaded, generation)) {
+                    log.debug("Loaded {} owned and {} shared notes of User {}", loaded.getOwned().size(), loaded.getShared().size(), login.get());
+                }
+                return loaded;
+            });
+    }
+
+    /**
+     * Applies a change to the overlay of the current transaction now, and to the shared index once it commits.
+     */
+    private void record(Consumer<ReadableNotes> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.accept(readableNotes);
+            return;
+        }
+        TransactionChanges changes = (TransactionChanges) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            changes = new TransactionChanges();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(changes);
+        }
+        change.accept(changes.overlay);
+        changes.changes.add(change);
+    }
+
+    private static Object property(EntityPersister persister, Object[] state, String name) {
+        return state[persister.getEntityMetamodel().getPropertyIndex(name)];
+    }
+
+    private static Long idOf(Object entity) {
+        if (entity == null) {
+            return null;
+        }
+        if (entity instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) entity).getHibernateLazyInitializer().getIdentifier();
+        }
+        return entity instanceof User ? ((User) entity).getId() : ((Note) entity).getId();
+    }
+
+    /**
+     * The changes flushed by a transaction, and the overlay index it reads until it completes. The overlay starts
+     * empty, so that the notes of users are loaded again in the transaction, with its changes.
+     */
+    private final class TransactionChanges implements TransactionSynchronization {
+
+        private final List<Consumer<ReadableNotes>> changes = new ArrayList<>();
+
+        private final ReadableNotes overlay = new ReadableNotes(OVERLAY_MAX_USERS);
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(NoteAccessService.this);
+            if (status == STATUS_COMMITTED) {
+                changes.forEach(change -> change.accept(readableNotes));
+            }
+        }
+    }
+
+    private final class ChangeListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            Object entity = event.getEntity();
+            Long id = (Long) event.getId();
+            if (entity instanceof Note) {
+                Long ownerId = idOf(property(event.getPersister(), event.getState(), "user"));
+                record(notes -> notes.addOwned(ownerId, id));
+            } else if (entity instanceof Share) {
+                Long recipientId = idOf(property(event.getPersister(), event.getState(), "withUser"));
+                Long noteId = idOf(property(event.getPersister(), event.getState(), "sharing"));
+                if (recipientId != null && noteId != null) {
+                    record(notes -> notes.addShared(recipientId, noteId));
+                }
+            } else if (entity instanceof User) {
+                record(notes -> notes.evictUser(id));
+            }
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            Object entity = event.getEntity();
+            Long id = (Long) event.getId();
+            EntityPersister persister = event.getPersister();
+            Object[] oldState = event.getOldState();
+            if (entity instanceof User) {
+                record(notes -> notes.evictUser(id));
+            } else if ((entity instanceof Note || entity instanceof Share) && oldState == null) {
+                record(ReadableNotes::clear);
+            } else if (entity instanceof Note) {
+                Long oldOwnerId = idOf(property(persister, oldState, "user"));
+                Long newOwnerId = idOf(property(persister, event.getState(), "user"));
+                if (!Objects.equals(oldOwnerId, newOwnerId)) {
+                    record(notes -> {
+                        notes.removeOwned(oldOwnerId, id);
+                        notes.addOwned(newOwnerId, id);
+                    });
+                }
+            } else if (entity instanceof Share) {
+                Long oldRecipientId = idOf(property(persister, oldState, "withUser"));
+                Long oldNoteId = idOf(property(persister, oldState, "sharing"));
+                Long newRecipientId = idOf(property(persister, event.getState(), "withUser"));
+                Long newNoteId = idOf(property(persister, event.getState(), "sharing"));
+                if (!Objects.equals(oldRecipientId, newRecipientId) || !Objects.equals(oldNoteId, newNoteId)) {
+                    record(notes -> {
+                        if (oldRecipientId != null) {
+                            notes.evictUser(oldRecipientId);
+                        }
+                        if (newRecipientId != null && newNoteId != null) {
+                            notes.addShared(newRecipientId, newNoteId);
+                        }
+                    });
+                }
+            }
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            Object entity = event.getEntity();
+            Long id = (Long) event.getId();
+            if (entity instanceof Note) {
+                Long ownerId = idOf(property(event.getPersister(), event.getDeletedState(), "user"));
+                record(notes -> notes.removeOwned(ownerId, id));
+            } else if (entity instanceof Share) {
+                Long recipientId = idOf(property(event.getPersister(), event.getDeletedState(), "withUser"));
+                if (recipientId != null) {
+                    record(notes -> notes.evictUser(recipientId));
+                }
+            } else if (entity instanceof User) {
+                record(notes -> notes.evictUser(id));
+            }
+        }
+
+        @Override
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            return false;
+        }
+    }
+}
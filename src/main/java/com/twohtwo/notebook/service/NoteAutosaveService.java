@@ -0,0 +1,292 @@
+package com.twohtwo.notebook.service;
+
+import com.twohtwo.notebook.config.ApplicationProperties;
+import com.twohtwo.notebook.domain.Note;
+import com.twohtwo.notebook.repository.NoteRepository;
+import com.twohtwo.notebook.security.SecurityUtils;
+import com.twohtwo.notebook.service.autosave.TextDelta;
+import com.twohtwo.notebook.service.autosave.TextDeltaConflictException;
+import com.twohtwo.notebook.service.autosave.TextDeltas;
+import com.twohtwo.notebook.service.dto.NoteDraftDTO;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service for autosaving the content of {@link Note}s from {@link TextDelta}s.
+ * <p>
+ * The editor sends the deltas made since the revision of the draft it last saw. Deltas are applied to an in-memory
+ * draft of the note and coalesced there: the draft is written to the database every
+ * {@code application.autosave.flush-interval}, or as soon as {@code application.autosave.flush-threshold} characters
+ * changed, so a burst of keystrokes costs a single update of the note.
+ * <p>
+ * Each accepted batch of deltas increments the revision of the draft. Deltas sent against an older revision are
+ * rebased on the deltas accepted since, as long as they do not change the same characters and the older revision is
+ * among the last {@code application.autosave.history-size} ones; otherwise an {@link AutosaveConflictException} is
+ * thrown. A draft is dropped, without being written, when the {@code @Version} of the note shows that it was changed in
+ * the database by another writer in the meantime.
+ * <p>
+ * Each write of a draft records a revision of the note, so the revisions of an editing session are as fine as the
+ * flushes: one per {@code application.autosave.flush-interval} at most while the user keeps typing. Its author is the
+ * user who sent the last deltas before the flush.
+ * <p>
+ * Drafts are local to each application instance: an editor session is expected to be served by the same instance.
+ */
+@Service
+public class NoteAutosaveService {
+
+    private final Logger log = LoggerFactory.getLogger(NoteAutosaveService.class);
+
+    private final Map<Long, Draft> drafts = new ConcurrentHashMap<>();
+
+    private final NoteRepository noteRepository;
+
+    private final NoteSearchService noteSearchService;
+
+    private final NoteRevisionService noteRevisionService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int flushThreshold;
+
+    private final Duration idleTimeout;
+
+    private final int historySize;
+
+    public NoteAutosaveService(
+        NoteRepository noteRepository,
+        NoteSearchService noteSearchService,
+        NoteRevisionService noteRevisionService,
+        ApplicationProperties applicationProperties,
+        PlatformTransactionManager transactionManager
+    ) {
+        this.noteRepository = noteRepository;
+        this.noteSearchService = noteSearchService;
+        this.noteRevisionService = noteRevisionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flushThreshold = applicationProperties.getAutosave().getFlushThreshold();
+        this.idleTimeout = applicationProperties.getAutosave().getIdleTimeout();
+        this.historySize = applicationProperties.getAutosave().getHistorySize();
+    }
+
+    /**
+     * Gets the draft of a note, loading it from the database if it is not in memory.
+     *
+     * @param id the id of the note.
+     * @return the current revision and content of the draft, or empty if the note does not exist.
+     */
+    public Optional<NoteDraftDTO> getDraft(Long id) {
+        while (true) {
+            Optional<Draft> draft = loadDraft(id);
+            if (draft.isEmpty()) {
+                return Optional.empty();
+            }
+            synchronized (draft.get()) {
+                if (!draft.get().closed) {
+                    draft.get().lastAccess = Instant.now();
+                    return Optional.of(new NoteDraftDTO(draft.get().revision, draft.get().content));
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies deltas to the draft of a note.
+     *
+     * @param id the id of the note.
+     * @param baseRevision the revision of the draft the deltas were made on.
+     * @param deltas the deltas, in order.
+     * @return the new revision of the draft, with its content when the deltas had to be rebased on concurrent ones, or
+     * empty if the note does not exist.
+     * @throws AutosaveConflictException if the deltas cannot be rebased on the current revision.
+     * @throws IllegalArgumentException if a delta is out of the bounds of the text.
+     */
+    public Optional<NoteDraftDTO> applyDeltas(Long id, long baseRevision, List<TextDelta> deltas) {
+        while (true) {
+            Optional<Draft> loaded = loadDraft(id);
+            if (loaded.isEmpty()) {
+                return Optional.empty();
+            }
+            Draft draft = loaded.get();
+            NoteDraftDTO result;
+            boolean flushNow;
+            synchronized (draft) {
+                if (draft.closed) {
+                    continue;
+                }
+                result = draft.apply(baseRevision, deltas);
+                draft.authorLogin = SecurityUtils.getCurrentUserLogin().orElse(null);
+                flushNow = draft.pendingChanges >= flushThreshold;
+            }
+            if (flushNow) {
+                flush(draft);
+            }
+            return Optional.of(result);
+        }
+    }
+
+    /**
+     * Drops the draft of a note, without writing it. To be called when the note is updated or deleted by other means.
+     *
+     * @param id the id of the note.
+     */
+    public void discard(Long id) {
+        Draft draft = drafts.remove(id);
+        if (draft != null) {
+            synchronized (draft) {
+                draft.closed = true;
+            }
+        }
+    }
+
+    /**
+     * Writes the changed drafts to the database, and drops the drafts idle for longer than
+     * {@code application.autosave.idle-timeout}.
+     */
+    @Scheduled(fixedDelayString = "${application.autosave.flush-interval:PT2S}")
+    @PreDestroy
+    public void flush() {
+        Instant idleSince = Instant.now().minus(idleTimeout);
+        for (Draft draft : drafts.values()) {
+            flush(draft);
+            synchronized (draft) {
+                if (draft.pendingChanges == 0 && draft.lastAccess.isBefore(idleSince)) {
+                    draft.closed = true;
+                    drafts.remove(draft.noteId, draft);
+                }
+            }
+        }
+    }
+
+    private Optional<Draft> loadDraft(Long id) {
+        Draft draft = drafts.get(id);
+        if (draft != null) {
+            return Optional.of(draft);
+        }
+        return noteRepository
+            .findById(id)
+            .map(note -> {
+                Draft loaded = new Draft(id, note.getContent(), note.getVersion());
+                Draft previous = drafts.putIfAbsent(id, loaded);
+                return previous != null ? previous : loaded;
+            });
+    }
+
+    private void flush(Draft draft) {
+        // one writer per draft, so that the version checked in the database is the one this instance wrote last
+        synchronized (draft.flushLock) {
+            String content;
+            long revision;
+            String authorLogin;
+            synchronized (draft) {
+                if (draft.closed || draft.pendingChanges == 0) {
+                    return;
+                }
+                content = draft.content;
+                revision = draft.revision;
+                authorLogin = draft.authorLogin;
+            }
+            Long writtenVersion = transactionTemplate.execute(status -> {
+                Optional<Note> note = noteRepository.findById(draft.noteId);
+                if (note.isEmpty() || !Objects.equals(note.get().getVersion(), draft.persistedVersion)) {
+                    return null;
+                }
+                String previousContent = note.get().getContent();
+                note.get().setContent(content);
+                Note result = noteRepository.saveAndFlush(note.get());
+                noteSearchService.index(result);
+                noteRevisionService.record(result, result.getTitle(), previousContent, authorLogin);
+                return result.getVersion();
+            });
+            synchronized (draft) {
+                if (writtenVersion == null) {
+                    log.warn("Dropping the draft of Note {} at revision {}, the note was changed or deleted", draft.noteId, revision);
+                    draft.closed = true;
+                    drafts.remove(draft.noteId, draft);
+                    return;
+                }
+                draft.persistedVersion = writtenVersion;
+                if (draft.revision == revision) {
+                    draft.pendingChanges = 0;
+                }
+            }
+        }
+        log.debug("Flushed the autosaved draft of Note {}", draft.noteId);
+    }
+
+    private final class Draft {
+
+        private final Long noteId;
+
+        private final Object flushLock = new Object();
+
+        /**
+         * Deltas of the last revisions, the last one being the deltas of the current revision.
+         */
+        private final Deque<List<TextDelta>> history = new ArrayDeque<>();
+
+        private String content;
+
+        private Long persistedVersion;
+
+        private long revision;
+
+        private int pendingChanges;
+
+        private Instant lastAccess = Instant.now();
+
+        /**
+         * The user who sent the last deltas, recorded as the author of the revision written by the next flush.
+         */
+        private String authorLogin;
+
+        private boolean closed;
+
+        private Draft(Long noteId, String content, Long version) {
+            this.noteId = noteId;
+            this.content = content != null ? content : "";
+            this.persistedVersion = version;
+        }
+
+        private NoteDraftDTO apply(long baseRevision, List<TextDelta> deltas) {
+            lastAccess = Instant.now();
+            if (baseRevision > revision || baseRevision < revision - history.size()) {
+                throw new AutosaveConflictException("Unknown base revision " + baseRevision, new NoteDraftDTO(revision, content));
+            }
+            List<TextDelta> concurrent = new ArrayList<>();
+            Iterator<List<TextDelta>> newestFirst = history.descendingIterator();
+            for (long r = revision; r > baseRevision; r--) {
+                concurrent.addAll(0, newestFirst.next());
+            }
+            List<TextDelta> rebased;
+            try {
+                rebased = TextDeltas.rebase(deltas, concurrent);
+            } catch (TextDeltaConflictException e) {
+                throw new AutosaveConflictException(e.getMessage(), new NoteDraftDTO(revision, content));
+            }
+            content = TextDeltas.apply(content, rebased);
+            history.addLast(rebased);
+            if (history.size() > historySize) {
+                history.removeFirst();
+            }
+            revision++;
+            pendingChanges += TextDeltas.size(rebased);
+            return new NoteDraftDTO(revision, concurrent.isEmpty() ? null : content);
+        }
+    }
+}
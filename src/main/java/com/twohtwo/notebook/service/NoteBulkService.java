@@ -0,0 +1,151 @@
+package com.twohtwo.notebook.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.twohtwo.notebook.config.ApplicationProperties;
+import com.twohtwo.notebook.domain.Note;
+import com.twohtwo.notebook.repository.NoteRepository;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service for importing and exporting {@link Note}s in bulk, as newline-delimited JSON.
+ * <p>
+ * Imports run in a single transaction: notes are persisted without the select that {@code save} would issue, and
+ * the persistence context is flushed and cleared every {@code application.bulk.batch-size} rows, so inserts are sent
+ * in full JDBC batches ({@code hibernate.jdbc.batch_size}, {@code hibernate.order_inserts}) and memory stays flat.
+ * Ids come from the pooled {@code sequence_generator}, one sequence call per allocation of 50 ids.
+ */
+@Service
+@Transactional
+public class NoteBulkService {
+
+    private final Logger log = LoggerFactory.getLogger(NoteBulkService.class);
+
+    private final NoteRepository noteRepository;
+
+    private final NoteSearchService noteSearchService;
+
+    private final NdjsonExportService ndjsonExportService;
+
+    private final EntityManager entityManager;
+
+    private final Validator validator;
+
+    private final ObjectReader noteReader;
+
+    private final int batchSize;
+
+    public NoteBulkService(
+        NoteRepository noteRepository,
+        NoteSearchService noteSearchService,
+        NdjsonExportService ndjsonExportService,
+        EntityManager entityManager,
+        Validator validator,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties
+    ) {
+        this.noteRepository = noteRepository;
+        this.noteSearchService = noteSearchService;
+        this.ndjsonExportService = ndjsonExportService;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.noteReader = objectMapper.readerFor(Note.class);
+        this.batchSize = applicationProperties.getBulk().getBatchSize();
+    }
+
+    /**
+     * Imports notes, one JSON document per line. Blank lines are skipped.
+     *
+     * @param in the NDJSON input.
+     * @return the number of imported notes.
+     * @throws BulkImportException if a line is not a valid new note, nothing is imported then.
+     * @throws IOException if reading the input fails.
+     */
+    public long importNotes(InputStream in) throws IOException {
+        long start = System.currentTimeMillis();
+        List<Long> ids = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            Note note;
+            try {
+                note = parse(lineNumber, line);
+            } catch (BulkImportException e) {
+                // drop the pending inserts, the transaction is rolled back anyway
+                entityManager.clear();
+                throw e;
+            }
+            entityManager.persist(note);
+            ids.add(note.getId());
+            if (ids.size() % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        noteSearchService.reindex(ids);
+        log.info("Imported {} notes in {} ms", ids.size(), System.currentTimeMillis() - start);
+        return ids.size();
+    }
+
+    private Note parse(long lineNumber, String line) {
+        Note note;
+        try {
+            note = noteReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new BulkImportException(lineNumber, "invalid JSON", e);
+        }
+        if (note.getId() != null) {
+            throw new BulkImportException(lineNumber, "a new note cannot already have an ID", null);
+        }
+        Set<ConstraintViolation<Note>> violations = validator.validate(note);
+        if (!violations.isEmpty()) {
+            String message = violations
+                .stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .collect(Collectors.joining(", "));
+            throw new BulkImportException(lineNumber, message, null);
+        }
+        return note;
+    }
+
+    /**
+     * Exports the readable notes, one JSON document per line, in id order.
+     *
+     * @param out the target stream, flushed but not closed.
+     * @param readable the notes to export, see {@link NoteAccessService#readable()}.
+     * @return the number of exported notes.
+     * @throws IOException if writing to the target stream fails.
+     */
+    @Transactional(readOnly = true)
+    public long exportNotes(OutputStream out, LongPredicate readable) throws IOException {
+        return ndjsonExportService.export(
+            () -> noteRepository.streamAllWithToOneRelationships().filter(note -> readable.test(note.getId())),
+            out
+        );
+    }
+}
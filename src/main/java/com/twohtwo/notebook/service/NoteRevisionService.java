@@ -0,0 +1,343 @@
+package com.twohtwo.notebook.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.twohtwo.notebook.config.ApplicationProperties;
+import com.twohtwo.notebook.domain.Note;
+import com.twohtwo.notebook.domain.NoteRevision;
+import com.twohtwo.notebook.repository.NoteRevisionRepository;
+import com.twohtwo.notebook.security.SecurityUtils;
+import com.twohtwo.notebook.service.autosave.TextDelta;
+import com.twohtwo.notebook.service.autosave.TextDeltas;
+import com.twohtwo.notebook.service.dto.NoteRevisionDTO;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service keeping the revision history of the notes, in the {@link NoteRevision} table.
+ * <p>
+ * Each save of a note is recorded as a revision holding the {@link TextDelta}s from the previous revision, and every
+ * {@code application.revisions.snapshot-interval} revisions as a full snapshot, so that any revision is reconstructed
+ * from its latest snapshot and fewer than {@code snapshot-interval} deltas. The autosaved drafts are not recorded, their
+ * changes are part of the next save.
+ * <p>
+ * Every {@code application.revisions.compaction-interval}, the revisions older than
+ * {@code application.revisions.compact-after} are thinned out to the last revision of each
+ * {@code application.revisions.compaction-resolution}: the others are deleted and the deltas of the kept ones are
+ * recomputed from the previous kept one.
+ */
+@Service
+public class NoteRevisionService {
+
+    private static final int COMPACTION_BATCH_SIZE = 100;
+
+    private static final TypeReference<List<TextDelta>> DELTAS_TYPE = new TypeReference<>() {};
+
+    private final Logger log = LoggerFactory.getLogger(NoteRevisionService.class);
+
+    private final NoteRevisionRepository noteRevisionRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties.Revisions properties;
+
+    public NoteRevisionService(
+        NoteRevisionRepository noteRevisionRepository,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties,
+        PlatformTransactionManager transactionManager
+    ) {
+        this.noteRevisionRepository = noteRevisionRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = applicationProperties.getRevisions();
+    }
+
+    /**
+     * Records a saved note as its next revision, unless its title and content are those of its last revision.
+     *
+     * @param note the saved note.
+     * @param previousTitle the title of the note before the save, {@code null} for a created note.
+     * @param previousContent the content of the note before the save, {@code null} for a created note. It is recorded as
+     * the first revision of a note saved before it had any, such as an imported note.
+     */
+    @Transactional
+    public void record(Note note, String previousTitle, String previousContent) {
+        record(note, previousTitle, previousContent, SecurityUtils.getCurrentUserLogin().orElse(null));
+    }
+
+    /**
+     * Records a saved note as its next revision, unless its title and content are those of its last revision.
+     *
+     * @param note the saved note.
+     * @param previousTitle the title of the note before the save, {@code null} for a created note.
+     * @param previousContent the content of the note before the save, {@code null} for a created note.
+     * @param authorLogin the login of the user who made the changes, for the saves made outside of their request.
+     */
+    @Transactional
+    public void record(Note note, String previousTitle, String previousContent, String authorLogin) {
+        Optional<NoteRevision> last = noteRevisionRepository.findFirstByNoteIdOrderByRevisionDesc(note.getId());
+        Chain chain;
+        int revision;
+        if (last.isPresent()) {
+            chain = chainTo(note.getId(), last.get().getRevision());
+            if (Objects.equals(last.get().getTitle(), note.getTitle()) && chain.content.equals(note.getContent())) {
+                return;
+            }
+            revision = last.get().getRevision() + 1;
+        } else if (previousContent != null) {
+            noteRevisionRepository.save(newRevision(note.getId(), 1, previousTitle, null, previousContent, 0, authorLogin));
+            chain = new Chain(previousContent, 0);
+            revision = 2;
+        } else {
+            chain = null;
+            revision = 1;
+        }
+        log.debug("Recording revision {} of Note {}", revision, note.getId());
+        noteRevisionRepository.save(
+            newRevision(
+                note.getId(),
+                revision,
+                note.getTitle(),
+                chain != null ? chain.content : null,
+                note.getContent(),
+                chain != null ? chain.length : 0,
+                authorLogin
+            )
+        );
+    }
+
+    private NoteRevision newRevision(
+        Long noteId,
+        int revision,
+        String title,
+        String previousContent,
+        String content,
+        int chainLength,
+        String authorLogin
+    ) {
+        NoteRevision noteRevision = new NoteRevision();
+        noteRevision.setNoteId(noteId);
+        noteRevision.setRevision(revision);
+        noteRevision.setTitle(title);
+        noteRevision.setAuthorLogin(authorLogin);
+        noteRevision.setCreatedDate(Instant.now());
+        encode(noteRevision, previousContent, content, chainLength);
+        return noteRevision;
+    }
+
+    /**
+     * Stores the content of a revision as the deltas from the previous revision, or as a snapshot if the previous
+     * revision is too far from the latest snapshot or the deltas are not smaller than the content.
+     *
+     * @param previousContent the content of the previous revision, {@code null} if there is none.
+     * @param chainLength the number of deltas from the latest snapshot to the previous revision.
+     * @return the number of deltas from the latest snapshot to the revision.
+     */
+    private int encode(NoteRevision noteRevision, String previousContent, String content, int chainLength) {
+        if (previousContent != null && chainLength + 1 < properties.getSnapshotInterval()) {
+            String deltas = writeDeltas(TextDeltas.diff(previousContent, content));
+            if (deltas.length() < content.length()) {
+                noteRevision.setSnapshot(false);
+                noteRevision.setData(deltas);
+                return chainLength + 1;
+            }
+        }
+        noteRevision.setSnapshot(true);
+        noteRevision.setData(content);
+        return 0;
+    }
+
+    /**
+     * @param noteId the id of the note.
+     * @param pageable the pagination information, its sort is ignored.
+     * @return the revisions of the note, most recent first, without their content.
+     */
+    @Transactional(readOnly = true)
+    public Page<NoteRevision> findAll(Long noteId, Pageable pageable) {
+        return noteRevisionRepository.findByNoteIdOrderByRevisionDesc(
+            noteId,
+            PageRequest.of(pageable.getPageNumber(), pageable.getPageSize())
+        );
+    }
+
+    /**
+     * @param noteId the id of the note.
+     * @param revision the revision number.
+     * @return the note as it was saved at this revision, or empty if there is no such revision, possibly because it
+     * was compacted.
+     */
+    @Transactional(readOnly = true)
+    public Optional<NoteRevisionDTO> get(Long noteId, int revision) {
+        return noteRevisionRepository
+            .findOneByNoteIdAndRevision(noteId, revision)
+            .map(noteRevision -> {
+                NoteRevisionDTO dto = new NoteRevisionDTO();
+                dto.setNoteId(noteId);
+                dto.setRevision(revision);
+                dto.setTitle(noteRevision.getTitle());
+                dto.setContent(chainTo(noteId, revision).content);
+                dto.setAuthorLogin(noteRevision.getAuthorLogin());
+                dto.setCreatedDate(noteRevision.getCreatedDate());
+                return dto;
+            });
+    }
+
+    /**
+     * Reconstructs the content of an existing revision from its latest snapshot.
+     */
+    private Chain chainTo(Long noteId, int revision) {
+        NoteRevision snapshot = noteRevisionRepository
+            .findFirstByNoteIdAndSnapshotIsTrueAndRevisionLessThanEqualOrderByRevisionDesc(noteId, revision)
+            .orElseThrow(() -> new IllegalStateException("No snapshot of Note " + noteId + " before revision " + revision));
+        List<NoteRevision> deltas = noteRevisionRepository.findRange(noteId, snapshot.getRevision(), revision);
+        String content = snapshot.getData();
+        for (NoteRevision delta : deltas) {
+            content = TextDeltas.apply(content, readDeltas(delta.getData()));
+        }
+        return new Chain(content, deltas.size());
+    }
+
+    /**
+     * Compacts the revisions that became old enough since the last run, one note per transaction.
+     */
+    @Scheduled(
+        fixedDelayString = "${application.revisions.compaction-interval:PT1H}",
+        initialDelayString = "${application.revisions.compaction-interval:PT1H}"
+    )
+    public void compact() {
+        compact(Instant.now());
+    }
+
+    /**
+     * @param now the current time.
+     */
+    public void compact(Instant now) {
+        long resolution = properties.getCompactionResolution().toMillis();
+        long compactBefore = now.minus(properties.getCompactAfter()).toEpochMilli();
+        // only whole periods are compacted, so that a period is never compacted twice
+        Instant cutoff = Instant.ofEpochMilli(compactBefore - Math.floorMod(compactBefore, resolution));
+        List<Long> noteIds;
+        int compacted = 0;
+        do {
+            noteIds = noteRevisionRepository.findNoteIdsToCompact(cutoff, PageRequest.of(0, COMPACTION_BATCH_SIZE));
+            for (Long noteId : noteIds) {
+                transactionTemplate.executeWithoutResult(status -> compactNote(noteId, cutoff, resolution));
+            }
+            compacted += noteIds.size();
+        } while (noteIds.size() == COMPACTION_BATCH_SIZE);
+        if (compacted > 0) {
+            log.debug("Compacted the revisions before {} of {} notes", cutoff, compacted);
+        }
+    }
+
+    /**
+     * Keeps the last of the revisions created before the cutoff in each period of {@code resolution} milliseconds,
+     * and marks them as compacted. The revisions compacted by a previous run are left as they are.
+     */
+    private void compactNote(Long noteId, Instant cutoff, long resolution) {
+        List<NoteRevision> pending = noteRevisionRepository.findByNoteIdAndCompactedIsFalseAndCreatedDateBeforeOrderByRevision(
+            noteId,
+            cutoff
+        );
+        if (pending.isEmpty()) {
+            return;
+        }
+        String content = null;
+        int chainLength = 0;
+        Optional<NoteRevision> base = noteRevisionRepository.findFirstByNoteIdAndRevisionLessThanOrderByRevisionDesc(
+            noteId,
+            pending.get(0).getRevision()
+        );
+        if (base.isPresent()) {
+            Chain chain = chainTo(noteId, base.get().getRevision());
+            content = chain.content;
+            chainLength = chain.length;
+        }
+        String keptContent = content;
+        List<NoteRevision> dropped = new ArrayList<>();
+        for (int i = 0; i < pending.size(); i++) {
+            NoteRevision noteRevision = pending.get(i);
+            content = noteRevision.isSnapshot() ? noteRevision.getData() : TextDeltas.apply(content, readDeltas(noteRevision.getData()));
+            boolean lastOfPeriod =
+                i + 1 == pending.size() ||
+                Math.floorDiv(noteRevision.getCreatedDate().toEpochMilli(), resolution) !=
+                Math.floorDiv(pending.get(i + 1).getCreatedDate().toEpochMilli(), resolution);
+            if (!lastOfPeriod) {
+                dropped.add(noteRevision);
+                continue;
+            }
+            chainLength = encode(noteRevision, keptContent, content, chainLength);
+            noteRevision.setCompacted(true);
+            keptContent = content;
+        }
+        noteRevisionRepository.deleteAll(dropped);
+
+        // the following revisions may be deltas counted from a dropped snapshot: keep their chains bounded
+        NoteRevision lastKept = pending.get(pending.size() - 1);
+        if (!lastKept.isSnapshot()) {
+            List<NoteRevision> following = noteRevisionRepository.findByNoteIdAndRevisionGreaterThanOrderByRevision(
+                noteId,
+                lastKept.getRevision(),
+                PageRequest.of(0, properties.getSnapshotInterval())
+            );
+            int followingDeltas = 0;
+            while (followingDeltas < following.size() && !following.get(followingDeltas).isSnapshot()) {
+                followingDeltas++;
+            }
+            if (chainLength + followingDeltas >= properties.getSnapshotInterval()) {
+                lastKept.setSnapshot(true);
+                lastKept.setData(content);
+            }
+        }
+        log.debug("Compacted {} revisions of Note {}, {} dropped", pending.size(), noteId, dropped.size());
+    }
+
+    private String writeDeltas(List<TextDelta> deltas) {
+        try {
+            return objectMapper.writeValueAsString(deltas);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<TextDelta> readDeltas(String data) {
+        try {
+            return objectMapper.readValue(data, DELTAS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The content of a revision, and the number of deltas applied to its latest snapshot to reconstruct it.
+     */
+    private static final class Chain {
+
+        private final String content;
+
+        private final int length;
+
+        private Chain(String content, int length) {
+            this.content = content;
+            this.length = length;
+        }
+    }
+}
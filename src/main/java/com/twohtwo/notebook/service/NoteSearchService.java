@@ -0,0 +1,291 @@
+package com.twohtwo.notebook.service;
+
+import com.twohtwo.notebook.config.ApplicationProperties;
+import com.twohtwo.notebook.config.ApplicationProperties.Search.Mode;
+import com.twohtwo.notebook.domain.Note;
+import com.twohtwo.notebook.repository.NoteRepository;
+import com.twohtwo.notebook.repository.NoteSummary;
+import com.twohtwo.notebook.repository.NoteText;
+import com.twohtwo.notebook.service.search.InvertedIndex;
+import com.twohtwo.notebook.service.search.SearchResult;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Service for full-text search over {@link Note}s.
+ * <p>
+ * The strategy is selected by {@code application.search.mode}:
+ * <ul>
+ *     <li>{@link Mode#INDEX}: notes are kept in an in-process {@link InvertedIndex} built from the database when the
+ *     application is ready, and maintained incrementally by {@link #index(Note)} and {@link #remove(Long)}. Searching
+ *     only reads the {@code note} table to hydrate the requested page by primary key. The index is local to each
+ *     application instance.</li>
+ *     <li>{@link Mode#FULL_TEXT}: PostgreSQL {@code websearch_to_tsquery} over the GIN-indexed {@code note.search_vector}
+ *     column, written by {@link #index(Note)} in the transaction saving the note, as the database cannot read the
+ *     compressed content. Falls back to {@link Mode#INDEX} on other databases, such as H2.</li>
+ *     <li>{@link Mode#LIKE}: substring match on the note title.</li>
+ * </ul>
+ * Only the notes readable by the current user are returned, see {@link NoteAccessService}.
+ */
+@Service
+public class NoteSearchService {
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private final Logger log = LoggerFactory.getLogger(NoteSearchService.class);
+
+    private final InvertedIndex index = new InvertedIndex();
+
+    private final NoteRepository noteRepository;
+
+    private final NoteAccessService noteAccessService;
+
+    private final Mode mode;
+
+    public NoteSearchService(
+        NoteRepository noteRepository,
+        NoteAccessService noteAccessService,
+        ApplicationProperties applicationProperties,
+        Environment env
+    ) {
+        this.noteRepository = noteRepository;
+        this.noteAccessService = noteAccessService;
+        this.mode = resolveMode(applicationProperties.getSearch().getMode(), env.getProperty("spring.datasource.url"));
+    }
+
+    private Mode resolveMode(Mode configured, String jdbcUrl) {
+        if (configured == Mode.FULL_TEXT && DatabaseDriver.fromJdbcUrl(jdbcUrl) != DatabaseDriver.POSTGRESQL) {
+            log.warn("Full-text search mode requires PostgreSQL, falling back to index search");
+            return Mode.INDEX;
+        }
+        return configured;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Rebuilds the whole index from the database, reading notes in id order by batches of {@value #REBUILD_BATCH_SIZE}.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (mode != Mode.INDEX) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        index.clear();
+        Pageable batch = PageRequest.of(0, REBUILD_BATCH_SIZE, Sort.by("id"));
+        long lastId = Long.MIN_VALUE;
+        Slice<Note> slice;
+        do {
+            slice = noteRepository.findByIdGreaterThan(lastId, batch);
+            for (Note note : slice) {
+                index.put(note.getId(), indexedText(note.getTitle(), note.getContent()));
+                lastId = note.getId();
+            }
+        } while (slice.hasNext());
+        log.info("Indexed {} notes ({} terms) in {} ms", index.size(), index.termCount(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Adds or replaces a note in the index once the current transaction commits, or writes its full-text search vector
+     * in the current transaction.
+     *
+     * @param note the saved note.
+     */
+    public void index(Note note) {
+        if (mode == Mode.FULL_TEXT) {
+            noteRepository.updateSearchVector(note.getId(), note.getTitle(), note.getContent());
+            return;
+        }
+        if (mode != Mode.INDEX) {
+            return;
+        }
+        Long id = note.getId();
+        String text = indexedText(note.getTitle(), note.getContent());
+        afterCommit(() -> index.put(id, text));
+    }
+
+    /**
+     * Loads and indexes the given notes once the current transaction commits, or writes their full-text search vectors
+     * in the current transaction, by batches of {@value #REBUILD_BATCH_SIZE}. Meant for bulk writes, where holding the
+     * text of every note until commit would not be affordable. The notes are read as {@link NoteText} projections, which
+     * do not accumulate in the persistence context.
+     *
+     * @param ids the ids of the saved notes.
+     */
+    public void reindex(List<Long> ids) {
+        if (mode == Mode.FULL_TEXT) {
+            for (int from = 0; from < ids.size(); from += REBUILD_BATCH_SIZE) {
+                List<Long> batch = ids.subList(from, Math.min(from + REBUILD_BATCH_SIZE, ids.size()));
+                for (NoteText note : noteRepository.findAllTextsByIdIn(batch)) {
+                    noteRepository.updateSearchVector(note.getId(), note.getTitle(), note.getContent());
+                }
+            }
+            return;
+        }
+        if (mode != Mode.INDEX || ids.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> {
+            for (int from = 0; from < ids.size(); from += REBUILD_BATCH_SIZE) {
+                List<Long> batch = ids.subList(from, Math.min(from + REBUILD_BATCH_SIZE, ids.size()));
+                for (NoteText note : noteRepository.findAllTextsByIdIn(batch)) {
+                    index.put(note.getId(), indexedText(note.getTitle(), note.getContent()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes a note from the index once the current transaction commits.
+     *
+     * @param id the id of the deleted note.
+     */
+    public void remove(Long id) {
+        if (mode != Mode.INDEX) {
+            return;
+        }
+        afterCommit(() -> index.remove(id));
+    }
+
+    /**
+     * Searches notes by title and content. A blank query matches every readable note, as the {@code LIKE} search did.
+     *
+     * @param query the free-text query.
+     * @param pageable the pagination information, sorting is ignored unless in {@link Mode#LIKE} mode or for a blank
+     * query, as hits are ranked by relevance.
+     * @return the requested page of notes, best match first.
+     */
+    @Transactional(readOnly = true)
+    public Page<Note> search(String query, Pageable pageable) {
+        log.debug("Request to search Notes for : {}", query);
+        if (query == null || query.isBlank()) {
+            return noteAccessService.filterReadable(() -> noteRepository.findAllWithEagerRelationships(pageable));
+        }
+        switch (mode) {
+            case FULL_TEXT:
+                Page<Number> ids = noteAccessService.queryReadable((allNotes, userId) ->
+                    noteRepository.searchIdsByFullText(query, allNotes, userId, unsorted(pageable))
+                );
+                return hydrate(
+                    ids.getContent().stream().map(Number::longValue).collect(Collectors.toList()),
+                    pageable,
+                    ids.getTotalElements(),
+                    noteRepository::findAllWithToOneRelationshipsByIdIn,
+                    Note::getId
+                );
+            case LIKE:
+                return noteAccessService.filterReadable(() -> noteRepository.searchAllByTitle(query, pageable));
+            default:
+                return searchIndex(query, pageable);
+        }
+    }
+
+    /**
+     * Searches notes by title and content, returning {@link NoteSummary} projections that do not read the note content.
+     *
+     * @param query the free-text query.
+     * @param pageable the pagination information, see {@link #search(String, Pageable)}.
+     * @return the requested page of note summaries, best match first.
+     */
+    @Transactional(readOnly = true)
+    public Page<NoteSummary> searchSummaries(String query, Pageable pageable) {
+        log.debug("Request to search Note summaries for : {}", query);
+        if (query == null || query.isBlank()) {
+            return noteAccessService.filterReadable(() -> noteRepository.findAllSummaries(pageable));
+        }
+        switch (mode) {
+            case FULL_TEXT:
+                return noteAccessService.queryReadable((allNotes, userId) ->
+                    noteRepository.searchAllSummariesByFullText(query, allNotes, userId, unsorted(pageable))
+                );
+            case LIKE:
+                return noteAccessService.filterReadable(() -> noteRepository.searchAllSummariesByTitle(query, pageable));
+            default:
+                return searchIndex(query, pageable, noteRepository::findAllSummariesByIdIn, NoteSummary::getId);
+        }
+    }
+
+    private Page<Note> searchIndex(String query, Pageable pageable) {
+        return searchIndex(query, pageable, noteRepository::findAllWithToOneRelationshipsByIdIn, Note::getId);
+    }
+
+    /**
+     * Runs the query on the index over the notes readable by the current user, then hydrates the page.
+     */
+    private <T> Page<T> searchIndex(String query, Pageable pageable, Function<List<Long>, List<T>> loader, Function<T, Long> idGetter) {
+        SearchResult result = index.search(query, pageable.getOffset(), pageable.getPageSize(), noteAccessService.readable());
+        return hydrate(result.getDocIds(), pageable, result.getTotal(), loader, idGetter);
+    }
+
+    /**
+     * Hydrates a page of ranked note ids by primary key, keeping the ranking order.
+     */
+    private static <T> Page<T> hydrate(
+        List<Long> ids,
+        Pageable pageable,
+        long total,
+        Function<List<Long>, List<T>> loader,
+        Function<T, Long> idGetter
+    ) {
+        if (ids.isEmpty()) {
+            return new PageImpl<>(new ArrayList<>(), pageable, total);
+        }
+        Map<Long, T> rowsById = loader.apply(ids).stream().collect(Collectors.toMap(idGetter, Function.identity()));
+        List<T> rows = new ArrayList<>(rowsById.size());
+        for (Long id : ids) {
+            T row = rowsById.get(id);
+            if (row != null) {
+                rows.add(row);
+            }
+        }
+        return new PageImpl<>(rows, pageable, total);
+    }
+
+    private static Pageable unsorted(Pageable pageable) {
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+    }
+
+    private static String indexedText(String title, String content) {
+        if (title == null) {
+            return content;
+        }
+        return content == null ? title : title + '\n' + content;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        action.run();
+                    }
+                }
+            );
+        } else {
+            action.run();
+        }
+    }
+}
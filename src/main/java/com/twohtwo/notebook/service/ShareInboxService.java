@@ -0,0 +1,128 @@
+package com.twohtwo.notebook.service;
+
+import com.twohtwo.notebook.domain.Note;
+import com.twohtwo.notebook.domain.Share;
+import com.twohtwo.notebook.domain.ShareInboxEntry;
+import com.twohtwo.notebook.domain.User;
+import com.twohtwo.notebook.repository.NoteRepository;
+import com.twohtwo.notebook.repository.ShareInboxRepository;
+import com.twohtwo.notebook.repository.UserRepository;
+import com.twohtwo.notebook.security.SecurityUtils;
+import java.time.Instant;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service maintaining the "shared with me" inboxes, materialized in the {@link ShareInboxEntry} table.
+ * <p>
+ * An entry is written for each {@link Share} that has a recipient, in the transaction that saves the share, and
+ * follows the title of the shared note and the login of the author when they change. Listing an inbox then reads a
+ * range of the {@code (recipient_id, shared_date, share_id)} index, without joining the users or the notes.
+ */
+@Service
+@Transactional
+public class ShareInboxService {
+
+    private final Logger log = LoggerFactory.getLogger(ShareInboxService.class);
+
+    private final ShareInboxRepository shareInboxRepository;
+
+    private final UserRepository userRepository;
+
+    private final NoteRepository noteRepository;
+
+    public ShareInboxService(ShareInboxRepository shareInboxRepository, UserRepository userRepository, NoteRepository noteRepository) {
+        this.shareInboxRepository = shareInboxRepository;
+        this.userRepository = userRepository;
+        this.noteRepository = noteRepository;
+    }
+
+    /**
+     * Writes the inbox entry of a created or updated share, or deletes it if the share no longer has a recipient.
+     *
+     * @param share the saved share. Its relationships may be references holding only an id.
+     */
+    public void save(Share share) {
+        Optional<ShareInboxEntry> existingEntry = shareInboxRepository.findById(share.getId());
+        Optional<User> recipient = findUser(share.getWithUser());
+        if (recipient.isEmpty()) {
+            existingEntry.ifPresent(shareInboxRepository::delete);
+            return;
+        }
+        ShareInboxEntry entry = existingEntry.orElseGet(() -> {
+            ShareInboxEntry newEntry = new ShareInboxEntry();
+            newEntry.setShareId(share.getId());
+            newEntry.setSharedDate(Instant.now());
+            return newEntry;
+        });
+        entry.setRecipientId(recipient.get().getId());
+        Optional<User> author = findUser(share.getAuthor());
+        entry.setAuthorId(author.map(User::getId).orElse(null));
+        entry.setAuthorLogin(author.map(User::getLogin).orElse(null));
+        Optional<Note> note = share.getSharing() != null && share.getSharing().getId() != null
+            ? noteRepository.findById(share.getSharing().getId())
+            : Optional.empty();
+        entry.setNoteId(note.map(Note::getId).orElse(null));
+        entry.setNoteTitle(note.map(Note::getTitle).orElse(null));
+        entry.setInvite(share.getInvite());
+        log.debug("Saving the inbox entry of Share {}", share.getId());
+        shareInboxRepository.save(entry);
+    }
+
+    /**
+     * Deletes the inbox entry of a share. To be called before the share itself is deleted.
+     *
+     * @param shareId the id of the share.
+     */
+    public void delete(Long shareId) {
+        shareInboxRepository.findById(shareId).ifPresent(shareInboxRepository::delete);
+    }
+
+    /**
+     * Copies the title of a saved note to the inbox entries sharing it.
+     *
+     * @param note the saved note.
+     */
+    public void updateNoteTitle(Note note) {
+        shareInboxRepository.updateNoteTitle(note.getId(), note.getTitle());
+    }
+
+    /**
+     * Copies the login of a changed user to the inbox entries of the shares they authored.
+     *
+     * @param event the change.
+     */
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.getEntityType() == User.class && event.getEntityId() != null) {
+            shareInboxRepository.updateAuthorLogin((Long) event.getEntityId());
+        }
+    }
+
+    /**
+     * Gets a page of the inbox of the current user, most recent first.
+     *
+     * @param pageable the pagination information, its sort is ignored.
+     * @return the page, empty if there is no current user.
+     */
+    @Transactional(readOnly = true)
+    public Page<ShareInboxEntry> findAllForCurrentUser(Pageable pageable) {
+        Pageable unsorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        return SecurityUtils
+            .getCurrentUserLogin()
+            .flatMap(userRepository::findOneByLogin)
+            .map(user -> shareInboxRepository.findByRecipientIdOrderBySharedDateDescShareIdDesc(user.getId(), unsorted))
+            .orElseGet(() -> Page.empty(unsorted));
+    }
+
+    private Optional<User> findUser(User user) {
+        return user != null && user.getId() != null ? userRepository.findById(user.getId()) : Optional.empty();
+    }
+}
@@ -0,0 +1,376 @@
+package com.twohtwo.notebook.service;
+
+import com.twohtwo.notebook.config.ApplicationProperties;
+import com.twohtwo.notebook.domain.Note;
+import com.twohtwo.notebook.domain.NoteBook;
+import com.twohtwo.notebook.domain.Share;
+import com.twohtwo.notebook.domain.SyncChange;
+import com.twohtwo.notebook.domain.SyncChange.EntityType;
+import com.twohtwo.notebook.domain.User;
+import com.twohtwo.notebook.repository.NoteBookRepository;
+import com.twohtwo.notebook.repository.NoteRepository;
+import com.twohtwo.notebook.repository.ShareRepository;
+import com.twohtwo.notebook.repository.SyncChangeRepository;
+import com.twohtwo.notebook.security.AuthoritiesConstants;
+import com.twohtwo.notebook.security.SecurityUtils;
+import com.twohtwo.notebook.service.dto.SyncDTO;
+import com.twohtwo.notebook.service.sync.PendingChanges;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.ActionQueue;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service behind the sync API, which lets offline clients fetch only the {@link Note}s, {@link NoteBook}s and
+ * {@link Share}s changed since their last sync.
+ * <p>
+ * The changes are recorded in the {@link SyncChange} log by Hibernate post-insert, post-update and post-delete
+ * listeners, whatever the code path making them, and written with JDBC right before the transaction making them
+ * commits, so that the log counter is only locked while committing. The log keeps the last change of each entity
+ * only, so a sync returns every changed entity once, and a first sync from no token returns every entity. Every
+ * {@code application.sync.compaction-interval}, the tombstones older than {@code application.sync.tombstone-retention}
+ * are trimmed, which expires the older tokens.
+ * <p>
+ * Notes are returned only if the current user can read them, see {@link NoteAccessService}; a changed note they
+ * cannot read is returned as deleted. Creating, updating or deleting a share also records a change of the shared note,
+ * so that it appears to the clients of the user it is shared with, and is deleted from them once revoked.
+ */
+@Service
+public class SyncService {
+
+    private final Logger log = LoggerFactory.getLogger(SyncService.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final SyncChangeRepository syncChangeRepository;
+
+    private final NoteRepository noteRepository;
+
+    private final NoteBookRepository noteBookRepository;
+
+    private final ShareRepository shareRepository;
+
+    private final NoteAccessService noteAccessService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties.Sync properties;
+
+    /**
+     * The changes flushed by the transaction of each session and not written yet.
+     */
+    private final Map<SharedSessionContractImplementor, PendingChanges> pendingBySession = new ConcurrentHashMap<>();
+
+    public SyncService(
+        EntityManagerFactory entityManagerFactory,
+        SyncChangeRepository syncChangeRepository,
+        NoteRepository noteRepository,
+        NoteBookRepository noteBookRepository,
+        ShareRepository shareRepository,
+        NoteAccessService noteAccessService,
+        ApplicationProperties applicationProperties,
+        PlatformTransactionManager transactionManager
+    ) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.syncChangeRepository = syncChangeRepository;
+        this.noteRepository = noteRepository;
+        this.noteBookRepository = noteBookRepository;
+        this.shareRepository = shareRepository;
+        this.noteAccessService = noteAccessService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = applicationProperties.getSync();
+    }
+
+    @PostConstruct
+    public void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory
+            .unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+        ChangeListener listener = new ChangeListener();
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+    }
+
+    /**
+     * Gets the changes made since a sync token.
+     * <p>
+     * The notes the current user cannot read, and the shares they neither authored nor received or whose note they
+     * cannot read, are reported as deleted.
+     *
+     * @param since the token returned by the previous sync, or {@code null} to get every entity.
+     * @param size the maximum number of changes to return, or {@code null} for {@code application.sync.page-size}.
+     * @return the changes, in the order they were made, with the token of the last one.
+     * @throws IllegalArgumentException if the token is not valid.
+     * @throws SyncTokenExpiredException if the token is older than the tombstones kept.
+     */
+    @Transactional(readOnly = true)
+    public SyncDTO getChangesSince(String since, Integer size) {
+        long sinceSeq = parseToken(since);
+        Long trimmedSeq = syncChangeRepository.findTrimmedSeq();
+        if (sinceSeq > 0 && trimmedSeq != null && sinceSeq < trimmedSeq) {
+            throw new SyncTokenExpiredException("Sync token " + since + " is older than the tombstones kept");
+        }
+        int limit = size == null ? properties.getPageSize() : Math.max(1, Math.min(size, properties.getMaxPageSize()));
+        List<SyncChange> changes = syncChangeRepository.findBySeqGreaterThanOrderBySeq(sinceSeq, PageRequest.of(0, limit));
+
+        SyncDTO sync = new SyncDTO();
+        Map<EntityType, List<Long>> upserted = new EnumMap<>(EntityType.class);
+        Map<EntityType, List<Long>> deleted = new EnumMap<>(EntityType.class);
+        deleted.put(EntityType.NOTE, sync.getDeletedNotes());
+        deleted.put(EntityType.NOTE_BOOK, sync.getDeletedNoteBooks());
+        deleted.put(EntityType.SHARE, sync.getDeletedShares());
+        for (SyncChange change : changes) {
+            if (change.isDeleted()) {
+                deleted.get(change.getEntityType()).add(change.getEntityId());
+            } else {
+                upserted.computeIfAbsent(change.getEntityType(), entityType -> new ArrayList<>()).add(change.getEntityId());
+            }
+        }
+        LongPredicate readable = noteAccessService.readable();
+        List<Long> noteIds = upserted.get(EntityType.NOTE);
+        if (noteIds != null) {
+            Set<Long> missingIds = new LinkedHashSet<>(noteIds);
+            for (Note note : noteRepository.findAllWithToOneRelationshipsByIdIn(noteIds)) {
+                missingIds.remove(note.getId());
+                if (readable.test(note.getId())) {
+                    sync.getNotes().add(note);
+                } else {
+                    sync.getDeletedNotes().add(note.getId());
+                }
+            }
+            // deleted since the change was logged, its tombstone comes later
+            sync.getDeletedNotes().addAll(missingIds);
+        }
+        List<Long> noteBookIds = upserted.get(EntityType.NOTE_BOOK);
+        if (noteBookIds != null) {
+            sync.getNoteBooks().addAll(noteBookRepository.findAllWithToOneRelationshipsByIdIn(noteBookIds));
+        }
+        List<Long> shareIds = upserted.get(EntityType.SHARE);
+        if (shareIds != null) {
+            Predicate<Share> visible = visibleShares(readable);
+            Set<Long> missingIds = new LinkedHashSet<>(shareIds);
+            for (Share share : shareRepository.findAllWithToOneRelationshipsByIdIn(shareIds)) {
+                missingIds.remove(share.getId());
+                if (visible.test(share)) {
+                    sync.getShares().add(share);
+                } else {
+                    sync.getDeletedShares().add(share.getId());
+                }
+            }
+            sync.getDeletedShares().addAll(missingIds);
+        }
+        sync.setToken(Long.toString(changes.isEmpty() ? sinceSeq : changes.get(changes.size() - 1).getSeq()));
+        sync.setHasMore(changes.size() == limit);
+        return sync;
+    }
+
+    /**
+     * The shares synchronized to the current user: the ones they authored or received, and every share for
+     * administrators, as long as they can read the shared note.
+     */
+    private static Predicate<Share> visibleShares(LongPredicate readable) {
+        boolean admin = SecurityUtils.hasCurrentUserThisAuthority(AuthoritiesConstants.ADMIN);
+        String login = SecurityUtils.getCurrentUserLogin().orElse(null);
+        return share ->
+            (admin || isUser(share.getAuthor(), login) || isUser(share.getWithUser(), login)) &&
+            (share.getSharing() == null || readable.test(share.getSharing().getId()));
+    }
+
+    private static boolean isUser(User user, String login) {
+        return user != null && login != null && login.equals(user.getLogin());
+    }
+
+    private static long parseToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return 0;
+        }
+        try {
+            long seq = Long.parseLong(token);
+            if (seq >= 0) {
+                return seq;
+            }
+        } catch (NumberFormatException e) {
+            // rethrown below
+        }
+        throw new IllegalArgumentException("Invalid sync token " + token);
+    }
+
+    /**
+     * Trims the tombstones older than the retention.
+     */
+    @Scheduled(
+        fixedDelayString = "${application.sync.compaction-interval:PT1H}",
+        initialDelayString = "${application.sync.compaction-interval:PT1H}"
+    )
+    public void compact() {
+        compact(Instant.now());
+    }
+
+    /**
+     * @param now the current time.
+     */
+    public void compact(Instant now) {
+        Instant before = now.minus(properties.getTombstoneRetention());
+        Integer trimmed = transactionTemplate.execute(status -> {
+            Long lastSeq = syncChangeRepository.findLastTombstoneSeqBefore(before);
+            if (lastSeq == null) {
+                return 0;
+            }
+            // locks the counter first, as the writers do
+            syncChangeRepository.updateTrimmedSeq(lastSeq);
+            return syncChangeRepository.deleteTombstonesBefore(before, lastSeq);
+        });
+        if (trimmed != null && trimmed > 0) {
+            log.debug("Trimmed {} tombstones older than {}", trimmed, before);
+        }
+    }
+
+    /**
+     * Adds a change to the pending changes of the transaction of a session. The first change of a transaction registers
+     * their write right before it commits, once the session is flushed, and forgets them once it completes.
+     */
+    private void record(EventSource session, Consumer<PendingChanges> change) {
+        PendingChanges changes = pendingBySession.get(session);
+        if (changes == null) {
+            PendingChanges transactionChanges = new PendingChanges();
+            pendingBySession.put(session, transactionChanges);
+            ActionQueue actionQueue = session.getActionQueue();
+            actionQueue.registerProcess((BeforeTransactionCompletionProcess) completing -> write(completing, transactionChanges));
+            actionQueue.registerProcess((AfterTransactionCompletionProcess) (success, completed) -> pendingBySession.remove(completed));
+            changes = transactionChanges;
+        }
+        change.accept(changes);
+    }
+
+    private void write(SessionImplementor session, PendingChanges changes) {
+        if (!changes.isEmpty()) {
+            log.debug("Writing {} changes to the sync log", changes.size());
+            session.doWork(connection -> changes.write(connection, Instant.now()));
+        }
+    }
+
+    /**
+     * Records a change of an entity, and of the note shared by a share in its previous and new states.
+     */
+    private void record(
+        EventSource session,
+        Object entity,
+        Object id,
+        EntityPersister persister,
+        Object[] oldState,
+        Object[] state,
+        boolean deleted
+    ) {
+        EntityType entityType = entityTypeOf(entity);
+        if (entityType == null) {
+            return;
+        }
+        Long oldSharedNoteId = entity instanceof Share ? sharedNoteId(persister, oldState) : null;
+        Long sharedNoteId = entity instanceof Share ? sharedNoteId(persister, state) : null;
+        record(
+            session,
+            changes -> {
+                changes.add(entityType, (Long) id, deleted);
+                if (oldSharedNoteId != null) {
+                    changes.touch(EntityType.NOTE, oldSharedNoteId);
+                }
+                if (sharedNoteId != null) {
+                    changes.touch(EntityType.NOTE, sharedNoteId);
+                }
+            }
+        );
+    }
+
+    private static Long sharedNoteId(EntityPersister persister, Object[] state) {
+        if (state == null) {
+            return null;
+        }
+        Object note = state[persister.getEntityMetamodel().getPropertyIndex("sharing")];
+        if (note instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) note).getHibernateLazyInitializer().getIdentifier();
+        }
+        return note == null ? null : ((Note) note).getId();
+    }
+
+    private static EntityType entityTypeOf(Object entity) {
+        if (entity instanceof Note) {
+            return EntityType.NOTE;
+        }
+        if (entity instanceof NoteBook) {
+            return EntityType.NOTE_BOOK;
+        }
+        if (entity instanceof Share) {
+            return EntityType.SHARE;
+        }
+        return null;
+    }
+
+    private final class ChangeListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            record(event.getSession(), event.getEntity(), event.getId(), event.getPersister(), null, event.getState(), false);
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            record(
+                event.getSession(),
+                event.getEntity(),
+                event.getId(),
+                event.getPersister(),
+                event.getOldState(),
+                event.getState(),
+                false
+            );
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            record(event.getSession(), event.getEntity(), event.getId(), event.getPersister(), event.getDeletedState(), null, true);
+        }
+
+        @Override
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            return false;
+        }
+    }
+}
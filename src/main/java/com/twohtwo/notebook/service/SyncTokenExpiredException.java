@@ -0,0 +1,14 @@
+package com.twohtwo.notebook.service;
+
+/**
+ * Thrown when a sync token is older than the tombstones kept in the change log, so that the deletions made since
+ * then are not all known anymore. The client is expected to sync again from scratch.
+ */
+public class SyncTokenExpiredException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public SyncTokenExpiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,50 @@
+package com.twohtwo.notebook.service.access;
+
+import java.util.Collection;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+/**
+ * Set of note ids, kept as a compressed Roaring bitmap: dense ranges of ids, such as the notes created by one user
+ * in a row, take a few bits per id.
+ * <p>
+ * Thread-safe.
+ */
+public final class NoteIdSet {
+
+    private final Roaring64NavigableMap bitmap = new Roaring64NavigableMap();
+
+    public static NoteIdSet of(Collection<Long> noteIds) {
+        NoteIdSet set = new NoteIdSet();
+        for (Long noteId : noteIds) {
+            set.bitmap.addLong(noteId);
+        }
+        return set;
+    }
+
+    public synchronized boolean contains(long noteId) {
+        return bitmap.contains(noteId);
+    }
+
+    public synchronized void add(long noteId) {
+        bitmap.addLong(noteId);
+    }
+
+    public synchronized void remove(long noteId) {
+        bitmap.removeLong(noteId);
+    }
+
+    public synchronized boolean isEmpty() {
+        return bitmap.isEmpty();
+    }
+
+    public synchronized long size() {
+        return bitmap.getLongCardinality();
+    }
+
+    /**
+     * @return the ids, in ascending order.
+     */
+    public synchronized long[] toArray() {
+        return bitmap.toArray();
+    }
+}
@@ -0,0 +1,224 @@
+package com.twohtwo.notebook.service.access;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory index of the notes each user can read: the {@link UserNotes} of the most recently used users, looked up
+ * by login and by id, and the notes without owner, which everyone can read.
+ * <p>
+ * Entries are loaded from the database on demand, then maintained incrementally. Every change increments a
+ * generation, and an entry loaded while the generation changed is not kept, since it may have missed the change.
+ * <p>
+ * The changes made through other instances of the application are not seen, so entries can be given a time to live,
+ * after which they are loaded again.
+ * <p>
+ * Thread-safe.
+ */
+public class ReadableNotes {
+
+    private final int maxUsers;
+
+    private final long timeToLiveNanos;
+
+    private final LongSupplier nanoClock;
+
+    private final Map<String, UserNotes> usersByLogin;
+
+    private final Map<Long, UserNotes> usersById = new HashMap<>();
+
+    private final Map<Long, Long> userLoadTimes = new HashMap<>();
+
+    private NoteIdSet unowned;
+
+    private long unownedLoadTime;
+
+    private long generation;
+
+    /**
+     * Creates an index whose entries never expire.
+     *
+     * @param maxUsers the maximum number of users kept.
+     */
+    public ReadableNotes(int maxUsers) {
+        this(maxUsers, Duration.ZERO, System::nanoTime);
+    }
+
+    /**
+     * @param maxUsers the maximum number of users kept.
+     * @param timeToLive the time after which a loaded entry is loaded again, or zero for never.
+     * @param nanoClock the source of {@link System#nanoTime()}.
+     */
+    public ReadableNotes(int maxUsers, Duration timeToLive, LongSupplier nanoClock) {
+        this.maxUsers = maxUsers;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.nanoClock = nanoClock;
+        this.usersByLogin =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, UserNotes> eldest) {
+                    if (size() <= ReadableNotes.this.maxUsers) {
+                        return false;
+                    }
+                    usersById.remove(eldest.getValue().getUserId());
+                    userLoadTimes.remove(eldest.getValue().getUserId());
+                    return true;
+                }
+            };
+    }
+
+    /**
+     * @return the current generation, to be passed to {@link #putUser(UserNotes, long)} or
+     * {@link #putUnowned(NoteIdSet, long)} by a load started now.
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * @param login the login of the user.
+     * @return the notes of the user, or {@code null} if not loaded or expired.
+     */
+    public synchronized UserNotes getUser(String login) {
+        UserNotes user = usersByLogin.get(login);
+        if (user != null && isExpired(userLoadTimes.get(user.getUserId()))) {
+            removeUser(user.getUserId());
+            return null;
+        }
+        return user;
+    }
+
+    /**
+     * Keeps the loaded notes of a user, unless the index changed during the load.
+     *
+     * @param user the notes of the user.
+     * @param loadGeneration the generation when the load started.
+     * @return whether the notes were kept.
+     */
+    public synchronized boolean putUser(UserNotes user, long loadGeneration) {
+        if (loadGeneration != generation) {
+            return false;
+        }
+        usersByLogin.put(user.getLogin(), user);
+        usersById.put(user.getUserId(), user);
+        userLoadTimes.put(user.getUserId(), nanoClock.getAsLong());
+        return true;
+    }
+
+    /**
+     * @return the notes without owner, or {@code null} if not loaded or expired.
+     */
+    public synchronized NoteIdSet getUnowned() {
+        if (unowned != null && isExpired(unownedLoadTime)) {
+            unowned = null;
+        }
+        return unowned;
+    }
+
+    /**
+     * Keeps the loaded notes without owner, unless the index changed during the load.
+     *
+     * @param notes the notes without owner.
+     * @param loadGeneration the generation when the load started.
+     * @return whether the notes were kept.
+     */
+    public synchronized boolean putUnowned(NoteIdSet notes, long loadGeneration) {
+        if (loadGeneration != generation) {
+            return false;
+        }
+        unowned = notes;
+        unownedLoadTime = nanoClock.getAsLong();
+        return true;
+    }
+
+    /**
+     * Records that a note is owned by a user.
+     *
+     * @param ownerId the id of the owner, or {@code null} if the note has none.
+     * @param noteId the id of the note.
+     */
+    public synchronized void addOwned(Long ownerId, long noteId) {
+        generation++;
+        NoteIdSet notes = ownedBy(ownerId);
+        if (notes != null) {
+            notes.add(noteId);
+        }
+    }
+
+    /**
+     * Records that a note is no longer owned by a user.
+     *
+     * @param ownerId the id of the previous owner, or {@code null} if the note had none.
+     * @param noteId the id of the note.
+     */
+    public synchronized void removeOwned(Long ownerId, long noteId) {
+        generation++;
+        NoteIdSet notes = ownedBy(ownerId);
+        if (notes != null) {
+            notes.remove(noteId);
+        }
+    }
+
+    private NoteIdSet ownedBy(Long ownerId) {
+        if (ownerId == null) {
+            return unowned;
+        }
+        UserNotes user = usersById.get(ownerId);
+        return user == null ? null : user.getOwned();
+    }
+
+    /**
+     * Records that a note is shared with a user.
+     *
+     * @param recipientId the id of the user.
+     * @param noteId the id of the note.
+     */
+    public synchronized void addShared(long recipientId, long noteId) {
+        generation++;
+        UserNotes user = usersById.get(recipientId);
+        if (user != null) {
+            user.getShared().add(noteId);
+        }
+    }
+
+    /**
+     * Forgets the notes of a user, to be reloaded on their next request. Used when a share is revoked, as the same
+     * note may still be shared with the user by another share.
+     *
+     * @param userId the id of the user.
+     */
+    public synchronized void evictUser(long userId) {
+        generation++;
+        removeUser(userId);
+    }
+
+    private void removeUser(long userId) {
+        userLoadTimes.remove(userId);
+        UserNotes user = usersById.remove(userId);
+        if (user != null) {
+            usersByLogin.remove(user.getLogin());
+        }
+    }
+
+    private boolean isExpired(long loadTime) {
+        return timeToLiveNanos > 0 && nanoClock.getAsLong() - loadTime >= timeToLiveNanos;
+    }
+
+    /**
+     * Forgets everything, to be reloaded on demand.
+     */
+    public synchronized void clear() {
+        generation++;
+        usersByLogin.clear();
+        usersById.clear();
+        userLoadTimes.clear();
+        unowned = null;
+    }
+
+    public synchronized int userCount() {
+        return usersByLogin.size();
+    }
+}
@@ -0,0 +1,42 @@
+package com.twohtwo.notebook.service.access;
+
+/**
+ * The notes owned by a user and the notes shared with them.
+ */
+public final class UserNotes {
+
+    private final long userId;
+
+    private final String login;
+
+    private final NoteIdSet owned;
+
+    private final NoteIdSet shared;
+
+    public UserNotes(long userId, String login, NoteIdSet owned, NoteIdSet shared) {
+        this.userId = userId;
+        this.login = login;
+        this.owned = owned;
+        this.shared = shared;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public NoteIdSet getOwned() {
+        return owned;
+    }
+
+    public NoteIdSet getShared() {
+        return shared;
+    }
+
+    public boolean canRead(long noteId) {
+        return owned.contains(noteId) || shared.contains(noteId);
+    }
+}
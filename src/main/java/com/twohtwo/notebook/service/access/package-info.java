@@ -0,0 +1,4 @@
+/**
+ * In-memory index of the notes readable by each user.
+ */
+package com.twohtwo.notebook.service.access;
@@ -0,0 +1,71 @@
+package com.twohtwo.notebook.service.autosave;
+
+import java.io.Serializable;
+import javax.validation.constraints.Min;
+
+/**
+ * A change to a text: {@code deleteCount} characters removed at {@code position}, then {@code insert} inserted there.
+ */
+public class TextDelta implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Min(0)
+    private int position;
+
+    @Min(0)
+    private int deleteCount;
+
+    private String insert = "";
+
+    public TextDelta() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public TextDelta(int position, int deleteCount, String insert) {
+        this.position = position;
+        this.deleteCount = deleteCount;
+        this.insert = insert != null ? insert : "";
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    public int getDeleteCount() {
+        return deleteCount;
+    }
+
+    public void setDeleteCount(int deleteCount) {
+        this.deleteCount = deleteCount;
+    }
+
+    public String getInsert() {
+        return insert;
+    }
+
+    public void setInsert(String insert) {
+        this.insert = insert != null ? insert : "";
+    }
+
+    /**
+     * @return the number of characters changed by this delta.
+     */
+    int size() {
+        return deleteCount + insert.length();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "TextDelta{" +
+            "position=" + position +
+            ", deleteCount=" + deleteCount +
+            ", insert='" + insert + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,13 @@
+package com.twohtwo.notebook.service.autosave;
+
+/**
+ * Thrown when a delta cannot be rebased on a concurrent one because they change the same characters.
+ */
+public class TextDeltaConflictException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    TextDeltaConflictException(TextDelta delta, TextDelta concurrent) {
+        super(delta + " overlaps the concurrent " + concurrent);
+    }
+}
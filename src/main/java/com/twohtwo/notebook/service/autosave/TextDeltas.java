@@ -0,0 +1,109 @@
+package com.twohtwo.notebook.service.autosave;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies and rebases sequences of {@link TextDelta}s. In a sequence, each delta applies to the text produced by the
+ * previous ones.
+ */
+public final class TextDeltas {
+
+    private TextDeltas() {}
+
+    /**
+     * @param text the original text.
+     * @param deltas the deltas to apply, in order.
+     * @return the changed text.
+     * @throws IllegalArgumentException if a delta is out of the bounds of the text it applies to.
+     */
+    public static String apply(String text, List<TextDelta> deltas) {
+        StringBuilder result = new StringBuilder(text);
+        for (TextDelta delta : deltas) {
+            int end = delta.getPosition() + delta.getDeleteCount();
+            if (delta.getPosition() < 0 || delta.getDeleteCount() < 0 || end > result.length()) {
+                throw new IllegalArgumentException(delta + " is out of the bounds of a text of length " + result.length());
+            }
+            result.replace(delta.getPosition(), end, delta.getInsert());
+        }
+        return result.toString();
+    }
+
+    /**
+     * Computes the deltas from a text to another as a single replacement of the characters between their common prefix
+     * and their common suffix, which is exact for the usual edits made at one place of a note.
+     *
+     * @param from the original text.
+     * @param to the changed text.
+     * @return the deltas turning {@code from} into {@code to}, empty if both are equal.
+     */
+    public static List<TextDelta> diff(String from, String to) {
+        int prefix = 0;
+        int maxPrefix = Math.min(from.length(), to.length());
+        while (prefix < maxPrefix && from.charAt(prefix) == to.charAt(prefix)) {
+            prefix++;
+        }
+        if (prefix == from.length() && prefix == to.length()) {
+            return List.of();
+        }
+        int suffix = 0;
+        int maxSuffix = maxPrefix - prefix;
+        while (suffix < maxSuffix && from.charAt(from.length() - 1 - suffix) == to.charAt(to.length() - 1 - suffix)) {
+            suffix++;
+        }
+        return List.of(new TextDelta(prefix, from.length() - prefix - suffix, to.substring(prefix, to.length() - suffix)));
+    }
+
+    /**
+     * @return the number of characters changed by the deltas.
+     */
+    public static int size(List<TextDelta> deltas) {
+        return deltas.stream().mapToInt(TextDelta::size).sum();
+    }
+
+    /**
+     * Rebases deltas made on a text on the concurrent deltas already applied to the same text. When both insert at
+     * the same position, the concurrent insert comes first.
+     *
+     * @param deltas the deltas to rebase.
+     * @param concurrent the deltas already applied.
+     * @return the deltas to apply after the concurrent ones.
+     * @throws TextDeltaConflictException if a delta changes characters also changed by a concurrent delta.
+     */
+    public static List<TextDelta> rebase(List<TextDelta> deltas, List<TextDelta> concurrent) throws TextDeltaConflictException {
+        List<TextDelta> rebased = deltas;
+        for (TextDelta applied : concurrent) {
+            List<TextDelta> next = new ArrayList<>(rebased.size());
+            TextDelta other = applied;
+            for (TextDelta delta : rebased) {
+                next.add(transform(delta, other, true));
+                // the following deltas apply after this one: move the concurrent delta after it too
+                other = transform(other, delta, false);
+            }
+            rebased = next;
+        }
+        return rebased;
+    }
+
+    /**
+     * @param delta a delta.
+     * @param other a delta made on the same text.
+     * @param otherFirst whether {@code other} comes first when both insert at the same position.
+     * @return {@code delta}, to apply after {@code other}.
+     */
+    private static TextDelta transform(TextDelta delta, TextDelta other, boolean otherFirst) throws TextDeltaConflictException {
+        int start = delta.getPosition();
+        int end = start + delta.getDeleteCount();
+        int otherStart = other.getPosition();
+        int otherEnd = otherStart + other.getDeleteCount();
+        boolean bothInsertHere = start == otherStart && delta.getDeleteCount() == 0 && other.getDeleteCount() == 0;
+        if (bothInsertHere ? otherFirst : otherEnd <= start) {
+            int shift = other.getInsert().length() - other.getDeleteCount();
+            return new TextDelta(start + shift, delta.getDeleteCount(), delta.getInsert());
+        }
+        if (bothInsertHere || end <= otherStart) {
+            return delta;
+        }
+        throw new TextDeltaConflictException(delta, other);
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Text deltas sent by the note editor autosave.
+ */
+package com.twohtwo.notebook.service.autosave;
@@ -0,0 +1,58 @@
+package com.twohtwo.notebook.service.dto;
+
+import com.twohtwo.notebook.service.autosave.TextDelta;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * A DTO representing the changes made by the editor to the draft of a note since the given base revision.
+ */
+public class NoteAutosaveDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Min(0)
+    private long baseRevision;
+
+    @NotNull
+    @Valid
+    private List<TextDelta> deltas = new ArrayList<>();
+
+    public NoteAutosaveDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public NoteAutosaveDTO(long baseRevision, List<TextDelta> deltas) {
+        this.baseRevision = baseRevision;
+        this.deltas = deltas;
+    }
+
+    public long getBaseRevision() {
+        return baseRevision;
+    }
+
+    public void setBaseRevision(long baseRevision) {
+        this.baseRevision = baseRevision;
+    }
+
+    public List<TextDelta> getDeltas() {
+        return deltas;
+    }
+
+    public void setDeltas(List<TextDelta> deltas) {
+        this.deltas = deltas;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "NoteAutosaveDTO{" +
+            "baseRevision=" + baseRevision +
+            ", deltas=" + deltas.size() +
+            "}";
+    }
+}
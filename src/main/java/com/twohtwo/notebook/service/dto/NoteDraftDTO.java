@@ -0,0 +1,51 @@
+package com.twohtwo.notebook.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.io.Serializable;
+
+/**
+ * A DTO representing the autosaved draft of a note, at a given revision.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class NoteDraftDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long revision;
+
+    private String content;
+
+    public NoteDraftDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public NoteDraftDTO(long revision, String content) {
+        this.revision = revision;
+        this.content = content;
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(long revision) {
+        this.revision = revision;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "NoteDraftDTO{" +
+            "revision=" + revision +
+            ", content length=" + (content != null ? content.length() : 0) +
+            "}";
+    }
+}
@@ -0,0 +1,91 @@
+package com.twohtwo.notebook.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A DTO representing a note as it was saved at a given revision.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class NoteRevisionDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long noteId;
+
+    private int revision;
+
+    private String title;
+
+    private String content;
+
+    private String authorLogin;
+
+    private Instant createdDate;
+
+    public NoteRevisionDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public Long getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(Long noteId) {
+        this.noteId = noteId;
+    }
+
+    public int getRevision() {
+        return revision;
+    }
+
+    public void setRevision(int revision) {
+        this.revision = revision;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public String getAuthorLogin() {
+        return authorLogin;
+    }
+
+    public void setAuthorLogin(String authorLogin) {
+        this.authorLogin = authorLogin;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "NoteRevisionDTO{" +
+            "noteId=" + noteId +
+            ", revision=" + revision +
+            ", title='" + title + "'" +
+            ", content length=" + (content != null ? content.length() : 0) +
+            ", authorLogin='" + authorLogin + "'" +
+            ", createdDate='" + createdDate + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,122 @@
+package com.twohtwo.notebook.service.dto;
+
+import com.twohtwo.notebook.domain.Note;
+import com.twohtwo.notebook.domain.NoteBook;
+import com.twohtwo.notebook.domain.Share;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO representing the changes since a sync token: the current state of the created or updated entities, and the
+ * ids of the deleted ones.
+ */
+public class SyncDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String token;
+
+    private boolean hasMore;
+
+    private List<Note> notes = new ArrayList<>();
+
+    private List<NoteBook> noteBooks = new ArrayList<>();
+
+    private List<Share> shares = new ArrayList<>();
+
+    private List<Long> deletedNotes = new ArrayList<>();
+
+    private List<Long> deletedNoteBooks = new ArrayList<>();
+
+    private List<Long> deletedShares = new ArrayList<>();
+
+    public SyncDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    /**
+     * @return the token to sync from next time.
+     */
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    /**
+     * @return whether more changes follow, to be requested right away with the new token.
+     */
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public List<Note> getNotes() {
+        return notes;
+    }
+
+    public void setNotes(List<Note> notes) {
+        this.notes = notes;
+    }
+
+    public List<NoteBook> getNoteBooks() {
+        return noteBooks;
+    }
+
+    public void setNoteBooks(List<NoteBook> noteBooks) {
+        this.noteBooks = noteBooks;
+    }
+
+    public List<Share> getShares() {
+        return shares;
+    }
+
+    public void setShares(List<Share> shares) {
+        this.shares = shares;
+    }
+
+    public List<Long> getDeletedNotes() {
+        return deletedNotes;
+    }
+
+    public void setDeletedNotes(List<Long> deletedNotes) {
+        this.deletedNotes = deletedNotes;
+    }
+
+    public List<Long> getDeletedNoteBooks() {
+        return deletedNoteBooks;
+    }
+
+    public void setDeletedNoteBooks(List<Long> deletedNoteBooks) {
+        this.deletedNoteBooks = deletedNoteBooks;
+    }
+
+    public List<Long> getDeletedShares() {
+        return deletedShares;
+    }
+
+    public void setDeletedShares(List<Long> deletedShares) {
+        this.deletedShares = deletedShares;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SyncDTO{" +
+            "token='" + token + "'" +
+            ", hasMore=" + hasMore +
+            ", notes=" + notes.size() +
+            ", noteBooks=" + noteBooks.size() +
+            ", shares=" + shares.size() +
+            ", deletedNotes=" + deletedNotes +
+            ", deletedNoteBooks=" + deletedNoteBooks +
+            ", deletedShares=" + deletedShares +
+            "}";
+    }
+}
@@ -0,0 +1,297 @@
+package com.twohtwo.notebook.service.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * In-memory inverted index over documents identified by a {@code long} id.
+ * <p>
+ * The term dictionary is a sorted map from term to {@link PostingList}, which allows the last query term to be
+ * matched as a prefix (search-as-you-type). A forward index of the distinct terms of every document makes
+ * re-indexing and removal touch only the posting lists of that document.
+ * <p>
+ * Queries are conjunctive: every query term must match. Hits are ranked with Okapi BM25.
+ * <p>
+ * This class is thread-safe: readers share a read lock, updates take the write lock.
+ */
+public class InvertedIndex {
+
+    static final double BM25_K1 = 1.2;
+
+    static final double BM25_B = 0.75;
+
+    /**
+     * Upper bound on the number of dictionary terms a prefix expands to, so that a one-letter prefix cannot scan the
+     * whole dictionary.
+     */
+    static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private final NavigableMap<String, PostingList> dictionary = new TreeMap<>();
+
+    private final Map<Long, String[]> documentTerms = new HashMap<>();
+
+    private final Map<Long, Integer> documentLengths = new HashMap<>();
+
+    private long totalLength;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Adds a document to the index, replacing any previous version of it.
+     *
+     * @param docId the document id.
+     * @param text the document text.
+     */
+    public void put(long docId, String text) {
+        List<String> tokens = NoteTokenizer.tokenize(text);
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokens) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        lock.writeLock().lock();
+        try {
+            removeInternal(docId);
+            if (tokens.isEmpty()) {
+                return;
+            }
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                dictionary.computeIfAbsent(entry.getKey(), term -> new PostingList()).put(docId, entry.getValue());
+            }
+            documentTerms.put(docId, frequencies.keySet().toArray(new String[0]));
+            documentLengths.put(docId, tokens.size());
+            totalLength += tokens.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a document from the index.
+     *
+     * @param docId the document id.
+     */
+    public void remove(long docId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(docId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every document from the index.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            dictionary.clear();
+            documentTerms.clear();
+            documentLengths.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of indexed documents.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentLengths.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of distinct terms in the dictionary.
+     */
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return dictionary.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a ranked, conjunctive query.
+     *
+     * @param query the free-text query, tokenized with {@link NoteTokenizer}.
+     * @param offset the number of top hits to skip.
+     * @param limit the maximum number of hits to return.
+     * @return the requested slice of hits, best first, along with the total number of matching documents.
+     */
+    public SearchResult search(String query, long offset, int limit) {
+        return search(query, offset, limit, docId -> true);
+    }
+
+    /**
+     * Runs a ranked, conjunctive query over the documents accepted by a filter, such as the notes readable by a user.
+     * Rejected documents are skipped before scoring and are not counted in the total.
+     *
+     * @param query the free-text query, tokenized with {@link NoteTokenizer}.
+     * @param offset the number of top hits to skip.
+     * @param limit the maximum number of hits to return.
+     * @param filter the predicate on document ids.
+     * @return the requested slice of accepted hits, best first, along with the total number of accepted matching documents.
+     */
+    public SearchResult search(String query, long offset, int limit, LongPredicate filter) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(NoteTokenizer.tokenize(query)));
+        if (terms.isEmpty()) {
+            return SearchResult.EMPTY;
+        }
+        lock.readLock().lock();
+        try {
+            List<List<PostingList>> clauses = new ArrayList<>(terms.size());
+            for (int i = 0; i < terms.size(); i++) {
+                boolean last = i == terms.size() - 1;
+                List<PostingList> clause = last ? expandPrefix(terms.get(i)) : exactMatch(terms.get(i));
+                if (clause.isEmpty()) {
+                    return SearchResult.EMPTY;
+                }
+                clauses.add(clause);
+            }
+            clauses.sort(Comparator.comparingInt(InvertedIndex::clauseSize));
+            List<ScoredDoc> hits = collectHits(clauses, filter);
+            hits.sort(ScoredDoc.BEST_FIRST);
+            int from = (int) Math.min(offset, hits.size());
+            int to = (int) Math.min((long) from + limit, hits.size());
+            List<Long> docIds = new ArrayList<>(to - from);
+            for (ScoredDoc hit : hits.subList(from, to)) {
+                docIds.add(hit.docId);
+            }
+            return new SearchResult(hits.size(), docIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<PostingList> exactMatch(String term) {
+        PostingList postings = dictionary.get(term);
+        return postings == null ? Collections.emptyList() : Collections.singletonList(postings);
+    }
+
+    private List<PostingList> expandPrefix(String prefix) {
+        Collection<PostingList> matches = dictionary.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+        List<PostingList> clause = new ArrayList<>(Math.min(matches.size(), MAX_PREFIX_EXPANSIONS));
+        PostingList exact = dictionary.get(prefix);
+        if (exact != null) {
+            clause.add(exact);
+        }
+        for (PostingList postings : matches) {
+            if (clause.size() >= MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            if (postings != exact) {
+                clause.add(postings);
+            }
+        }
+        return clause;
+    }
+
+    private static int clauseSize(List<PostingList> clause) {
+        int size = 0;
+        for (PostingList postings : clause) {
+            size += postings.size();
+        }
+        return size;
+    }
+
+    /**
+     * Drives the intersection from the most selective clause and probes the others by binary search.
+     */
+    private List<ScoredDoc> collectHits(List<List<PostingList>> clauses, LongPredicate filter) {
+        double documentCount = documentLengths.size();
+        double averageLength = documentCount == 0 ? 1 : totalLength / documentCount;
+        Map<Long, ScoredDoc> candidates = new HashMap<>();
+        for (PostingList postings : clauses.get(0)) {
+            for (int i = 0; i < postings.size(); i++) {
+                long docId = postings.docIdAt(i);
+                if (filter.test(docId)) {
+                    candidates.computeIfAbsent(docId, ScoredDoc::new);
+                }
+            }
+        }
+        List<ScoredDoc> hits = new ArrayList<>(candidates.size());
+        for (ScoredDoc candidate : candidates.values()) {
+            double documentLength = documentLengths.get(candidate.docId);
+            boolean matchesAll = true;
+            for (List<PostingList> clause : clauses) {
+                boolean matchesClause = false;
+                for (PostingList postings : clause) {
+                    int frequency = postings.frequency(candidate.docId);
+                    if (frequency > 0) {
+                        matchesClause = true;
+                        candidate.score += bm25(frequency, postings.size(), documentCount, documentLength, averageLength);
+                    }
+                }
+                if (!matchesClause) {
+                    matchesAll = false;
+                    break;
+                }
+            }
+            if (matchesAll) {
+                hits.add(candidate);
+            }
+        }
+        return hits;
+    }
+
+    static double bm25(int frequency, int documentFrequency, double documentCount, double documentLength, double averageLength) {
+        double idf = Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        double norm = BM25_K1 * (1 - BM25_B + BM25_B * documentLength / averageLength);
+        return idf * (frequency * (BM25_K1 + 1)) / (frequency + norm);
+    }
+
+    private void removeInternal(long docId) {
+        String[] terms = documentTerms.remove(docId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            PostingList postings = dictionary.get(term);
+            if (postings != null) {
+                postings.remove(docId);
+                if (postings.isEmpty()) {
+                    dictionary.remove(term);
+                }
+            }
+        }
+        Integer length = documentLengths.remove(docId);
+        if (length != null) {
+            totalLength -= length;
+        }
+    }
+
+    private static final class ScoredDoc {
+
+        static final Comparator<ScoredDoc> BEST_FIRST = Comparator
+            .comparingDouble((ScoredDoc hit) -> hit.score)
+            .reversed()
+            .thenComparing(Comparator.comparingLong((ScoredDoc hit) -> hit.docId).reversed());
+
+        private final long docId;
+
+        private double score;
+
+        ScoredDoc(long docId) {
+            this.docId = docId;
+        }
+    }
+}
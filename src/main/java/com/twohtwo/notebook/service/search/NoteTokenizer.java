@@ -0,0 +1,58 @@
+package com.twohtwo.notebook.service.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits note text into normalized search terms.
+ * <p>
+ * A term is a maximal run of letters or digits, lower-cased with {@link Locale#ROOT}.
+ * Terms shorter than {@link #MIN_TERM_LENGTH} or longer than {@link #MAX_TERM_LENGTH} are dropped.
+ */
+public final class NoteTokenizer {
+
+    public static final int MIN_TERM_LENGTH = 2;
+
+    public static final int MAX_TERM_LENGTH = 64;
+
+    private NoteTokenizer() {}
+
+    /**
+     * Tokenizes the given text.
+     *
+     * @param text the text to tokenize, may be {@code null}.
+     * @return the terms in order of appearance, duplicates included.
+     */
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> terms = new ArrayList<>();
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i < length; ) {
+            int codePoint = text.codePointAt(i);
+            boolean wordChar = Character.isLetterOrDigit(codePoint);
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                addTerm(terms, text, start, i);
+                start = -1;
+            }
+            i += Character.charCount(codePoint);
+        }
+        if (start >= 0) {
+            addTerm(terms, text, start, length);
+        }
+        return terms;
+    }
+
+    private static void addTerm(List<String> terms, String text, int start, int end) {
+        int termLength = end - start;
+        if (termLength >= MIN_TERM_LENGTH && termLength <= MAX_TERM_LENGTH) {
+            terms.add(text.substring(start, end).toLowerCase(Locale.ROOT));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.twohtwo.notebook.service.search;
+
+import java.util.Arrays;
+
+/**
+ * Posting list of a single term: document ids kept sorted in ascending order, each with its term frequency.
+ * <p>
+ * Not thread-safe, guarded by the owning {@link InvertedIndex}.
+ */
+class PostingList {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private long[] docIds = new long[INITIAL_CAPACITY];
+
+    private int[] frequencies = new int[INITIAL_CAPACITY];
+
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    long docIdAt(int index) {
+        return docIds[index];
+    }
+
+    int frequencyAt(int index) {
+        return frequencies[index];
+    }
+
+    /**
+     * Finds the position of a document in this list.
+     *
+     * @param docId the document id.
+     * @return the index of the document, or {@code -(insertion point) - 1} if absent.
+     */
+    int indexOf(long docId) {
+        return Arrays.binarySearch(docIds, 0, size, docId);
+    }
+
+    int frequency(long docId) {
+        int index = indexOf(docId);
+        return index >= 0 ? frequencies[index] : 0;
+    }
+
+    void put(long docId, int frequency) {
+        int index = indexOf(docId);
+        if (index >= 0) {
+            frequencies[index] = frequency;
+            return;
+        }
+        int insertAt = -index - 1;
+        if (size == docIds.length) {
+            int capacity = docIds.length + (docIds.length >> 1) + 1;
+            docIds = Arrays.copyOf(docIds, capacity);
+            frequencies = Arrays.copyOf(frequencies, capacity);
+        }
+        System.arraycopy(docIds, insertAt, docIds, insertAt + 1, size - insertAt);
+        System.arraycopy(frequencies, insertAt, frequencies, insertAt + 1, size - insertAt);
+        docIds[insertAt] = docId;
+        frequencies[insertAt] = frequency;
+        size++;
+    }
+
+    void remove(long docId) {
+        int index = indexOf(docId);
+        if (index < 0) {
+            return;
+        }
+        System.arraycopy(docIds, index + 1, docIds, index, size - index - 1);
+        System.arraycopy(frequencies, index + 1, frequencies, index, size - index - 1);
+        size--;
+    }
+}
@@ -0,0 +1,35 @@
+package com.twohtwo.notebook.service.search;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A slice of ranked hits returned by {@link InvertedIndex#search(String, long, int)}.
+ */
+public final class SearchResult {
+
+    static final SearchResult EMPTY = new SearchResult(0, Collections.emptyList());
+
+    private final long total;
+
+    private final List<Long> docIds;
+
+    SearchResult(long total, List<Long> docIds) {
+        this.total = total;
+        this.docIds = Collections.unmodifiableList(docIds);
+    }
+
+    /**
+     * @return the total number of matching documents.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @return the ids of the hits in this slice, best first.
+     */
+    public List<Long> getDocIds() {
+        return docIds;
+    }
+}
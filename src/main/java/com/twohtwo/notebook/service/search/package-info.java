@@ -0,0 +1,4 @@
+/**
+ * In-process full-text search over notes.
+ */
+package com.twohtwo.notebook.service.search;
@@ -0,0 +1,144 @@
+package com.twohtwo.notebook.service.sync;
+
+import com.twohtwo.notebook.domain.SyncChange;
+import com.twohtwo.notebook.domain.SyncChange.EntityType;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TimeZone;
+
+/**
+ * The entities changed by a transaction and not written to the {@link SyncChange} log yet. An entity changed several
+ * times is written once, with its last change.
+ * <p>
+ * Not thread-safe: used by the thread of the transaction only.
+ */
+public class PendingChanges {
+
+    private final Map<Key, Boolean> deletedByEntity = new LinkedHashMap<>();
+
+    /**
+     * @param entityType the type of the changed entity.
+     * @param entityId the id of the changed entity.
+     * @param deleted whether the entity was deleted, rather than created or updated.
+     */
+    public void add(EntityType entityType, long entityId, boolean deleted) {
+        Key key = new Key(entityType, entityId);
+        // moves the entity after the ones changed since its previous change
+        deletedByEntity.remove(key);
+        deletedByEntity.put(key, deleted);
+    }
+
+    /**
+     * Records that an entity may have changed for some clients, such as a note shared with or revoked from a user,
+     * unless the transaction deleted it.
+     *
+     * @param entityType the type of the entity.
+     * @param entityId the id of the entity.
+     */
+    public void touch(EntityType entityType, long entityId) {
+        if (!Boolean.TRUE.equals(deletedByEntity.get(new Key(entityType, entityId)))) {
+            add(entityType, entityId, false);
+        }
+    }
+
+    public boolean isEmpty() {
+        return deletedByEntity.isEmpty();
+    }
+
+    public int size() {
+        return deletedByEntity.size();
+    }
+
+    /**
+     * Writes the changes to the log, replacing the previous changes of the same entities, and forgets them.
+     * <p>
+     * The changes take the next numbers of the {@code sync_sequence} counter. Incrementing it locks its row until the
+     * end of the transaction, so that concurrent transactions take their numbers in the order they commit, and a
+     * client never misses a change committed after it synced past its number. To hold the lock for the commit only,
+     * the changes are written right before the transaction commits, once the session is flushed.
+     *
+     * @param connection the connection of the transaction.
+     * @param now the date of the changes.
+     * @throws SQLException if the log cannot be written.
+     */
+    public void write(Connection connection, Instant now) throws SQLException {
+        if (isEmpty()) {
+            return;
+        }
+        long seq;
+        try (
+            PreparedStatement increment = connection.prepareStatement("update sync_sequence set last_seq = last_seq + ? where id = 1");
+            PreparedStatement select = connection.prepareStatement("select last_seq from sync_sequence where id = 1")
+        ) {
+            increment.setLong(1, deletedByEntity.size());
+            if (increment.executeUpdate() != 1) {
+                throw new SQLException("The sync_sequence counter is missing");
+            }
+            try (ResultSet row = select.executeQuery()) {
+                row.next();
+                seq = row.getLong(1) - deletedByEntity.size();
+            }
+        }
+        Timestamp changedDate = Timestamp.from(now);
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        try (
+            PreparedStatement delete = connection.prepareStatement("delete from sync_change where entity_type = ? and entity_id = ?");
+            PreparedStatement insert = connection.prepareStatement(
+                "insert into sync_change (seq, entity_type, entity_id, deleted, changed_date) values (?, ?, ?, ?, ?)"
+            )
+        ) {
+            for (Map.Entry<Key, Boolean> change : deletedByEntity.entrySet()) {
+                Key key = change.getKey();
+                delete.setString(1, key.entityType.name());
+                delete.setLong(2, key.entityId);
+                delete.addBatch();
+                insert.setLong(1, ++seq);
+                insert.setString(2, key.entityType.name());
+                insert.setLong(3, key.entityId);
+                insert.setBoolean(4, change.getValue());
+                insert.setTimestamp(5, changedDate, utc);
+                insert.addBatch();
+            }
+            delete.executeBatch();
+            insert.executeBatch();
+        }
+        deletedByEntity.clear();
+    }
+
+    private static final class Key {
+
+        private final EntityType entityType;
+
+        private final long entityId;
+
+        private Key(EntityType entityType, long entityId) {
+            this.entityType = entityType;
+            this.entityId = entityId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return entityId == key.entityId && entityType == key.entityType;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(entityType, entityId);
+        }
+    }
+}
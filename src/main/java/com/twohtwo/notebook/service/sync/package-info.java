@@ -0,0 +1,4 @@
+/**
+ * Change log of the sync API.
+ */
+package com.twohtwo.notebook.service.sync;
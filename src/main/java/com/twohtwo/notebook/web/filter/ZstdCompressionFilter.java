@@ -0,0 +1,307 @@
+package com.twohtwo.notebook.web.filter;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import com.twohtwo.notebook.config.ApplicationProperties;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Enumeration;
+import java.util.List;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Compresses the responses with zstd for the clients sending {@code Accept-Encoding: zstd}.
+ * <p>
+ * zstd reaches the ratio of gzip on JSON for a fraction of its CPU time. Only the responses whose content type is one
+ * of {@code application.compression.mime-types} are compressed; the others, and the requests of the clients that do not
+ * accept zstd, are left to {@code server.compression}, which does not encode a response twice.
+ */
+@Component
+@ConditionalOnProperty(prefix = "application.compression", name = "zstd-enabled", havingValue = "true")
+public class ZstdCompressionFilter extends OncePerRequestFilter {
+
+    static final String ZSTD = "zstd";
+
+    private final int level;
+
+    private final List<MediaType> mimeTypes;
+
+    private final long minResponseSize;
+
+    public ZstdCompressionFilter(ApplicationProperties applicationProperties) {
+        ApplicationProperties.Compression compression = applicationProperties.getCompression();
+        this.level = compression.getZstdLevel();
+        this.mimeTypes = MediaType.parseMediaTypes(compression.getMimeTypes());
+        this.minResponseSize = compression.getMinResponseSize();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        if (!acceptsZstd(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        ZstdResponseWrapper wrapper = new ZstdResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, wrapper);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // such as a StreamingResponseBody, still writing to the wrapper
+                request.getAsyncContext().addListener(new FinishingListener(wrapper));
+            } else {
+                wrapper.finish();
+            }
+        }
+    }
+
+    static boolean acceptsZstd(HttpServletRequest request) {
+        Enumeration<String> headers = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+        while (headers != null && headers.hasMoreElements()) {
+            for (String coding : headers.nextElement().split(",")) {
+                String[] parameters = coding.split(";");
+                if (parameters[0].trim().equalsIgnoreCase(ZSTD)) {
+                    return parameters.length == 1 || !parameters[1].trim().matches("q=0(\\.0{0,3})?");
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Decides whether to compress on the first write, once the content type and length are known.
+     */
+    private final class ZstdResponseWrapper extends HttpServletResponseWrapper {
+
+        private long contentLength = -1;
+
+        private Boolean compressed;
+
+        private OutputStream target;
+
+        private ServletOutputStream outputStream;
+
+        private PrintWriter writer;
+
+        private boolean finished;
+
+        private ZstdResponseWrapper(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            if (outputStream == null) {
+                outputStream = new CompressingOutputStream();
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (outputStream != null) {
+                throw new IllegalStateException("getOutputStream() has already been called");
+            }
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(new CompressingOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            setContentLengthLong(len);
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            if (compressed == null) {
+                contentLength = len;
+            } else if (!compressed) {
+                super.setContentLengthLong(len);
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(value);
+            } else {
+                super.setIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addIntHeader(String name, int value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(value);
+            } else {
+                super.addIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (target != null) {
+                target.flush();
+            }
+            super.flushBuffer();
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            if (compressed == null) {
+                contentLength = -1;
+            }
+        }
+
+        private OutputStream target() throws IOException {
+            if (target == null) {
+                compressed = isCompressible();
+                if (compressed) {
+                    super.setHeader(HttpHeaders.CONTENT_ENCODING, ZSTD);
+                    super.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                    target = new ZstdOutputStream(getResponse().getOutputStream(), level);
+                } else {
+                    if (contentLength >= 0) {
+                        super.setContentLengthLong(contentLength);
+                    }
+                    target = getResponse().getOutputStream();
+                }
+            }
+            return target;
+        }
+
+        private boolean isCompressible() {
+            if (containsHeader(HttpHeaders.CONTENT_ENCODING) || (contentLength >= 0 && contentLength < minResponseSize)) {
+                return false;
+            }
+            if (getContentType() == null) {
+                return false;
+            }
+            try {
+                MediaType contentType = MediaType.parseMediaType(getContentType());
+                return mimeTypes.stream().anyMatch(mimeType -> mimeType.includes(contentType));
+            } catch (InvalidMediaTypeException e) {
+                return false;
+            }
+        }
+
+        private void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (writer != null) {
+                writer.flush();
+            }
+            if (target == null) {
+                // no body, such as a 304 (Not Modified)
+                if (contentLength >= 0) {
+                    super.setContentLengthLong(contentLength);
+                }
+            } else if (compressed) {
+                // writes the end of the zstd frame
+                target.close();
+            }
+        }
+
+        private final class CompressingOutputStream extends ServletOutputStream {
+
+            @Override
+            public void write(int b) throws IOException {
+                target().write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                target().write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (target != null) {
+                    target.flush();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                finish();
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                throw new UnsupportedOperationException("Non-blocking writes are not supported with zstd compression");
+            }
+        }
+    }
+
+    private static final class FinishingListener implements AsyncListener {
+
+        private final ZstdResponseWrapper wrapper;
+
+        private FinishingListener(ZstdResponseWrapper wrapper) {
+            this.wrapper = wrapper;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) throws IOException {
+            wrapper.finish();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {}
+
+        @Override
+        public void onError(AsyncEvent event) {}
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {}
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Servlet filters.
+ */
+package com.twohtwo.notebook.web.filter;
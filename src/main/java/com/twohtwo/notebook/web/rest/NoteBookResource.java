@@ -2,22 +2,37 @@ package com.twohtwo.notebook.web.rest;
 
 import com.twohtwo.notebook.domain.NoteBook;
 import com.twohtwo.notebook.repository.NoteBookRepository;
+import com.twohtwo.notebook.service.EntityChangedEvent;
+import com.twohtwo.notebook.service.NdjsonExportService;
 import com.twohtwo.notebook.web.rest.errors.BadRequestAlertException;
+import com.twohtwo.notebook.web.rest.util.ETagUtil;
+import com.twohtwo.notebook.web.rest.util.HttpResponseCache;
+import com.twohtwo.notebook.web.rest.util.KeysetCursor;
+import com.twohtwo.notebook.web.rest.util.KeysetPaginationUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
-import tech.jhipster.web.util.ResponseUtil;
+import tech.jhipster.web.util.PaginationUtil;
 
 /**
  * REST controller for managing {@link com.twohtwo.notebook.domain.NoteBook}.
@@ -36,8 +51,22 @@ public class NoteBookResource {
 
     private final NoteBookRepository noteBookRepository;
 
-    public NoteBookResource(NoteBookRepository noteBookRepository) {
+    private final NdjsonExportService ndjsonExportService;
+
+    private final HttpResponseCache httpResponseCache;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public NoteBookResource(
+        NoteBookRepository noteBookRepository,
+        NdjsonExportService ndjsonExportService,
+        HttpResponseCache httpResponseCache,
+        ApplicationEventPublisher eventPublisher
+    ) {
         this.noteBookRepository = noteBookRepository;
+        this.ndjsonExportService = ndjsonExportService;
+        this.httpResponseCache = httpResponseCache;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -54,6 +83,7 @@ public class NoteBookResource {
             throw new BadRequestAlertException("A new noteBook cannot already have an ID", ENTITY_NAME, "idexists");
         }
         NoteBook result = noteBookRepository.save(noteBook);
+        eventPublisher.publishEvent(new EntityChangedEvent(NoteBook.class, result.getId()));
         return ResponseEntity
             .created(new URI("/api/note-books/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
@@ -62,17 +92,24 @@ public class NoteBookResource {
 
     /**
      * {@code PUT  /note-books/:id} : Updates an existing noteBook.
+     * <p>
+     * The update is made against the version given by the {@code If-Match} header, or else by the noteBook itself. Without
+     * either, the noteBook overwrites the current one.
      *
      * @param id the id of the noteBook to save.
+     * @param ifMatch the {@code ETag} of the version the update was made on.
      * @param noteBook the noteBook to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated noteBook,
      * or with status {@code 400 (Bad Request)} if the noteBook is not valid,
+     * or with status {@code 409 (Conflict)} if the version of the noteBook is not the current one,
+     * or with status {@code 412 (Precondition Failed)} if the {@code If-Match} header does not match the current version,
      * or with status {@code 500 (Internal Server Error)} if the noteBook couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/note-books/{id}")
     public ResponseEntity<NoteBook> updateNoteBook(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @Valid @RequestBody NoteBook noteBook
     ) throws URISyntaxException {
         log.debug("REST request to update NoteBook : {}, {}", id, noteBook);
@@ -83,31 +120,44 @@ public class NoteBookResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!noteBookRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
+        // loads the noteBook in the persistence context, so that save merges into it without selecting it again
+        NoteBook existingNoteBook = noteBookRepository
+            .findById(id)
+            .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
+        if (!ETagUtil.matches(ifMatch, existingNoteBook.getVersion())) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).eTag(ETagUtil.eTag(existingNoteBook.getVersion())).build();
+        }
+        if (ifMatch != null || noteBook.getVersion() == null) {
+            noteBook.setVersion(existingNoteBook.getVersion());
         }
 
-        NoteBook result = noteBookRepository.save(noteBook);
+        NoteBook result = noteBookRepository.saveAndFlush(noteBook);
+        eventPublisher.publishEvent(new EntityChangedEvent(NoteBook.class, id));
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, noteBook.getId().toString()))
+            .eTag(ETagUtil.eTag(result.getVersion()))
             .body(result);
     }
 
     /**
      * {@code PATCH  /note-books/:id} : Partial updates given fields of an existing noteBook, field will ignore if it is null
+     * <p>
+     * The update is made against the version given by the {@code If-Match} header, if any.
      *
      * @param id the id of the noteBook to save.
+     * @param ifMatch the {@code ETag} of the version the update was made on.
      * @param noteBook the noteBook to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated noteBook,
-     * or with status {@code 400 (Bad Request)} if the noteBook is not valid,
-     * or with status {@code 404 (Not Found)} if the noteBook is not found,
+     * or with status {@code 400 (Bad Request)} if the noteBook is not valid or not found,
+     * or with status {@code 412 (Precondition Failed)} if the {@code If-Match} header does not match the current version,
      * or with status {@code 500 (Internal Server Error)} if the noteBook couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/note-books/{id}", consumes = { "application/json", "application/merge-patch+json" })
     public ResponseEntity<NoteBook> partialUpdateNoteBook(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @NotNull @RequestBody NoteBook noteBook
     ) throws URISyntaxException {
         log.debug("REST request to partial update NoteBook partially : {}, {}", id, noteBook);
@@ -118,57 +168,139 @@ public class NoteBookResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!noteBookRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
+        NoteBook existingNoteBook = noteBookRepository
+            .findById(id)
+            .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
+        if (!ETagUtil.matches(ifMatch, existingNoteBook.getVersion())) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).eTag(ETagUtil.eTag(existingNoteBook.getVersion())).build();
+        }
+        if (noteBook.getName() != null) {
+            existingNoteBook.setName(noteBook.getName());
+        }
+        if (noteBook.getHandle() != null) {
+            existingNoteBook.setHandle(noteBook.getHandle());
         }
 
-        Optional<NoteBook> result = noteBookRepository
-            .findById(noteBook.getId())
-            .map(existingNoteBook -> {
-                if (noteBook.getName() != null) {
-                    existingNoteBook.setName(noteBook.getName());
-                }
-                if (noteBook.getHandle() != null) {
-                    existingNoteBook.setHandle(noteBook.getHandle());
-                }
-
-                return existingNoteBook;
-            })
-            .map(noteBookRepository::save);
-
-        return ResponseUtil.wrapOrNotFound(
-            result,
-            HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, noteBook.getId().toString())
-        );
+        NoteBook result = noteBookRepository.saveAndFlush(existingNoteBook);
+        eventPublisher.publishEvent(new EntityChangedEvent(NoteBook.class, id));
+        return ResponseEntity
+            .ok()
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, noteBook.getId().toString()))
+            .eTag(ETagUtil.eTag(result.getVersion()))
+            .body(result);
     }
 
     /**
      * {@code GET  /note-books} : get all the noteBooks.
+     * <p>
+     * Without paging parameters, every noteBook is returned in one response. With {@code page} or {@code size}, a page
+     * is returned with the usual pagination headers. With {@code cursor}, noteBooks are listed in id order with keyset
+     * pagination: no count query is issued and the next page is given by the {@code X-Next-Cursor} header. Send an
+     * empty {@code cursor} to get the first page.
      *
+     * @param pageable the pagination information.
+     * @param page the requested page, switches to offset pagination.
+     * @param size the requested page size, switches to offset pagination.
+     * @param cursor the opaque cursor returned with the previous page, for keyset pagination.
      * @param eagerload flag to eager load entities from relationships (This is applicable for many-to-many).
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of noteBooks in body.
      */
     @GetMapping("/note-books")
-    public List<NoteBook> getAllNoteBooks(@RequestParam(required = false, defaultValue = "false") boolean eagerload) {
+    public ResponseEntity<List<NoteBook>> getAllNoteBooks(
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable,
+        @RequestParam(required = false) Integer page,
+        @RequestParam(required = false) Integer size,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false, defaultValue = "false") boolean eagerload
+    ) {
+        if (cursor != null) {
+            return getAllNoteBooksByCursor(cursor, pageable.getPageSize());
+        }
+        if (page != null || size != null) {
+            log.debug("REST request to get a page of NoteBooks");
+            Page<NoteBook> result = eagerload ? noteBookRepository.findAllWithEagerRelationships(pageable) : noteBookRepository.findAll(pageable);
+            HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), result);
+            return ResponseEntity.ok().headers(headers).body(result.getContent());
+        }
         log.debug("REST request to get all NoteBooks");
         if (eagerload) {
-            return noteBookRepository.findAllWithEagerRelationships();
+            return ResponseEntity.ok(noteBookRepository.findAllWithEagerRelationships());
         } else {
-            return noteBookRepository.findAll();
+            return ResponseEntity.ok(noteBookRepository.findAll());
         }
     }
 
+    private ResponseEntity<List<NoteBook>> getAllNoteBooksByCursor(String cursor, int size) {
+        log.debug("REST request to get a keyset page of NoteBooks after : {}", cursor);
+        long afterId;
+        try {
+            afterId = KeysetCursor.decode(cursor).map(KeysetCursor::getId).orElse(Long.MIN_VALUE);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+        }
+        Slice<NoteBook> slice = noteBookRepository.findKeysetPageAfter(afterId, PageRequest.of(0, size));
+        KeysetCursor next = null;
+        if (slice.hasNext()) {
+            next = KeysetCursor.of(slice.getContent().get(slice.getNumberOfElements() - 1).getId());
+        }
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), next);
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * {@code GET  /note-books} : stream all the noteBooks as newline-delimited JSON, in id order.
+     * <p>
+     * Rows are serialized as they are read from a database cursor, so memory use does not depend on the table size.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and one noteBook per line in body.
+     */
+    @GetMapping(value = "/note-books", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllNoteBooks() {
+        log.debug("REST request to stream all NoteBooks");
+        StreamingResponseBody body = out -> ndjsonExportService.export(noteBookRepository::streamAllWithToOneRelationships, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * {@code GET  /note-books/mine} : get all the noteBooks of the current user.
+     * <p>
+     * Served from the Hibernate query cache until a noteBook or a user changes.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of noteBooks in body.
+     */
+    @GetMapping("/note-books/mine")
+    public ResponseEntity<List<NoteBook>> getCurrentUserNoteBooks() {
+        log.debug("REST request to get the NoteBooks of the current user");
+        return ResponseEntity.ok(noteBookRepository.findByUserIsCurrentUser());
+    }
+
     /**
      * {@code GET  /note-books/:id} : get the "id" noteBook.
+     * <p>
+     * Responses are served from the {@link HttpResponseCache} until the noteBook or a user changes.
      *
      * @param id the id of the noteBook to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the noteBook, or with status {@code 404 (Not Found)}.
+     * @param ifNoneMatch the {@code ETag} of the version the client already has.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the noteBook,
+     * or with status {@code 304 (Not Modified)} and no body if the {@code If-None-Match} header matches the current version,
+     * or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/note-books/{id}")
-    public ResponseEntity<NoteBook> getNoteBook(@PathVariable Long id) {
+    public ResponseEntity<NoteBook> getNoteBook(
+        @PathVariable Long id,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
         log.debug("REST request to get NoteBook : {}", id);
-        Optional<NoteBook> noteBook = noteBookRepository.findOneWithEagerRelationships(id);
-        return ResponseUtil.wrapOrNotFound(noteBook);
+        return httpResponseCache.get(
+            HttpResponseCache.NOTE_BOOKS_CACHE,
+            id,
+            ifNoneMatch,
+            () ->
+                noteBookRepository
+                    .findOneWithEagerRelationships(id)
+                    .map(noteBook -> ResponseEntity.ok().eTag(ETagUtil.eTag(noteBook.getVersion())).body(noteBook))
+                    .orElseGet(() -> ResponseEntity.notFound().build())
+        );
     }
 
     /**
@@ -181,6 +313,7 @@ public class NoteBookResource {
     public ResponseEntity<Void> deleteNoteBook(@PathVariable Long id) {
         log.debug("REST request to delete NoteBook : {}", id);
         noteBookRepository.deleteById(id);
+        eventPublisher.publishEvent(new EntityChangedEvent(NoteBook.class, id));
         return ResponseEntity
             .noContent()
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id.toString()))
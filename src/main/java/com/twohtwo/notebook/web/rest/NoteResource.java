@@ -1,25 +1,50 @@
 package com.twohtwo.notebook.web.rest;
 
 import com.twohtwo.notebook.domain.Note;
+import com.twohtwo.notebook.domain.NoteRevision;
 import com.twohtwo.notebook.repository.NoteRepository;
+import com.twohtwo.notebook.repository.NoteSummary;
+import com.twohtwo.notebook.service.AutosaveConflictException;
+import com.twohtwo.notebook.service.BulkImportException;
+import com.twohtwo.notebook.service.NoteAccessService;
+import com.twohtwo.notebook.service.NoteAutosaveService;
+import com.twohtwo.notebook.service.NoteBulkService;
+import com.twohtwo.notebook.service.NoteRevisionService;
+import com.twohtwo.notebook.service.NoteSearchService;
+import com.twohtwo.notebook.service.ShareInboxService;
+import com.twohtwo.notebook.service.UserService;
+import com.twohtwo.notebook.service.dto.NoteAutosaveDTO;
+import com.twohtwo.notebook.service.dto.NoteDraftDTO;
+import com.twohtwo.notebook.service.dto.NoteRevisionDTO;
 import com.twohtwo.notebook.web.rest.errors.BadRequestAlertException;
+import com.twohtwo.notebook.web.rest.util.ETagUtil;
+import com.twohtwo.notebook.web.rest.util.KeysetCursor;
+import com.twohtwo.notebook.web.rest.util.KeysetPaginationUtil;
+import com.twohtwo.notebook.web.rest.vm.BulkImportVM;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.LongPredicate;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
@@ -27,6 +52,9 @@ import tech.jhipster.web.util.ResponseUtil;
 
 /**
  * REST controller for managing {@link com.twohtwo.notebook.domain.Note}.
+ * <p>
+ * Notes are read and written in JSON, or in Smile with {@code application/x-jackson-smile}, which is more compact for
+ * the large note lists. Reads only return the notes readable by the current user, see {@link NoteAccessService}.
  */
 @RestController
 @RequestMapping("/api")
@@ -42,8 +70,38 @@ public class NoteResource {
 
     private final NoteRepository noteRepository;
 
-    public NoteResource(NoteRepository noteRepository) {
+    private final NoteSearchService noteSearchService;
+
+    private final NoteBulkService noteBulkService;
+
+    private final NoteAutosaveService noteAutosaveService;
+
+    private final ShareInboxService shareInboxService;
+
+    private final NoteAccessService noteAccessService;
+
+    private final NoteRevisionService noteRevisionService;
+
+    private final UserService userService;
+
+    public NoteResource(
+        NoteRepository noteRepository,
+        NoteSearchService noteSearchService,
+        NoteBulkService noteBulkService,
+        NoteAutosaveService noteAutosaveService,
+        ShareInboxService shareInboxService,
+        NoteAccessService noteAccessService,
+        NoteRevisionService noteRevisionService,
+        UserService userService
+    ) {
         this.noteRepository = noteRepository;
+        this.noteSearchService = noteSearchService;
+        this.noteBulkService = noteBulkService;
+        this.noteAutosaveService = noteAutosaveService;
+        this.shareInboxService = shareInboxService;
+        this.noteAccessService = noteAccessService;
+        this.noteRevisionService = noteRevisionService;
+        this.userService = userService;
     }
 
     /**
@@ -60,25 +118,60 @@ public class NoteResource {
             throw new BadRequestAlertException("A new note cannot already have an ID", ENTITY_NAME, "idexists");
         }
         Note result = noteRepository.save(note);
+        noteSearchService.index(result);
+        noteRevisionService.record(result, null, null);
         return ResponseEntity
             .created(new URI("/api/notes/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
             .body(result);
     }
 
+    /**
+     * {@code POST  /notes/bulk} : Create new notes in bulk, from newline-delimited JSON.
+     * <p>
+     * The import is atomic: if any line is not a valid new note, nothing is imported.
+     *
+     * @param body the notes to create, one JSON document per line.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the import report, or with status {@code 400 (Bad Request)} if a line is invalid.
+     * @throws IOException if the request body cannot be read.
+     */
+    @PostMapping(value = "/notes/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BulkImportVM> importNotes(InputStream body) throws IOException {
+        log.debug("REST request to import Notes in bulk");
+        long start = System.currentTimeMillis();
+        long count;
+        try {
+            count = noteBulkService.importNotes(body);
+        } catch (BulkImportException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "bulkinvalid");
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(new BulkImportVM(count, System.currentTimeMillis() - start));
+    }
+
     /**
      * {@code PUT  /notes/:id} : Updates an existing note.
      *
+     * <p>
+     * The update is made against the version given by the {@code If-Match} header, or else by the note itself. Without
+     * either, the note overwrites the current one.
+     *
      * @param id the id of the note to save.
+     * @param ifMatch the {@code ETag} of the version the update was made on.
      * @param note the note to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated note,
      * or with status {@code 400 (Bad Request)} if the note is not valid,
+     * or with status {@code 404 (Not Found)} if the current user cannot write the note,
+     * or with status {@code 409 (Conflict)} if the version of the note is not the current one,
+     * or with status {@code 412 (Precondition Failed)} if the {@code If-Match} header does not match the current version,
      * or with status {@code 500 (Internal Server Error)} if the note couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/notes/{id}")
-    public ResponseEntity<Note> updateNote(@PathVariable(value = "id", required = false) final Long id, @Valid @RequestBody Note note)
-        throws URISyntaxException {
+    public ResponseEntity<Note> updateNote(
+        @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+        @Valid @RequestBody Note note
+    ) throws URISyntaxException {
         log.debug("REST request to update Note : {}, {}", id, note);
         if (note.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
@@ -87,31 +180,56 @@ public class NoteResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!noteRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
+        // loads the note in the persistence context, so that save merges into it without selecting it again
+        Note existingNote = noteRepository
+            .findById(id)
+            .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
+        if (!noteAccessService.canWrite(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!ETagUtil.matches(ifMatch, existingNote.getVersion())) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).eTag(ETagUtil.eTag(existingNote.getVersion())).build();
         }
+        if (ifMatch != null || note.getVersion() == null) {
+            note.setVersion(existingNote.getVersion());
+        }
+        String previousTitle = existingNote.getTitle();
+        String previousContent = existingNote.getContent();
 
-        Note result = noteRepository.save(note);
+        Note result = noteRepository.saveAndFlush(note);
+        noteSearchService.index(result);
+        noteRevisionService.record(result, previousTitle, previousContent);
+        noteAutosaveService.discard(id);
+        if (!Objects.equals(previousTitle, result.getTitle())) {
+            shareInboxService.updateNoteTitle(result);
+        }
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, note.getId().toString()))
+            .eTag(ETagUtil.eTag(result.getVersion()))
             .body(result);
     }
 
     /**
      * {@code PATCH  /notes/:id} : Partial updates given fields of an existing note, field will ignore if it is null
      *
+     * <p>
+     * The update is made against the version given by the {@code If-Match} header, if any.
+     *
      * @param id the id of the note to save.
+     * @param ifMatch the {@code ETag} of the version the update was made on.
      * @param note the note to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated note,
-     * or with status {@code 400 (Bad Request)} if the note is not valid,
-     * or with status {@code 404 (Not Found)} if the note is not found,
+     * or with status {@code 400 (Bad Request)} if the note is not valid or not found,
+     * or with status {@code 404 (Not Found)} if the current user cannot write the note,
+     * or with status {@code 412 (Precondition Failed)} if the {@code If-Match} header does not match the current version,
      * or with status {@code 500 (Internal Server Error)} if the note couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/notes/{id}", consumes = { "application/json", "application/merge-patch+json" })
     public ResponseEntity<Note> partialUpdateNote(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @NotNull @RequestBody Note note
     ) throws URISyntaxException {
         log.debug("REST request to partial update Note partially : {}, {}", id, note);
@@ -122,52 +240,226 @@ public class NoteResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!noteRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
+        Note existingNote = noteRepository
+            .findById(id)
+            .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
+        if (!noteAccessService.canWrite(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!ETagUtil.matches(ifMatch, existingNote.getVersion())) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).eTag(ETagUtil.eTag(existingNote.getVersion())).build();
+        }
+        String previousTitle = existingNote.getTitle();
+        String previousContent = existingNote.getContent();
+        boolean titleChanged = note.getTitle() != null && !note.getTitle().equals(previousTitle);
+        if (note.getTitle() != null) {
+            existingNote.setTitle(note.getTitle());
+        }
+        if (note.getContent() != null) {
+            existingNote.setContent(note.getContent());
+        }
+        if (note.getDate() != null) {
+            existingNote.setDate(note.getDate());
+        }
+
+        Note result = noteRepository.saveAndFlush(existingNote);
+        noteSearchService.index(result);
+        noteRevisionService.record(result, previousTitle, previousContent);
+        if (note.getContent() != null) {
+            noteAutosaveService.discard(id);
         }
+        if (titleChanged) {
+            shareInboxService.updateNoteTitle(result);
+        }
+        return ResponseEntity
+            .ok()
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, note.getId().toString()))
+            .eTag(ETagUtil.eTag(result.getVersion()))
+            .body(result);
+    }
 
-        Optional<Note> result = noteRepository
-            .findById(note.getId())
-            .map(existingNote -> {
-                if (note.getTitle() != null) {
-                    existingNote.setTitle(note.getTitle());
-                }
-                if (note.getContent() != null) {
-                    existingNote.setContent(note.getContent());
-                }
-                if (note.getDate() != null) {
-                    existingNote.setDate(note.getDate());
-                }
+    /**
+     * {@code GET  /notes/:id/draft} : get the autosaved draft of the "id" note.
+     * <p>
+     * The draft may be ahead of the note content, which is only written every {@code application.autosave.flush-interval}.
+     *
+     * @param id the id of the note.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the revision and content of the draft, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/notes/{id}/draft")
+    public ResponseEntity<NoteDraftDTO> getNoteDraft(@PathVariable Long id) {
+        log.debug("REST request to get the draft of Note : {}", id);
+        if (!noteAccessService.canRead(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseUtil.wrapOrNotFound(noteAutosaveService.getDraft(id));
+    }
 
-                return existingNote;
-            })
-            .map(noteRepository::save);
+    /**
+     * {@code PATCH  /notes/:id/draft} : autosave changes to the content of the "id" note.
+     *
+     * @param id the id of the note.
+     * @param autosave the deltas made to the draft since its base revision.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the new revision of the draft, with its content if concurrent changes were merged,
+     * or with status {@code 400 (Bad Request)} if a delta is out of bounds,
+     * or with status {@code 404 (Not Found)} if the note is not found or the current user cannot write it,
+     * or with status {@code 409 (Conflict)} and with body the current draft if the changes cannot be merged.
+     */
+    @PatchMapping("/notes/{id}/draft")
+    public ResponseEntity<NoteDraftDTO> autosaveNote(@PathVariable Long id, @Valid @RequestBody NoteAutosaveDTO autosave) {
+        log.debug("REST request to autosave Note : {}, {}", id, autosave);
+        if (!noteAccessService.canWrite(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseUtil.wrapOrNotFound(noteAutosaveService.applyDeltas(id, autosave.getBaseRevision(), autosave.getDeltas()));
+        } catch (AutosaveConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getDraft());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "deltainvalid");
+        }
+    }
 
-        return ResponseUtil.wrapOrNotFound(
-            result,
-            HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, note.getId().toString())
-        );
+    /**
+     * {@code GET  /notes/:id/revisions} : get the revisions of the "id" note, most recent first.
+     * <p>
+     * A revision is recorded by each create, update or partial update that changes the title or the content of the
+     * note. Revisions older than {@code application.revisions.compact-after} are thinned out.
+     *
+     * @param id the id of the note.
+     * @param pageable the pagination information, its sort is ignored.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of revisions in body, without their content, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/notes/{id}/revisions")
+    public ResponseEntity<List<NoteRevision>> getNoteRevisions(
+        @PathVariable Long id,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to get a page of the revisions of Note : {}", id);
+        if (!noteAccessService.canRead(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        Page<NoteRevision> page = noteRevisionService.findAll(id, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /notes/:id/revisions/:revision} : get the "id" note as it was saved at a revision.
+     *
+     * @param id the id of the note.
+     * @param revision the revision number.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the title and content of the revision, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/notes/{id}/revisions/{revision}")
+    public ResponseEntity<NoteRevisionDTO> getNoteRevision(@PathVariable Long id, @PathVariable int revision) {
+        log.debug("REST request to get revision {} of Note : {}", revision, id);
+        if (!noteAccessService.canRead(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseUtil.wrapOrNotFound(noteRevisionService.get(id, revision));
     }
 
     /**
      * {@code GET  /notes} : get all the notes.
+     * <p>
+     * When the {@code cursor} parameter is present, the notes are listed newest first with keyset pagination:
+     * no count query is issued and the next page is given by the {@code X-Next-Cursor} header. Send an empty
+     * {@code cursor} to get the first page.
      *
      * @param pageable the pagination information.
      * @param eagerload flag to eager load entities from relationships (This is applicable for many-to-many).
+     * @param cursor the opaque cursor returned with the previous page, for keyset pagination.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of notes in body.
      */
     @GetMapping("/notes")
     public ResponseEntity<List<Note>> getAllNotes(
         @org.springdoc.api.annotations.ParameterObject Pageable pageable,
-        @RequestParam(required = false, defaultValue = "false") boolean eagerload
+        @RequestParam(required = false, defaultValue = "false") boolean eagerload,
+        @RequestParam(required = false) String cursor
     ) {
+        if (cursor != null) {
+            return getAllNotesByCursor(cursor, pageable.getPageSize());
+        }
         log.debug("REST request to get a page of Notes");
         Page<Note> page;
         if (eagerload) {
-            page = noteRepository.findAllWithEagerRelationships(pageable);
+            page = noteAccessService.filterReadable(() -> noteRepository.findAllWithEagerRelationships(pageable));
         } else {
-            page = noteRepository.findAll(pageable);
+            page = noteAccessService.filterReadable(() -> noteRepository.findAll(pageable));
+        }
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    private ResponseEntity<List<Note>> getAllNotesByCursor(String cursor, int size) {
+        log.debug("REST request to get a keyset page of Notes after : {}", cursor);
+        Optional<KeysetCursor> after;
+        try {
+            after = KeysetCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+        }
+        if (after.isPresent() && after.get().getDate() == null) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
         }
+        Pageable limit = PageRequest.of(0, size);
+        Slice<Note> slice = noteAccessService.filterReadable(() ->
+            after
+                .map(key -> noteRepository.findKeysetPageAfter(key.getDate(), key.getId(), limit))
+                .orElseGet(() -> noteRepository.findKeysetFirstPage(limit))
+        );
+        KeysetCursor next = null;
+        if (slice.hasNext()) {
+            Note last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            next = KeysetCursor.of(last.getDate(), last.getId());
+        }
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), next);
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * {@code GET  /notes} : stream all the notes as newline-delimited JSON, in id order.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the notes in body, one per line.
+     */
+    @GetMapping(value = "/notes", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllNotes() {
+        log.debug("REST request to stream all Notes");
+        // the readable notes are resolved now, as the body is written from another thread
+        LongPredicate readable = noteAccessService.readable();
+        StreamingResponseBody body = out -> noteBulkService.exportNotes(out, readable);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * {@code GET  /notes?view=summary} : get all the notes as summaries, without their content.
+     *
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of note summaries in body.
+     */
+    @GetMapping(value = "/notes", params = "view=summary")
+    public ResponseEntity<List<NoteSummary>> getAllNoteSummaries(@org.springdoc.api.annotations.ParameterObject Pageable pageable) {
+        log.debug("REST request to get a page of Note summaries");
+        Page<NoteSummary> page = noteAccessService.filterReadable(() -> noteRepository.findAllSummaries(pageable));
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /notes/timeline} : get the notes of the current user, newest first.
+     *
+     * @param pageable the pagination information, sorting is ignored.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of notes in body.
+     */
+    @GetMapping("/notes/timeline")
+    public ResponseEntity<List<Note>> getNoteTimeline(@org.springdoc.api.annotations.ParameterObject Pageable pageable) {
+        log.debug("REST request to get a page of the current user Note timeline");
+        Pageable unsorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        Page<Note> page = userService
+            .getUserWithAuthorities()
+            .map(user -> noteRepository.findTimelineByUserId(user.getId(), unsorted))
+            .orElseGet(() -> Page.empty(unsorted));
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
@@ -176,41 +468,88 @@ public class NoteResource {
      * {@code GET  /notes/:id} : get the "id" note.
      *
      * @param id the id of the note to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the note, or with status {@code 404 (Not Found)}.
+     * @param ifNoneMatch the {@code ETag} of the version the client already has.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the note,
+     * or with status {@code 304 (Not Modified)} and no body if the {@code If-None-Match} header matches the current version,
+     * or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/notes/{id}")
-    public ResponseEntity<Note> getNote(@PathVariable Long id) {
+    public ResponseEntity<Note> getNote(
+        @PathVariable Long id,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
         log.debug("REST request to get Note : {}", id);
+        if (!noteAccessService.canRead(id)) {
+            return ResponseEntity.notFound().build();
+        }
         Optional<Note> note = noteRepository.findOneWithEagerRelationships(id);
-        return ResponseUtil.wrapOrNotFound(note);
+        if (note.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        String eTag = ETagUtil.eTag(note.get().getVersion());
+        if (ETagUtil.isNotModified(ifNoneMatch, note.get().getVersion())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(note.get());
     }
 
     /**
      * {@code DELETE  /notes/:id} : delete the "id" note.
      *
      * @param id the id of the note to delete.
-     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)},
+     * or with status {@code 404 (Not Found)} if the current user cannot write the note.
      */
     @DeleteMapping("/notes/{id}")
     public ResponseEntity<Void> deleteNote(@PathVariable Long id) {
         log.debug("REST request to delete Note : {}", id);
+        if (!noteAccessService.canWrite(id)) {
+            return ResponseEntity.notFound().build();
+        }
         noteRepository.deleteById(id);
+        noteSearchService.remove(id);
+        noteAutosaveService.discard(id);
         return ResponseEntity
             .noContent()
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id.toString()))
             .build();
     }
 
+    /**
+     * {@code GET  /notes/search} : search notes by title and content.
+     *
+     * @param pageable the pagination information, hits are ranked by relevance.
+     * @param searchingFor the free-text query.
+     * @param eagerload flag to eager load entities from relationships (This is applicable for many-to-many).
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of matching notes in body.
+     */
     @GetMapping("/notes/search")
     public ResponseEntity<List<Note>> getAllNotes(
         @org.springdoc.api.annotations.ParameterObject Pageable pageable,
         @RequestParam(required = true, defaultValue = "") String searchingFor,
         @RequestParam(required = false, defaultValue = "false") boolean eagerload
     ) {
-        log.debug("REST request to get a page of Notes");
-        Page<Note> page = noteRepository.searchAllByTextBlob(searchingFor,pageable);
+        log.debug("REST request to search a page of Notes for : {}", searchingFor);
+        Page<Note> page = noteSearchService.search(searchingFor, pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code GET  /notes/search?view=summary} : search notes by title and content, returning summaries without their content.
+     *
+     * @param pageable the pagination information, hits are ranked by relevance.
+     * @param searchingFor the free-text query.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of matching note summaries in body.
+     */
+    @GetMapping(value = "/notes/search", params = "view=summary")
+    public ResponseEntity<List<NoteSummary>> searchNoteSummaries(
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable,
+        @RequestParam(required = true, defaultValue = "") String searchingFor
+    ) {
+        log.debug("REST request to search a page of Note summaries for : {}", searchingFor);
+        Page<NoteSummary> page = noteSearchService.searchSummaries(searchingFor, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
 }
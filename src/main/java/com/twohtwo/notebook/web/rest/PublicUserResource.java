@@ -2,6 +2,7 @@ package com.twohtwo.notebook.web.rest;
 
 import com.twohtwo.notebook.service.UserService;
 import com.twohtwo.notebook.service.dto.UserDTO;
+import com.twohtwo.notebook.web.rest.util.HttpResponseCache;
 import java.util.*;
 import java.util.Collections;
 import org.slf4j.Logger;
@@ -28,26 +29,46 @@ public class PublicUserResource {
 
     private final UserService userService;
 
-    public PublicUserResource(UserService userService) {
+    private final HttpResponseCache httpResponseCache;
+
+    public PublicUserResource(UserService userService, HttpResponseCache httpResponseCache) {
         this.userService = userService;
+        this.httpResponseCache = httpResponseCache;
     }
 
     /**
      * {@code GET /users} : get all users with only the public informations - calling this are allowed for anyone.
      *
+     * <p>
+     * Responses are served from the {@link HttpResponseCache} until a user changes.
+     *
      * @param pageable the pagination information.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body all users.
+     * @param ifNoneMatch the {@code ETag} of the response the client already has.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body all users,
+     * or with status {@code 304 (Not Modified)} and no body if the {@code If-None-Match} header matches the current response.
      */
     @GetMapping("/users")
-    public ResponseEntity<List<UserDTO>> getAllPublicUsers(@org.springdoc.api.annotations.ParameterObject Pageable pageable) {
+    public ResponseEntity<List<UserDTO>> getAllPublicUsers(
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
         log.debug("REST request to get all public User names");
         if (!onlyContainsAllowedProperties(pageable)) {
             return ResponseEntity.badRequest().build();
         }
 
-        final Page<UserDTO> page = userService.getAllPublicUsers(pageable);
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
-        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+        // the pagination headers hold links to the current request URL
+        String key = ServletUriComponentsBuilder.fromCurrentRequest().toUriString();
+        return httpResponseCache.get(
+            HttpResponseCache.PUBLIC_USERS_CACHE,
+            key,
+            ifNoneMatch,
+            () -> {
+                final Page<UserDTO> page = userService.getAllPublicUsers(pageable);
+                HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+                return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+            }
+        );
     }
 
     private boolean onlyContainsAllowedProperties(Pageable pageable) {
@@ -56,10 +77,18 @@ public class PublicUserResource {
 
     /**
      * Gets a list of all roles.
+     * @param ifNoneMatch the {@code ETag} of the response the client already has.
      * @return a string list of all roles.
      */
     @GetMapping("/authorities")
-    public List<String> getAuthorities() {
-        return userService.getAuthorities();
+    public ResponseEntity<List<String>> getAuthorities(
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        return httpResponseCache.get(
+            HttpResponseCache.AUTHORITIES_CACHE,
+            HttpResponseCache.AUTHORITIES_CACHE,
+            ifNoneMatch,
+            () -> ResponseEntity.ok(userService.getAuthorities())
+        );
     }
 }
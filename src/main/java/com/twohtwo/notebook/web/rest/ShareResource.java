@@ -1,8 +1,14 @@
 package com.twohtwo.notebook.web.rest;
 
 import com.twohtwo.notebook.domain.Share;
+import com.twohtwo.notebook.domain.ShareInboxEntry;
 import com.twohtwo.notebook.repository.ShareRepository;
+import com.twohtwo.notebook.service.NdjsonExportService;
+import com.twohtwo.notebook.service.ShareInboxService;
 import com.twohtwo.notebook.web.rest.errors.BadRequestAlertException;
+import com.twohtwo.notebook.web.rest.util.ETagUtil;
+import com.twohtwo.notebook.web.rest.util.KeysetCursor;
+import com.twohtwo.notebook.web.rest.util.KeysetPaginationUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
@@ -13,11 +19,20 @@ import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
-import tech.jhipster.web.util.ResponseUtil;
+import tech.jhipster.web.util.PaginationUtil;
 
 /**
  * REST controller for managing {@link com.twohtwo.notebook.domain.Share}.
@@ -36,8 +51,14 @@ public class ShareResource {
 
     private final ShareRepository shareRepository;
 
-    public ShareResource(ShareRepository shareRepository) {
+    private final NdjsonExportService ndjsonExportService;
+
+    private final ShareInboxService shareInboxService;
+
+    public ShareResource(ShareRepository shareRepository, NdjsonExportService ndjsonExportService, ShareInboxService shareInboxService) {
         this.shareRepository = shareRepository;
+        this.ndjsonExportService = ndjsonExportService;
+        this.shareInboxService = shareInboxService;
     }
 
     /**
@@ -54,6 +75,7 @@ public class ShareResource {
             throw new BadRequestAlertException("A new share cannot already have an ID", ENTITY_NAME, "idexists");
         }
         Share result = shareRepository.save(share);
+        shareInboxService.save(result);
         return ResponseEntity
             .created(new URI("/api/shares/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
@@ -62,17 +84,26 @@ public class ShareResource {
 
     /**
      * {@code PUT  /shares/:id} : Updates an existing share.
+     * <p>
+     * The update is made against the version given by the {@code If-Match} header, or else by the share itself. Without
+     * either, the share overwrites the current one.
      *
      * @param id the id of the share to save.
+     * @param ifMatch the {@code ETag} of the version the update was made on.
      * @param share the share to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated share,
      * or with status {@code 400 (Bad Request)} if the share is not valid,
+     * or with status {@code 409 (Conflict)} if the version of the share is not the current one,
+     * or with status {@code 412 (Precondition Failed)} if the {@code If-Match} header does not match the current version,
      * or with status {@code 500 (Internal Server Error)} if the share couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/shares/{id}")
-    public ResponseEntity<Share> updateShare(@PathVariable(value = "id", required = false) final Long id, @Valid @RequestBody Share share)
-        throws URISyntaxException {
+    public ResponseEntity<Share> updateShare(
+        @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+        @Valid @RequestBody Share share
+    ) throws URISyntaxException {
         log.debug("REST request to update Share : {}, {}", id, share);
         if (share.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
@@ -81,31 +112,44 @@ public class ShareResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!shareRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
+        // loads the share in the persistence context, so that save merges into it without selecting it again
+        Share existingShare = shareRepository
+            .findById(id)
+            .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
+        if (!ETagUtil.matches(ifMatch, existingShare.getVersion())) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).eTag(ETagUtil.eTag(existingShare.getVersion())).build();
+        }
+        if (ifMatch != null || share.getVersion() == null) {
+            share.setVersion(existingShare.getVersion());
         }
 
-        Share result = shareRepository.save(share);
+        Share result = shareRepository.saveAndFlush(share);
+        shareInboxService.save(result);
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, share.getId().toString()))
+            .eTag(ETagUtil.eTag(result.getVersion()))
             .body(result);
     }
 
     /**
      * {@code PATCH  /shares/:id} : Partial updates given fields of an existing share, field will ignore if it is null
+     * <p>
+     * The update is made against the version given by the {@code If-Match} header, if any.
      *
      * @param id the id of the share to save.
+     * @param ifMatch the {@code ETag} of the version the update was made on.
      * @param share the share to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated share,
-     * or with status {@code 400 (Bad Request)} if the share is not valid,
-     * or with status {@code 404 (Not Found)} if the share is not found,
+     * or with status {@code 400 (Bad Request)} if the share is not valid or not found,
+     * or with status {@code 412 (Precondition Failed)} if the {@code If-Match} header does not match the current version,
      * or with status {@code 500 (Internal Server Error)} if the share couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/shares/{id}", consumes = { "application/json", "application/merge-patch+json" })
     public ResponseEntity<Share> partialUpdateShare(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @NotNull @RequestBody Share share
     ) throws URISyntaxException {
         log.debug("REST request to partial update Share partially : {}, {}", id, share);
@@ -116,54 +160,149 @@ public class ShareResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!shareRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
+        Share existingShare = shareRepository
+            .findById(id)
+            .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
+        if (!ETagUtil.matches(ifMatch, existingShare.getVersion())) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).eTag(ETagUtil.eTag(existingShare.getVersion())).build();
+        }
+        if (share.getInvite() != null) {
+            existingShare.setInvite(share.getInvite());
         }
 
-        Optional<Share> result = shareRepository
-            .findById(share.getId())
-            .map(existingShare -> {
-                if (share.getInvite() != null) {
-                    existingShare.setInvite(share.getInvite());
-                }
-
-                return existingShare;
-            })
-            .map(shareRepository::save);
-
-        return ResponseUtil.wrapOrNotFound(
-            result,
-            HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, share.getId().toString())
-        );
+        Share result = shareRepository.saveAndFlush(existingShare);
+        shareInboxService.save(result);
+        return ResponseEntity
+            .ok()
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, share.getId().toString()))
+            .eTag(ETagUtil.eTag(result.getVersion()))
+            .body(result);
     }
 
     /**
      * {@code GET  /shares} : get all the shares.
+     * <p>
+     * Without paging parameters, every share is returned in one response. With {@code page} or {@code size}, a page
+     * is returned with the usual pagination headers. With {@code cursor}, shares are listed in id order with keyset
+     * pagination: no count query is issued and the next page is given by the {@code X-Next-Cursor} header. Send an
+     * empty {@code cursor} to get the first page.
      *
+     * @param pageable the pagination information.
+     * @param page the requested page, switches to offset pagination.
+     * @param size the requested page size, switches to offset pagination.
+     * @param cursor the opaque cursor returned with the previous page, for keyset pagination.
      * @param eagerload flag to eager load entities from relationships (This is applicable for many-to-many).
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of shares in body.
      */
     @GetMapping("/shares")
-    public List<Share> getAllShares(@RequestParam(required = false, defaultValue = "false") boolean eagerload) {
+    public ResponseEntity<List<Share>> getAllShares(
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable,
+        @RequestParam(required = false) Integer page,
+        @RequestParam(required = false) Integer size,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false, defaultValue = "false") boolean eagerload
+    ) {
+        if (cursor != null) {
+            return getAllSharesByCursor(cursor, pageable.getPageSize());
+        }
+        if (page != null || size != null) {
+            log.debug("REST request to get a page of Shares");
+            Page<Share> result = eagerload ? shareRepository.findAllWithEagerRelationships(pageable) : shareRepository.findAll(pageable);
+            HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), result);
+            return ResponseEntity.ok().headers(headers).body(result.getContent());
+        }
         log.debug("REST request to get all Shares");
         if (eagerload) {
-            return shareRepository.findAllWithEagerRelationships();
+            return ResponseEntity.ok(shareRepository.findAllWithEagerRelationships());
         } else {
-            return shareRepository.findAll();
+            return ResponseEntity.ok(shareRepository.findAll());
+        }
+    }
+
+    private ResponseEntity<List<Share>> getAllSharesByCursor(String cursor, int size) {
+        log.debug("REST request to get a keyset page of Shares after : {}", cursor);
+        long afterId;
+        try {
+            afterId = KeysetCursor.decode(cursor).map(KeysetCursor::getId).orElse(Long.MIN_VALUE);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
         }
+        Slice<Share> slice = shareRepository.findKeysetPageAfter(afterId, PageRequest.of(0, size));
+        KeysetCursor next = null;
+        if (slice.hasNext()) {
+            next = KeysetCursor.of(slice.getContent().get(slice.getNumberOfElements() - 1).getId());
+        }
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), next);
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * {@code GET  /shares} : stream all the shares as newline-delimited JSON, in id order.
+     * <p>
+     * Rows are serialized as they are read from a database cursor, so memory use does not depend on the table size.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and one share per line in body.
+     */
+    @GetMapping(value = "/shares", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllShares() {
+        log.debug("REST request to stream all Shares");
+        StreamingResponseBody body = out -> ndjsonExportService.export(shareRepository::streamAllWithToOneRelationships, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * {@code GET  /shares/received} : get all the shares with the current user.
+     * <p>
+     * Served from the Hibernate query cache until a share or a user changes.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of shares in body.
+     */
+    @GetMapping("/shares/received")
+    public ResponseEntity<List<Share>> getReceivedShares() {
+        log.debug("REST request to get the Shares with the current user");
+        return ResponseEntity.ok(shareRepository.findByWithUserIsCurrentUser());
+    }
+
+    /**
+     * {@code GET  /shares/inbox} : get the shares with the current user, most recent first.
+     * <p>
+     * Read from the materialized inbox, which carries the title of the shared note and the login of the author.
+     *
+     * @param pageable the pagination information, its sort is ignored.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of inbox entries in body.
+     */
+    @GetMapping("/shares/inbox")
+    public ResponseEntity<List<ShareInboxEntry>> getShareInbox(@org.springdoc.api.annotations.ParameterObject Pageable pageable) {
+        log.debug("REST request to get a page of the Share inbox");
+        Page<ShareInboxEntry> page = shareInboxService.findAllForCurrentUser(pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
     /**
      * {@code GET  /shares/:id} : get the "id" share.
      *
      * @param id the id of the share to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the share, or with status {@code 404 (Not Found)}.
+     * @param ifNoneMatch the {@code ETag} of the version the client already has.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the share,
+     * or with status {@code 304 (Not Modified)} and no body if the {@code If-None-Match} header matches the current version,
+     * or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/shares/{id}")
-    public ResponseEntity<Share> getShare(@PathVariable Long id) {
+    public ResponseEntity<Share> getShare(
+        @PathVariable Long id,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
         log.debug("REST request to get Share : {}", id);
         Optional<Share> share = shareRepository.findOneWithEagerRelationships(id);
-        return ResponseUtil.wrapOrNotFound(share);
+        if (share.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        String eTag = ETagUtil.eTag(share.get().getVersion());
+        if (ETagUtil.isNotModified(ifNoneMatch, share.get().getVersion())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(share.get());
     }
 
     /**
@@ -175,6 +314,7 @@ public class ShareResource {
     @DeleteMapping("/shares/{id}")
     public ResponseEntity<Void> deleteShare(@PathVariable Long id) {
         log.debug("REST request to delete Share : {}", id);
+        shareInboxService.delete(id);
         shareRepository.deleteById(id);
         return ResponseEntity
             .noContent()
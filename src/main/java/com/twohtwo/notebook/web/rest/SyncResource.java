@@ -0,0 +1,59 @@
+package com.twohtwo.notebook.web.rest;
+
+import com.twohtwo.notebook.service.SyncService;
+import com.twohtwo.notebook.service.SyncTokenExpiredException;
+import com.twohtwo.notebook.service.dto.SyncDTO;
+import com.twohtwo.notebook.web.rest.errors.BadRequestAlertException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller for the incremental sync of the notes, note books and shares by offline clients.
+ */
+@RestController
+@RequestMapping("/api")
+public class SyncResource {
+
+    private final Logger log = LoggerFactory.getLogger(SyncResource.class);
+
+    private static final String ENTITY_NAME = "sync";
+
+    private final SyncService syncService;
+
+    public SyncResource(SyncService syncService) {
+        this.syncService = syncService;
+    }
+
+    /**
+     * {@code GET  /sync} : get the notes, note books and shares changed since a sync token.
+     * <p>
+     * Created and updated entities are returned in full, deleted ones by id. The client keeps the returned token for
+     * its next sync, and syncs again right away while {@code hasMore} is true.
+     *
+     * @param since the token returned by the previous sync, none for the first sync.
+     * @param size the maximum number of changes to return.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the changes,
+     * or with status {@code 400 (Bad Request)} if the token is not valid,
+     * or with status {@code 410 (Gone)} if the token is too old, in which case the client syncs again without token.
+     */
+    @GetMapping("/sync")
+    public ResponseEntity<SyncDTO> sync(
+        @RequestParam(value = "since", required = false) String since,
+        @RequestParam(value = "size", required = false) Integer size
+    ) {
+        log.debug("REST request to sync since : {}", since);
+        try {
+            return ResponseEntity.ok(syncService.getChangesSince(since, size));
+        } catch (SyncTokenExpiredException e) {
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "tokeninvalid");
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.twohtwo.notebook.web.rest.util;
+
+/**
+ * Utility class for handling conditional requests on versioned entities.
+ * <p>
+ * The entity tag of an entity is its {@code @Version}, as a strong tag such as {@code "3"}. It changes whenever a
+ * column of the entity changes, not when a related entity embedded in the response does.
+ */
+public final class ETagUtil {
+
+    private static final String ANY = "*";
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private ETagUtil() {}
+
+    /**
+     * @param version the version of the entity.
+     * @return the entity tag, to send in the {@code ETag} header.
+     */
+    public static String eTag(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Evaluates an {@code If-Match} header, with the strong comparison: weak tags never match.
+     *
+     * @param ifMatch the header value, may be {@code null}.
+     * @param version the current version of the entity.
+     * @return whether the request may proceed, which is also the case when there is no header.
+     */
+    public static boolean matches(String ifMatch, Long version) {
+        if (ifMatch == null) {
+            return true;
+        }
+        String current = eTag(version);
+        for (String tag : ifMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (trimmed.equals(ANY) || trimmed.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Evaluates an {@code If-None-Match} header, with the weak comparison.
+     *
+     * @param ifNoneMatch the header value, may be {@code null}.
+     * @param version the current version of the entity.
+     * @return whether the client already has the current version, so that a {@code 304 (Not Modified)} can be sent.
+     */
+    public static boolean isNotModified(String ifNoneMatch, Long version) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String current = eTag(version);
+        for (String tag : ifNoneMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (trimmed.startsWith(WEAK_PREFIX)) {
+                trimmed = trimmed.substring(WEAK_PREFIX.length());
+            }
+            if (trimmed.equals(ANY) || trimmed.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,194 @@
+package com.twohtwo.notebook.web.rest.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.twohtwo.notebook.config.ApplicationProperties;
+import com.twohtwo.notebook.domain.Authority;
+import com.twohtwo.notebook.domain.NoteBook;
+import com.twohtwo.notebook.domain.User;
+import com.twohtwo.notebook.service.EntityChangedEvent;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Server-side cache of the responses of read-mostly endpoints.
+ * <p>
+ * A cached response is served without reaching the service or the database, with a {@code Cache-Control} header
+ * built from {@code application.response-cache.max-age} and an {@code ETag}: the one set by the endpoint, or else a
+ * digest of the JSON body. A request whose {@code If-None-Match} matches gets a {@code 304 (Not Modified)}.
+ * <p>
+ * Responses are evicted on the {@link EntityChangedEvent}s published by the write paths, once when the event is
+ * published and again when the transaction commits, so that a response loaded in between is not kept. The cache is
+ * local to each application instance.
+ */
+@Component
+public class HttpResponseCache {
+
+    public static final String PUBLIC_USERS_CACHE = "publicUsersResponses";
+
+    public static final String AUTHORITIES_CACHE = "authoritiesResponses";
+
+    public static final String NOTE_BOOKS_CACHE = "noteBooksResponses";
+
+    private final Logger log = LoggerFactory.getLogger(HttpResponseCache.class);
+
+    private final CacheManager cacheManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final CacheControl cacheControl;
+
+    /**
+     * Incremented on each eviction, so that a response loaded before an eviction is not cached after it.
+     */
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public HttpResponseCache(CacheManager cacheManager, ObjectMapper objectMapper, ApplicationProperties applicationProperties) {
+        this.cacheManager = cacheManager;
+        this.objectMapper = objectMapper;
+        this.cacheControl = CacheControl.maxAge(applicationProperties.getResponseCache().getMaxAge()).mustRevalidate().cachePrivate();
+    }
+
+    /**
+     * Serves a response from the cache, or loads and caches it. Only {@code 200 (OK)} responses with a body are cached.
+     *
+     * @param cacheName the name of the cache.
+     * @param key the key of the response in the cache.
+     * @param ifNoneMatch the {@code If-None-Match} header of the request, may be {@code null}.
+     * @param loader the endpoint logic.
+     * @param <T> the type of the body.
+     * @return the response.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> get(String cacheName, Object key, String ifNoneMatch, Supplier<ResponseEntity<T>> loader) {
+        Cache cache = getCache(cacheName);
+        CachedResponse cached = cache.get(key, CachedResponse.class);
+        if (cached == null) {
+            long generation = generation(cacheName).get();
+            ResponseEntity<T> response = loader.get();
+            if (response.getStatusCode() != HttpStatus.OK || !response.hasBody()) {
+                return response;
+            }
+            HttpHeaders headers = new HttpHeaders();
+            headers.addAll(response.getHeaders());
+            headers.remove(HttpHeaders.ETAG);
+            cached = new CachedResponse(headers, response.getBody(), eTag(response));
+            synchronized (generation(cacheName)) {
+                if (generation(cacheName).get() == generation) {
+                    cache.put(key, cached);
+                }
+            }
+        }
+        if (ETagUtil.isNotModified(ifNoneMatch, cached.eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(cached.eTag).cacheControl(cacheControl).build();
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(cached.headers);
+        headers.setETag(cached.eTag);
+        headers.setCacheControl(cacheControl);
+        return new ResponseEntity<>((T) cached.body, headers, HttpStatus.OK);
+    }
+
+    /**
+     * Evicts the responses derived from the changed entity.
+     *
+     * @param event the change.
+     */
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        log.debug("Evicting the responses derived from {}", event);
+        Runnable eviction;
+        if (event.getEntityType() == User.class) {
+            // the note books embed their user
+            eviction =
+                () -> {
+                    clear(PUBLIC_USERS_CACHE);
+                    clear(NOTE_BOOKS_CACHE);
+                };
+        } else if (event.getEntityType() == Authority.class) {
+            eviction = () -> clear(AUTHORITIES_CACHE);
+        } else if (event.getEntityType() == NoteBook.class) {
+            eviction = () -> evict(NOTE_BOOKS_CACHE, event.getEntityId());
+        } else {
+            return;
+        }
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        eviction.run();
+                    }
+                }
+            );
+        }
+    }
+
+    private void clear(String cacheName) {
+        synchronized (generation(cacheName)) {
+            generation(cacheName).incrementAndGet();
+            getCache(cacheName).clear();
+        }
+    }
+
+    private void evict(String cacheName, Object key) {
+        synchronized (generation(cacheName)) {
+            generation(cacheName).incrementAndGet();
+            getCache(cacheName).evict(key);
+        }
+    }
+
+    private AtomicLong generation(String cacheName) {
+        return generations.computeIfAbsent(cacheName, name -> new AtomicLong());
+    }
+
+    private Cache getCache(String cacheName) {
+        return Objects.requireNonNull(cacheManager.getCache(cacheName));
+    }
+
+    private String eTag(ResponseEntity<?> response) {
+        if (response.getHeaders().getETag() != null) {
+            return response.getHeaders().getETag();
+        }
+        try {
+            return "\"" + DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(response.getBody())) + "\"";
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize the response body", e);
+        }
+    }
+
+    private static final class CachedResponse implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final HttpHeaders headers;
+
+        private final Object body;
+
+        private final String eTag;
+
+        private CachedResponse(HttpHeaders headers, Object body, String eTag) {
+            this.headers = headers;
+            this.body = body;
+            this.eTag = eTag;
+        }
+    }
+}
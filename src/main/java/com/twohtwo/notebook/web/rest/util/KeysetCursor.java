@@ -0,0 +1,97 @@
+package com.twohtwo.notebook.web.rest.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Opaque position in a keyset (seek) paginated listing.
+ * <p>
+ * A cursor holds the sort key of the last row of a page: an optional date and the row id, which breaks ties. It is
+ * exchanged with clients as an URL-safe Base64 token, so the encoding can change without breaking the API.
+ */
+public final class KeysetCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private final Instant date;
+
+    private final long id;
+
+    private KeysetCursor(Instant date, long id) {
+        this.date = date;
+        this.id = id;
+    }
+
+    public static KeysetCursor of(Instant date, long id) {
+        return new KeysetCursor(Objects.requireNonNull(date), id);
+    }
+
+    public static KeysetCursor of(long id) {
+        return new KeysetCursor(null, id);
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @param token the token sent by the client, blank for the first page.
+     * @return the cursor, or empty for the first page.
+     * @throws IllegalArgumentException if the token is malformed.
+     */
+    public static Optional<KeysetCursor> decode(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            long id = Long.parseLong(decoded.substring(separator + 1));
+            if (separator == 0) {
+                return Optional.of(of(id));
+            }
+            return Optional.of(of(Instant.parse(decoded.substring(0, separator)), id));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+
+    public String encode() {
+        String raw = (date != null ? date.toString() : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Instant getDate() {
+        return date;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof KeysetCursor)) {
+            return false;
+        }
+        KeysetCursor that = (KeysetCursor) o;
+        return id == that.id && Objects.equals(date, that.date);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(date, id);
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetCursor{date=" + date + ", id=" + id + "}";
+    }
+}
@@ -0,0 +1,38 @@
+package com.twohtwo.notebook.web.rest.util;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class for handling keyset (seek) pagination.
+ * <p>
+ * Unlike {@link tech.jhipster.web.util.PaginationUtil}, no total count is computed: the response only tells the
+ * client where the next page starts, with an {@value #NEXT_CURSOR_HEADER} header and a {@code Link} header with
+ * {@code rel="next"}. Both are absent on the last page.
+ */
+public final class KeysetPaginationUtil {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public static final String CURSOR_PARAMETER = "cursor";
+
+    private KeysetPaginationUtil() {}
+
+    /**
+     * Generate the pagination headers of a keyset page.
+     *
+     * @param uriBuilder the builder of the current request URI.
+     * @param nextCursor the cursor of the next page, {@code null} on the last page.
+     * @return the {@link HttpHeaders}.
+     */
+    public static HttpHeaders generateKeysetPaginationHttpHeaders(UriComponentsBuilder uriBuilder, KeysetCursor nextCursor) {
+        HttpHeaders headers = new HttpHeaders();
+        if (nextCursor != null) {
+            String token = nextCursor.encode();
+            headers.add(NEXT_CURSOR_HEADER, token);
+            String next = uriBuilder.replaceQueryParam(CURSOR_PARAMETER, token).replaceQueryParam("page").toUriString();
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Utility classes for REST controllers.
+ */
+package com.twohtwo.notebook.web.rest.util;
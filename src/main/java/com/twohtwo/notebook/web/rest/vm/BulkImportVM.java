@@ -0,0 +1,33 @@
+package com.twohtwo.notebook.web.rest.vm;
+
+/**
+ * View Model object for reporting the outcome of a bulk import.
+ */
+public class BulkImportVM {
+
+    private final long imported;
+
+    private final long durationMillis;
+
+    public BulkImportVM(long imported, long durationMillis) {
+        this.imported = imported;
+        this.durationMillis = durationMillis;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BulkImportVM{" +
+            "imported=" + imported +
+            ", durationMillis=" + durationMillis +
+            "}";
+    }
+}
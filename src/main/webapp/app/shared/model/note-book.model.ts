@@ -2,6 +2,7 @@ import { IUser } from 'app/shared/model/user.model';
 
 export interface INoteBook {
   id?: number;
+  version?: number;
   name?: string;
   handle?: string;
   user?: IUser | null;
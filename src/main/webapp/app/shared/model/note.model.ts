@@ -4,6 +4,7 @@ import { INoteBook } from 'app/shared/model/note-book.model';
 
 export interface INote {
   id?: number;
+  version?: number;
   title?: string;
   content?: string;
   date?: string;
@@ -3,6 +3,7 @@ import { INote } from 'app/shared/model/note.model';
 
 export interface IShare {
   id?: number;
+  version?: number;
   invite?: string;
   author?: IUser | null;
   withUser?: IUser | null;
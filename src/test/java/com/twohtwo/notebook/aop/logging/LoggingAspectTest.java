@@ -0,0 +1,175 @@
+package com.twohtwo.notebook.aop.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.twohtwo.notebook.config.ApplicationProperties;
+import com.twohtwo.notebook.config.LoggingAspectConfiguration;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mock.env.MockEnvironment;
+
+/**
+ * Unit tests for the sampling of {@link LoggingAspect}.
+ */
+class LoggingAspectTest {
+
+    private static final String TRACED_TYPE = "com.twohtwo.notebook.service.TracedService";
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+        .withUserConfiguration(PropertiesConfiguration.class, LoggingAspectConfiguration.class);
+
+    private Logger tracedLogger;
+
+    private Level previousLevel;
+
+    private ListAppender<ILoggingEvent> appender;
+
+    @BeforeEach
+    public void setup() {
+        tracedLogger = (Logger) LoggerFactory.getLogger(TRACED_TYPE);
+        previousLevel = tracedLogger.getLevel();
+        tracedLogger.setLevel(Level.DEBUG);
+        appender = new ListAppender<>();
+        appender.start();
+        tracedLogger.addAppender(appender);
+    }
+
+    @AfterEach
+    public void teardown() {
+        tracedLogger.detachAppender(appender);
+        tracedLogger.setLevel(previousLevel);
+    }
+
+    @Test
+    void shouldLogEveryCallWithSampleRateOne() throws Throwable {
+        LoggingAspect aspect = new LoggingAspect(new MockEnvironment(), 1);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(aspect.logAround(joinPoint("outer", "result"))).isEqualTo("result");
+        }
+
+        // an enter and an exit event per call
+        assertThat(appender.list).hasSize(20);
+        assertThat(appender.list.get(0).getFormattedMessage()).isEqualTo("Enter: outer() with argument[s] = []");
+        assertThat(appender.list.get(1).getFormattedMessage()).isEqualTo("Exit: outer() with result = result");
+    }
+
+    @Test
+    void shouldLogNoCallWithSampleRateZero() throws Throwable {
+        LoggingAspect aspect = new LoggingAspect(new MockEnvironment(), 0);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(aspect.logAround(nestedJoinPoint(aspect))).isEqualTo("inner");
+        }
+
+        assertThat(appender.list).isEmpty();
+    }
+
+    @Test
+    void shouldLogNestedCallsWithTheOuterCall() throws Throwable {
+        LoggingAspect aspect = new LoggingAspect(new MockEnvironment(), 0.5);
+        int sampled = 0;
+
+        for (int i = 0; i < 200; i++) {
+            appender.list.clear();
+            aspect.logAround(nestedJoinPoint(aspect));
+            // either both calls are traced, or none of them
+            assertThat(appender.list.size()).isIn(0, 4);
+            if (!appender.list.isEmpty()) {
+                assertThat(appender.list.get(1).getFormattedMessage()).isEqualTo("Enter: inner() with argument[s] = []");
+                sampled++;
+            }
+        }
+
+        // each outer call takes its own decision
+        assertThat(sampled).isBetween(1, 199);
+    }
+
+    @Test
+    void shouldLogExceptionsWithTheOuterCall() throws Throwable {
+        LoggingAspect aspect = new LoggingAspect(new MockEnvironment(), 0);
+        RuntimeException exception = new RuntimeException("failure");
+
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> aspect.logAround(throwingJoinPoint(aspect, exception))).isSameAs(exception);
+        }
+        aspect.logAfterThrowing(joinPoint("outer", null), exception);
+
+        assertThat(appender.list).isEmpty();
+
+        LoggingAspect sampledAspect = new LoggingAspect(new MockEnvironment(), 1);
+        assertThatThrownBy(() -> sampledAspect.logAround(throwingJoinPoint(sampledAspect, exception))).isSameAs(exception);
+
+        assertThat(appender.list)
+            .filteredOn(event -> event.getLevel() == Level.ERROR)
+            .extracting(ILoggingEvent::getFormattedMessage)
+            .containsExactly("Exception in outer() with cause = NULL");
+    }
+
+    @Test
+    void shouldNotRegisterTheAspectByDefault() {
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(LoggingAspect.class));
+    }
+
+    @Test
+    void shouldRegisterTheAspectWhenTracingIsEnabled() {
+        contextRunner
+            .withPropertyValues("application.tracing.enabled=true", "application.tracing.sample-rate=0.25")
+            .run(context -> {
+                assertThat(context).hasSingleBean(LoggingAspect.class);
+                assertThat(context.getBean(ApplicationProperties.class).getTracing().getSampleRate()).isEqualTo(0.25);
+            });
+    }
+
+    private ProceedingJoinPoint joinPoint(String name, Object result) throws Throwable {
+        Signature signature = mock(Signature.class);
+        when(signature.getDeclaringTypeName()).thenReturn(TRACED_TYPE);
+        when(signature.getName()).thenReturn(name);
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getArgs()).thenReturn(new Object[0]);
+        when(joinPoint.proceed()).thenReturn(result);
+        return joinPoint;
+    }
+
+    /**
+     * Creates an "outer" join point whose execution goes through the aspect again for an "inner" join point.
+     */
+    private ProceedingJoinPoint nestedJoinPoint(LoggingAspect aspect) throws Throwable {
+        ProceedingJoinPoint inner = joinPoint("inner", "inner");
+        ProceedingJoinPoint outer = joinPoint("outer", null);
+        when(outer.proceed()).thenAnswer(invocation -> aspect.logAround(inner));
+        return outer;
+    }
+
+    /**
+     * Creates an "outer" join point whose execution throws the given exception, and goes through the exception advice
+     * as a proxy would.
+     */
+    private ProceedingJoinPoint throwingJoinPoint(LoggingAspect aspect, RuntimeException exception) throws Throwable {
+        ProceedingJoinPoint outer = joinPoint("outer", null);
+        when(outer.proceed())
+            .thenAnswer(invocation -> {
+                aspect.logAfterThrowing(outer, exception);
+                throw exception;
+            });
+        return outer;
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(ApplicationProperties.class)
+    static class PropertiesConfiguration {}
+}
@@ -0,0 +1,146 @@
+package com.twohtwo.notebook.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.twohtwo.notebook.domain.Note;
+import com.twohtwo.notebook.domain.Share;
+import com.twohtwo.notebook.domain.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.stream.Stream;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import org.ehcache.config.CacheRuntimeConfiguration;
+import org.ehcache.config.ResourcePools;
+import org.ehcache.config.ResourceType;
+import org.ehcache.config.SizedResourcePool;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Unit tests for the regions built by {@link CacheConfiguration} from {@code application.cache.regions}.
+ */
+class CacheConfigurationTest {
+
+    private static final String NOTE_REGION = Note.class.getName();
+
+    private static final String SHARE_REGION = Share.class.getName();
+
+    private static final String USER_REGION = User.class.getName();
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+        .withConfiguration(AutoConfigurations.of(CacheAutoConfiguration.class))
+        .withUserConfiguration(PropertiesConfiguration.class, CacheConfiguration.class)
+        .withPropertyValues(
+            "jhipster.cache.ehcache.max-entries=100",
+            "jhipster.cache.ehcache.time-to-live-seconds=3600",
+            "application.cache.regions.[" + NOTE_REGION + "].heap-entries=10",
+            "application.cache.regions.[" + NOTE_REGION + "].off-heap-mb=1",
+            "application.cache.regions.[" + NOTE_REGION + "].time-to-idle-seconds=60",
+            "application.cache.regions.[" + SHARE_REGION + "].time-to-live-seconds=30"
+        );
+
+    @Test
+    void shouldBuildTheTiersOfARegion() {
+        contextRunner.run(context -> {
+            CacheManager cacheManager = context.getBean(CacheManager.class);
+
+            ResourcePools note = runtimeConfiguration(cacheManager, NOTE_REGION).getResourcePools();
+            assertThat(size(note, ResourceType.Core.HEAP)).isEqualTo(10);
+            assertThat(unit(note, ResourceType.Core.HEAP)).isEqualTo(EntryUnit.ENTRIES);
+            assertThat(size(note, ResourceType.Core.OFFHEAP)).isEqualTo(1);
+            assertThat(unit(note, ResourceType.Core.OFFHEAP)).isEqualTo(MemoryUnit.MB);
+            assertThat(note.getPoolForResource(ResourceType.Core.DISK)).isNull();
+
+            // a region that is not listed only has a heap tier, sized by jhipster.cache.ehcache
+            ResourcePools user = runtimeConfiguration(cacheManager, USER_REGION).getResourcePools();
+            assertThat(size(user, ResourceType.Core.HEAP)).isEqualTo(100);
+            assertThat(user.getResourceTypeSet()).containsExactly(ResourceType.Core.HEAP);
+        });
+    }
+
+    @Test
+    void shouldBuildTheExpiryOfARegion() {
+        contextRunner.run(context -> {
+            CacheManager cacheManager = context.getBean(CacheManager.class);
+
+            // the time to idle is renewed on access
+            CacheRuntimeConfiguration<Object, Object> note = runtimeConfiguration(cacheManager, NOTE_REGION);
+            assertThat(note.getExpiryPolicy().getExpiryForCreation(1L, "note")).isEqualTo(Duration.ofSeconds(60));
+            assertThat(note.getExpiryPolicy().getExpiryForAccess(1L, () -> "note")).isEqualTo(Duration.ofSeconds(60));
+
+            // the time to live is not
+            CacheRuntimeConfiguration<Object, Object> share = runtimeConfiguration(cacheManager, SHARE_REGION);
+            assertThat(share.getExpiryPolicy().getExpiryForCreation(1L, "share")).isEqualTo(Duration.ofSeconds(30));
+            assertThat(share.getExpiryPolicy().getExpiryForAccess(1L, () -> "share")).isNull();
+
+            CacheRuntimeConfiguration<Object, Object> user = runtimeConfiguration(cacheManager, USER_REGION);
+            assertThat(user.getExpiryPolicy().getExpiryForCreation(1L, "user")).isEqualTo(Duration.ofSeconds(3600));
+        });
+    }
+
+    @Test
+    void shouldStoreADiskBackedRegionUnderTheDiskPath(@TempDir Path diskPath) {
+        contextRunner
+            .withPropertyValues(
+                "application.cache.disk-path=" + diskPath,
+                "application.cache.regions.[" + NOTE_REGION + "].disk-mb=2",
+                "application.cache.regions.[" + NOTE_REGION + "].disk-persistent=true"
+            )
+            .run(context -> {
+                CacheManager cacheManager = context.getBean(CacheManager.class);
+
+                ResourcePools note = runtimeConfiguration(cacheManager, NOTE_REGION).getResourcePools();
+                assertThat(size(note, ResourceType.Core.DISK)).isEqualTo(2);
+                assertThat(note.getPoolForResource(ResourceType.Core.DISK).isPersistent()).isTrue();
+
+                // entries are serialized to the tiers below the heap
+                Cache<Object, Object> cache = cacheManager.getCache(NOTE_REGION);
+                cache.put(1L, "content");
+                assertThat(cache.get(1L)).isEqualTo("content");
+                try (Stream<Path> files = Files.list(diskPath)) {
+                    assertThat(files).isNotEmpty();
+                }
+            });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CacheRuntimeConfiguration<Object, Object> runtimeConfiguration(CacheManager cacheManager, String cacheName) {
+        Cache<Object, Object> cache = cacheManager.getCache(cacheName);
+        assertThat(cache).as(cacheName).isNotNull();
+        return (CacheRuntimeConfiguration<Object, Object>) cache
+            .getConfiguration(Eh107Configuration.class)
+            .unwrap(CacheRuntimeConfiguration.class);
+    }
+
+    private static long size(ResourcePools resourcePools, ResourceType<SizedResourcePool> type) {
+        return resourcePools.getPoolForResource(type).getSize();
+    }
+
+    private static Object unit(ResourcePools resourcePools, ResourceType<SizedResourcePool> type) {
+        return resourcePools.getPoolForResource(type).getUnit();
+    }
+
+    @Configuration
+    @EnableConfigurationProperties({ JHipsterProperties.class, ApplicationProperties.class })
+    static class PropertiesConfiguration {
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
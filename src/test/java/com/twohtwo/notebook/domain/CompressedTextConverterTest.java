@@ -0,0 +1,36 @@
+package com.twohtwo.notebook.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class CompressedTextConverterTest {
+
+    private final CompressedTextConverter converter = new CompressedTextConverter();
+
+    @Test
+    void testSmallTextIsStoredAsUtf8() {
+        byte[] data = converter.convertToDatabaseColumn("Groceries: bread, milk");
+
+        assertThat(data).isEqualTo("Groceries: bread, milk".getBytes(StandardCharsets.UTF_8));
+        assertThat(converter.convertToEntityAttribute(data)).isEqualTo("Groceries: bread, milk");
+    }
+
+    @Test
+    void testLargeTextIsCompressed() {
+        String text = "## Été\n\n- alpha bravo charlie delta\n".repeat(200);
+
+        byte[] data = converter.convertToDatabaseColumn(text);
+
+        assertThat(CompressedTextConverter.isCompressed(data)).isTrue();
+        assertThat(data.length).isLessThan(text.length() / 10);
+        assertThat(converter.convertToEntityAttribute(data)).isEqualTo(text);
+    }
+
+    @Test
+    void testNullIsKept() {
+        assertThat(converter.convertToDatabaseColumn(null)).isNull();
+        assertThat(converter.convertToEntityAttribute(null)).isNull();
+    }
+}
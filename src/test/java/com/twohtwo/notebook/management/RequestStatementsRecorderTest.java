@@ -0,0 +1,92 @@
+package com.twohtwo.notebook.management;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.twohtwo.notebook.config.ApplicationProperties;
+import com.twohtwo.notebook.management.RequestStatementsRecorder.NPlusOneSuspect;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RequestStatementsRecorderTest {
+
+    private static final String SELECT_NOTE = "select note0_.id as id1_2_ from note note0_ where note0_.id=?";
+
+    private static final String SELECT_NOTE_BOOK = "select notebook0_.id as id1_1_ from note_book notebook0_ where notebook0_.id=?";
+
+    private MeterRegistry meterRegistry;
+
+    private RequestStatementsRecorder recorder;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getInstrumentation().setRepeatedStatementThreshold(3);
+        recorder = new RequestStatementsRecorder(meterRegistry, applicationProperties);
+    }
+
+    @Test
+    void testStatementsAreCountedByRequest() {
+        recorder.begin();
+        recorder.inspect(SELECT_NOTE);
+        recorder.inspect(SELECT_NOTE_BOOK);
+        recorder.end("/api/notes/{id}");
+
+        DistributionSummary summary = meterRegistry
+            .get(RequestStatementsRecorder.STATEMENTS_METER_NAME)
+            .tag(RequestStatementsRecorder.URI_DIMENSION, "/api/notes/{id}")
+            .summary();
+        assertThat(summary.count()).isEqualTo(1);
+        assertThat(summary.totalAmount()).isEqualTo(2);
+        assertThat(recorder.getSuspects()).isEmpty();
+    }
+
+    @Test
+    void testStatementsOutsideOfRequestsAreNotCounted() {
+        assertThat(recorder.inspect(SELECT_NOTE)).isEqualTo(SELECT_NOTE);
+        recorder.end("/api/notes");
+
+        assertThat(meterRegistry.find(RequestStatementsRecorder.STATEMENTS_METER_NAME).summaries()).isEmpty();
+    }
+
+    @Test
+    void testRepeatedStatementIsFlagged() {
+        recorder.begin();
+        recorder.inspect(SELECT_NOTE);
+        for (int i = 0; i < 3; i++) {
+            recorder.inspect(SELECT_NOTE_BOOK);
+        }
+        recorder.end("/api/notes");
+
+        assertThat(recorder.getSuspects()).hasSize(1);
+        NPlusOneSuspect suspect = recorder.getSuspects().get(0);
+        assertThat(suspect.getUri()).isEqualTo("/api/notes");
+        assertThat(suspect.getStatement()).isEqualTo(SELECT_NOTE_BOOK);
+        assertThat(suspect.getExecutions()).isEqualTo(3);
+        assertThat(
+            meterRegistry
+                .get(RequestStatementsRecorder.N_PLUS_ONE_METER_NAME)
+                .tag(RequestStatementsRecorder.URI_DIMENSION, "/api/notes")
+                .counter()
+                .count()
+        )
+            .isEqualTo(1);
+    }
+
+    @Test
+    void testOnlyTheLatestSuspectsAreKept() {
+        for (int i = 0; i <= RequestStatementsRecorder.MAX_SUSPECTS; i++) {
+            recorder.begin();
+            for (int j = 0; j < 3; j++) {
+                recorder.inspect(SELECT_NOTE);
+            }
+            recorder.end("/api/notes/" + i);
+        }
+
+        assertThat(recorder.getSuspects()).hasSize(RequestStatementsRecorder.MAX_SUSPECTS);
+        assertThat(recorder.getSuspects().get(0).getUri()).isEqualTo("/api/notes/" + RequestStatementsRecorder.MAX_SUSPECTS);
+    }
+}
@@ -0,0 +1,67 @@
+package com.twohtwo.notebook.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+class AuthenticationCacheTest {
+
+    private static final long NOW = 1_000_000L;
+
+    @Test
+    void testGetReturnsCachedAuthenticationUntilExpiration() {
+        AuthenticationCache cache = new AuthenticationCache(10);
+        Authentication authentication = new UsernamePasswordAuthenticationToken("user", "token");
+        String key = AuthenticationCache.digest("token");
+
+        cache.put(key, authentication, NOW + 1);
+
+        assertThat(cache.get(key, NOW)).isSameAs(authentication);
+        assertThat(cache.get(key, NOW + 1)).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        AuthenticationCache cache = new AuthenticationCache(2, new AtomicLong()::incrementAndGet);
+        cache.put("a", new UsernamePasswordAuthenticationToken("a", "a"), Long.MAX_VALUE);
+        cache.put("b", new UsernamePasswordAuthenticationToken("b", "b"), Long.MAX_VALUE);
+        cache.get("a", NOW);
+
+        cache.put("c", new UsernamePasswordAuthenticationToken("c", "c"), Long.MAX_VALUE);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("a", NOW)).isNotNull();
+        assertThat(cache.get("b", NOW)).isNull();
+        assertThat(cache.get("c", NOW)).isNotNull();
+    }
+
+    @Test
+    void testLeastRecentlyUsedTenthIsEvictedAtOnce() {
+        AuthenticationCache cache = new AuthenticationCache(20, new AtomicLong()::incrementAndGet);
+        for (int i = 0; i < 20; i++) {
+            cache.put("key" + i, new UsernamePasswordAuthenticationToken("user" + i, "token"), Long.MAX_VALUE);
+        }
+        cache.get("key0", NOW);
+
+        cache.put("key20", new UsernamePasswordAuthenticationToken("user20", "token"), Long.MAX_VALUE);
+
+        // the 3 least recently used entries are evicted, down to 18
+        assertThat(cache.size()).isEqualTo(18);
+        assertThat(cache.get("key0", NOW)).isNotNull();
+        assertThat(cache.get("key1", NOW)).isNull();
+        assertThat(cache.get("key2", NOW)).isNull();
+        assertThat(cache.get("key3", NOW)).isNull();
+        assertThat(cache.get("key4", NOW)).isNotNull();
+        assertThat(cache.get("key20", NOW)).isNotNull();
+    }
+
+    @Test
+    void testDigestIsStableAndDistinct() {
+        assertThat(AuthenticationCache.digest("token")).isEqualTo(AuthenticationCache.digest("token"));
+        assertThat(AuthenticationCache.digest("token")).isNotEqualTo(AuthenticationCache.digest("other"));
+    }
+}
@@ -0,0 +1,126 @@
+package com.twohtwo.notebook.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.twohtwo.notebook.IntegrationTest;
+import com.twohtwo.notebook.config.ApplicationProperties;
+import com.twohtwo.notebook.domain.MailOutboxMessage;
+import com.twohtwo.notebook.repository.MailOutboxRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Integration tests for {@link MailOutboxDispatcher}, against an in-process SMTP server.
+ */
+@IntegrationTest
+@TestPropertySource(properties = "spring.mail.port=3025")
+class MailOutboxDispatcherIT {
+
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    private MailService mailService;
+
+    @Autowired
+    private MailOutboxDispatcher mailOutboxDispatcher;
+
+    @Autowired
+    private MailOutboxRepository mailOutboxRepository;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @BeforeEach
+    @AfterEach
+    public void clearOutbox() {
+        mailOutboxRepository.deleteAll();
+    }
+
+    @Test
+    void sendQueuedEmails() throws MessagingException {
+        mailService.sendEmail("john.doe@example.com", "first", "testContent", false, false);
+        mailService.sendEmail("jane.doe@example.com", "second", "testContent", false, true);
+        mailService.sendEmail("jim.doe@example.com", "third", "testContent", true, false);
+
+        mailOutboxDispatcher.dispatch();
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        List<String> subjects = Arrays.stream(received).map(MailOutboxDispatcherIT::subject).collect(Collectors.toList());
+        assertThat(subjects).containsExactly("first", "second", "third");
+        assertThat(received[0].getAllRecipients()[0]).hasToString("john.doe@example.com");
+        assertThat(mailOutboxRepository.count()).isZero();
+    }
+
+    @Test
+    void retryEmailsWhenServerIsDown() {
+        greenMail.stop();
+        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false);
+        Instant beforeDispatch = Instant.now();
+
+        mailOutboxDispatcher.dispatch();
+
+        MailOutboxMessage message = mailOutboxRepository.findAll().get(0);
+        assertThat(message.getStatus()).isEqualTo(MailOutboxMessage.Status.PENDING);
+        assertThat(message.getAttempts()).isEqualTo(1);
+        assertThat(message.getLastError()).isNotBlank();
+        assertThat(message.getNextAttemptAt()).isAfterOrEqualTo(beforeDispatch.plus(applicationProperties.getMail().getInitialBackoff()));
+
+        // not due yet
+        greenMail.start();
+        mailOutboxDispatcher.dispatch();
+        assertThat(greenMail.getReceivedMessages()).isEmpty();
+
+        message.setNextAttemptAt(Instant.now());
+        mailOutboxRepository.save(message);
+        mailOutboxDispatcher.dispatch();
+        assertThat(greenMail.getReceivedMessages()).hasSize(1);
+        assertThat(mailOutboxRepository.count()).isZero();
+    }
+
+    @Test
+    void giveUpAfterMaxAttempts() {
+        greenMail.stop();
+        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false);
+        MailOutboxMessage message = mailOutboxRepository.findAll().get(0);
+        message.setAttempts(applicationProperties.getMail().getMaxAttempts() - 1);
+        mailOutboxRepository.save(message);
+
+        mailOutboxDispatcher.dispatch();
+        greenMail.start();
+
+        message = mailOutboxRepository.findAll().get(0);
+        assertThat(message.getStatus()).isEqualTo(MailOutboxMessage.Status.FAILED);
+        assertThat(message.getAttempts()).isEqualTo(applicationProperties.getMail().getMaxAttempts());
+    }
+
+    @Test
+    void backoffDoublesUpToTheMaximum() {
+        Duration initialBackoff = applicationProperties.getMail().getInitialBackoff();
+        assertThat(mailOutboxDispatcher.backoff(1)).isEqualTo(initialBackoff);
+        assertThat(mailOutboxDispatcher.backoff(2)).isEqualTo(initialBackoff.multipliedBy(2));
+        assertThat(mailOutboxDispatcher.backoff(3)).isEqualTo(initialBackoff.multipliedBy(4));
+        assertThat(mailOutboxDispatcher.backoff(50)).isEqualTo(applicationProperties.getMail().getMaxBackoff());
+    }
+
+    private static String subject(MimeMessage message) {
+        try {
+            return message.getSubject();
+        } catch (MessagingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.twohtwo.notebook.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.twohtwo.notebook.IntegrationTest;
+import com.twohtwo.notebook.config.ApplicationProperties;
+import com.twohtwo.notebook.domain.Note;
+import com.twohtwo.notebook.domain.NoteRevision;
+import com.twohtwo.notebook.repository.NoteRepository;
+import com.twohtwo.notebook.repository.NoteRevisionRepository;
+import com.twohtwo.notebook.service.dto.NoteRevisionDTO;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link NoteRevisionService}.
+ */
+@IntegrationTest
+@Transactional
+class NoteRevisionServiceIT {
+
+    private static final String BASE_CONTENT = "The quick brown fox jumps over the lazy dog.\n".repeat(20);
+
+    @Autowired
+    private NoteRevisionService noteRevisionService;
+
+    @Autowired
+    private NoteRevisionRepository noteRevisionRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    private Note note;
+
+    private List<String> contents;
+
+    @BeforeEach
+    public void init() {
+        note = noteRepository.saveAndFlush(new Note().title("Revisions").content(BASE_CONTENT).date(Instant.now()));
+        noteRevisionService.record(note, null, null);
+        contents = new ArrayList<>(List.of(BASE_CONTENT));
+    }
+
+    private void save(String content) {
+        String previousContent = note.getContent();
+        note.setContent(content);
+        noteRepository.saveAndFlush(note);
+        noteRevisionService.record(note, note.getTitle(), previousContent);
+        contents.add(content);
+    }
+
+    @Test
+    void recordDeltasBetweenSnapshots() {
+        int snapshotInterval = applicationProperties.getRevisions().getSnapshotInterval();
+        for (int i = 1; i < snapshotInterval + 5; i++) {
+            save(note.getContent().replaceFirst("fox", "fox " + i));
+        }
+        // not a change
+        save(note.getContent());
+
+        List<NoteRevision> revisions = noteRevisionRepository.findAll();
+        assertThat(revisions).hasSize(snapshotInterval + 5);
+        assertThat(revisions.stream().filter(NoteRevision::isSnapshot).map(NoteRevision::getRevision).collect(Collectors.toList()))
+            .containsExactlyInAnyOrder(1, snapshotInterval + 1);
+        for (int revision = 1; revision <= revisions.size(); revision++) {
+            Optional<NoteRevisionDTO> noteRevision = noteRevisionService.get(note.getId(), revision);
+            assertThat(noteRevision).map(NoteRevisionDTO::getContent).contains(contents.get(revision - 1));
+        }
+        assertThat(noteRevisionService.get(note.getId(), revisions.size() + 1)).isEmpty();
+    }
+
+    @Test
+    void recordPreviousContentOfNoteWithoutRevisions() {
+        noteRevisionRepository.deleteAll();
+        save(BASE_CONTENT + "Imported, then edited.");
+
+        assertThat(noteRevisionService.get(note.getId(), 1)).map(NoteRevisionDTO::getContent).contains(BASE_CONTENT);
+        assertThat(noteRevisionService.get(note.getId(), 2))
+            .map(NoteRevisionDTO::getContent)
+            .contains(BASE_CONTENT + "Imported, then edited.");
+    }
+
+    @Test
+    void compactKeepsLastRevisionOfEachPeriod() {
+        for (int i = 1; i <= 5; i++) {
+            save(note.getContent() + "Line " + i + "\n");
+        }
+        Instant now = Instant.now();
+        Instant oldDay = now
+            .minus(applicationProperties.getRevisions().getCompactAfter())
+            .minus(Duration.ofDays(10))
+            .truncatedTo(ChronoUnit.DAYS);
+        List<NoteRevision> revisions = noteRevisionRepository.findAll();
+        for (NoteRevision revision : revisions) {
+            // revisions 1 to 3 on a day, 4 and 5 on the next day, 6 is recent
+            int revisionNumber = revision.getRevision();
+            if (revisionNumber <= 5) {
+                Instant day = revisionNumber <= 3 ? oldDay : oldDay.plus(Duration.ofDays(1));
+                revision.setCreatedDate(day.plus(Duration.ofHours(revisionNumber)));
+            }
+        }
+        noteRevisionRepository.saveAllAndFlush(revisions);
+
+        noteRevisionService.compact(now);
+        noteRevisionService.compact(now);
+
+        assertThat(noteRevisionRepository.findAll().stream().map(NoteRevision::getRevision).collect(Collectors.toList()))
+            .containsExactlyInAnyOrder(3, 5, 6);
+        assertThat(noteRevisionService.get(note.getId(), 1)).isEmpty();
+        for (int revision : List.of(3, 5, 6)) {
+            Optional<NoteRevisionDTO> noteRevision = noteRevisionService.get(note.getId(), revision);
+            assertThat(noteRevision).map(NoteRevisionDTO::getContent).contains(contents.get(revision - 1));
+        }
+    }
+}
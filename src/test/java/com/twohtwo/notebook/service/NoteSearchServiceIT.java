@@ -0,0 +1,168 @@
+package com.twohtwo.notebook.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.twohtwo.notebook.IntegrationTest;
+import com.twohtwo.notebook.config.ApplicationProperties.Search.Mode;
+import com.twohtwo.notebook.domain.Note;
+import com.twohtwo.notebook.domain.NoteBook;
+import com.twohtwo.notebook.domain.Share;
+import com.twohtwo.notebook.domain.User;
+import com.twohtwo.notebook.repository.NoteRepository;
+import com.twohtwo.notebook.repository.NoteSummary;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@link Mode#FULL_TEXT} mode of {@link NoteSearchService}, which only run on PostgreSQL,
+ * with the {@code testprod} profile.
+ */
+@IntegrationTest
+@TestPropertySource(
+    properties = {
+        "application.search.mode=FULL_TEXT",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+    }
+)
+@Transactional
+@WithMockUser("full-text-reader")
+class NoteSearchServiceIT {
+
+    private static final String TERM = "quokka";
+
+    @Autowired
+    private NoteSearchService noteSearchService;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Note owned;
+
+    private Note shared;
+
+    private Note unowned;
+
+    private Note unreadable;
+
+    @BeforeEach
+    public void init() {
+        assumeTrue(noteSearchService.getMode() == Mode.FULL_TEXT, "Full-text search requires PostgreSQL");
+        User reader = createUser("full-text-reader");
+        User owner = createUser("full-text-owner");
+        NoteBook noteBook = new NoteBook().name("Full-text").handle("full-text");
+        em.persist(noteBook);
+        owned = createNote("Owned " + TERM, reader, noteBook);
+        shared = createNote("Shared " + TERM, owner, null);
+        unowned = createNote("Unowned " + TERM, null, null);
+        unreadable = createNote("Unreadable " + TERM, owner, noteBook);
+        em.persist(new Share().invite("read").author(owner).withUser(reader).sharing(shared));
+        em.flush();
+    }
+
+    private User createUser(String login) {
+        User user = new User();
+        user.setLogin(login);
+        user.setPassword(RandomStringUtils.randomAlphanumeric(60));
+        user.setActivated(true);
+        user.setEmail(login + "@localhost");
+        user.setLangKey("en");
+        em.persist(user);
+        return user;
+    }
+
+    private Note createNote(String title, User user, NoteBook noteBook) {
+        Note note = noteRepository.saveAndFlush(new Note().title(title).content(TERM).date(Instant.now()).user(user).notebook(noteBook));
+        noteSearchService.index(note);
+        return note;
+    }
+
+    @Test
+    void searchReadableNotesOnly() {
+        Page<Note> first = noteSearchService.search(TERM, PageRequest.of(0, 2));
+        Page<Note> second = noteSearchService.search(TERM, PageRequest.of(1, 2));
+
+        assertThat(first.getTotalElements()).isEqualTo(3);
+        assertThat(first.getContent()).hasSize(2);
+        assertThat(second.getContent()).hasSize(1);
+        List<Long> ids = new ArrayList<>();
+        first.forEach(note -> ids.add(note.getId()));
+        second.forEach(note -> ids.add(note.getId()));
+        assertThat(ids).containsExactlyInAnyOrder(owned.getId(), shared.getId(), unowned.getId());
+    }
+
+    @Test
+    void searchHydratesNotesWithTheirRelationships() {
+        // loads the readable notes of the current user
+        noteSearchService.search(TERM, PageRequest.of(0, 10));
+        em.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Page<Note> page = noteSearchService.search(TERM, PageRequest.of(0, 10));
+
+        assertThat(page.getContent()).hasSize(3);
+        assertThat(page.getContent()).filteredOn(note -> note.getId().equals(owned.getId())).singleElement().satisfies(note -> {
+            assertThat(note.getUser().getLogin()).isEqualTo("full-text-reader");
+            assertThat(note.getNotebook().getName()).isEqualTo("Full-text");
+        });
+        // the ids, then the notes with their user and notebook
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void searchReadableNoteSummariesOnly() {
+        Page<NoteSummary> page = noteSearchService.searchSummaries(TERM, PageRequest.of(0, 10));
+
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent().stream().map(NoteSummary::getId).collect(Collectors.toList()))
+            .containsExactlyInAnyOrder(owned.getId(), shared.getId(), unowned.getId())
+            .doesNotContain(unreadable.getId());
+    }
+
+    @Test
+    void indexKeepsTheOtherCacheRegions() {
+        User reader = owned.getUser();
+        em.clear();
+        // loading a user puts it in the second-level cache
+        em.find(User.class, reader.getId());
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        assertThat(cache.containsEntity(User.class, reader.getId())).isTrue();
+
+        noteSearchService.index(noteRepository.findById(owned.getId()).orElseThrow());
+
+        assertThat(cache.containsEntity(User.class, reader.getId())).isTrue();
+    }
+
+    @Test
+    @WithMockUser(username = "full-text-admin", authorities = "ROLE_ADMIN")
+    void searchAllNotesAsAdmin() {
+        Page<Note> page = noteSearchService.search(TERM, PageRequest.of(0, 10));
+
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(page.getContent()).hasSize(4);
+    }
+}
@@ -0,0 +1,76 @@
+package com.twohtwo.notebook.service.access;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ReadableNotesTest {
+
+    private ReadableNotes readableNotes;
+
+    @BeforeEach
+    public void setup() {
+        readableNotes = new ReadableNotes(2);
+    }
+
+    @Test
+    void testChangesAreAppliedToLoadedUsers() {
+        readableNotes.putUser(new UserNotes(1L, "alice", NoteIdSet.of(List.of(10L)), new NoteIdSet()), readableNotes.generation());
+        readableNotes.putUnowned(NoteIdSet.of(List.of(20L)), readableNotes.generation());
+
+        readableNotes.addOwned(1L, 11L);
+        readableNotes.addShared(1L, 30L);
+        readableNotes.removeOwned(null, 20L);
+        readableNotes.addOwned(1L, 20L);
+
+        UserNotes alice = readableNotes.getUser("alice");
+        assertThat(alice.getOwned().toArray()).containsExactly(10L, 11L, 20L);
+        assertThat(alice.canRead(30L)).isTrue();
+        assertThat(readableNotes.getUnowned().isEmpty()).isTrue();
+    }
+
+    @Test
+    void testLoadIsDroppedWhenChangedMeanwhile() {
+        long generation = readableNotes.generation();
+        readableNotes.addShared(1L, 30L);
+
+        assertThat(readableNotes.putUser(new UserNotes(1L, "alice", new NoteIdSet(), new NoteIdSet()), generation)).isFalse();
+        assertThat(readableNotes.getUser("alice")).isNull();
+    }
+
+    @Test
+    void testLeastRecentlyUsedUserIsEvicted() {
+        readableNotes.putUser(new UserNotes(1L, "alice", new NoteIdSet(), new NoteIdSet()), readableNotes.generation());
+        readableNotes.putUser(new UserNotes(2L, "bob", new NoteIdSet(), new NoteIdSet()), readableNotes.generation());
+        readableNotes.getUser("alice");
+        readableNotes.putUser(new UserNotes(3L, "carol", new NoteIdSet(), new NoteIdSet()), readableNotes.generation());
+
+        assertThat(readableNotes.userCount()).isEqualTo(2);
+        assertThat(readableNotes.getUser("bob")).isNull();
+        assertThat(readableNotes.getUser("alice")).isNotNull();
+
+        readableNotes.evictUser(1L);
+        assertThat(readableNotes.getUser("alice")).isNull();
+    }
+
+    @Test
+    void testExpiredEntriesAreLoadedAgain() {
+        AtomicLong nanoTime = new AtomicLong();
+        readableNotes = new ReadableNotes(2, Duration.ofSeconds(30), nanoTime::get);
+        readableNotes.putUser(new UserNotes(1L, "alice", new NoteIdSet(), new NoteIdSet()), readableNotes.generation());
+        readableNotes.putUnowned(NoteIdSet.of(List.of(20L)), readableNotes.generation());
+
+        nanoTime.set(Duration.ofSeconds(29).toNanos());
+        assertThat(readableNotes.getUser("alice")).isNotNull();
+        assertThat(readableNotes.getUnowned()).isNotNull();
+
+        nanoTime.set(Duration.ofSeconds(30).toNanos());
+        assertThat(readableNotes.getUser("alice")).isNull();
+        assertThat(readableNotes.getUnowned()).isNull();
+        assertThat(readableNotes.userCount()).isZero();
+    }
+}
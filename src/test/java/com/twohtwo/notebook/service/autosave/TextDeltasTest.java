@@ -0,0 +1,72 @@
+package com.twohtwo.notebook.service.autosave;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link TextDeltas}.
+ */
+class TextDeltasTest {
+
+    private static final String TEXT = "hello world";
+
+    @Test
+    void testApplyInOrder() {
+        List<TextDelta> deltas = List.of(new TextDelta(0, 5, "goodbye"), new TextDelta(8, 5, "moon"));
+
+        assertThat(TextDeltas.apply(TEXT, deltas)).isEqualTo("goodbye moon");
+        assertThat(TextDeltas.size(deltas)).isEqualTo(21);
+    }
+
+    @Test
+    void testApplyRejectsOutOfBounds() {
+        assertThatThrownBy(() -> TextDeltas.apply(TEXT, List.of(new TextDelta(8, 4, "")))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TextDeltas.apply(TEXT, List.of(new TextDelta(-1, 0, "a")))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testDiffReplacesBetweenCommonPrefixAndSuffix() {
+        assertThat(TextDeltas.diff(TEXT, TEXT)).isEmpty();
+        assertThat(TextDeltas.diff(TEXT, "hello big world"))
+            .usingRecursiveFieldByFieldElementComparator()
+            .containsExactly(new TextDelta(6, 0, "big "));
+        assertThat(TextDeltas.diff("aaa", "aa")).usingRecursiveFieldByFieldElementComparator().containsExactly(new TextDelta(2, 1, ""));
+
+        for (String to : List.of("", "hello", "world", "hello moon", "jello world!", "hello hello world")) {
+            assertThat(TextDeltas.apply(TEXT, TextDeltas.diff(TEXT, to))).isEqualTo(to);
+            assertThat(TextDeltas.apply(to, TextDeltas.diff(to, TEXT))).isEqualTo(TEXT);
+        }
+    }
+
+    @Test
+    void testRebaseShiftsPastConcurrentChanges() throws TextDeltaConflictException {
+        List<TextDelta> concurrent = List.of(new TextDelta(5, 0, "Z"));
+        List<TextDelta> deltas = List.of(new TextDelta(0, 0, "X"), new TextDelta(7, 0, "Y"));
+
+        String merged = TextDeltas.apply(TextDeltas.apply(TEXT, concurrent), TextDeltas.rebase(deltas, concurrent));
+
+        assertThat(TextDeltas.apply(TEXT, deltas)).isEqualTo("Xhello Yworld");
+        assertThat(merged).isEqualTo("XhelloZ Yworld");
+    }
+
+    @Test
+    void testRebaseOrdersConcurrentInsertFirst() throws TextDeltaConflictException {
+        List<TextDelta> concurrent = List.of(new TextDelta(6, 0, "big "));
+        List<TextDelta> deltas = List.of(new TextDelta(6, 0, "new "), new TextDelta(10, 5, "moon"));
+
+        String merged = TextDeltas.apply(TextDeltas.apply(TEXT, concurrent), TextDeltas.rebase(deltas, concurrent));
+
+        assertThat(merged).isEqualTo("hello big new moon");
+    }
+
+    @Test
+    void testRebaseRejectsOverlappingChanges() {
+        List<TextDelta> concurrent = List.of(new TextDelta(0, 5, "hi"));
+        List<TextDelta> deltas = List.of(new TextDelta(3, 5, ""));
+
+        assertThatThrownBy(() -> TextDeltas.rebase(deltas, concurrent)).isInstanceOf(TextDeltaConflictException.class);
+    }
+}
@@ -0,0 +1,77 @@
+package com.twohtwo.notebook.service.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link InvertedIndex}.
+ */
+class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    public void init() {
+        index = new InvertedIndex();
+        index.put(1L, "Groceries: milk, eggs and bread");
+        index.put(2L, "Bread recipe: flour, water, salt. Bake the bread for 40 minutes");
+        index.put(3L, "Meeting notes about the bakery budget");
+    }
+
+    @Test
+    void testTokenizerNormalizesAndSplits() {
+        assertThat(NoteTokenizer.tokenize("Hello, WORLD! a co-op 42")).containsExactly("hello", "world", "co", "op", "42");
+        assertThat(NoteTokenizer.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    void testSearchIsConjunctive() {
+        SearchResult result = index.search("bread milk", 0, 10);
+
+        assertThat(result.getTotal()).isEqualTo(1);
+        assertThat(result.getDocIds()).containsExactly(1L);
+    }
+
+    @Test
+    void testSearchRanksByRelevance() {
+        SearchResult result = index.search("bread", 0, 10);
+
+        assertThat(result.getTotal()).isEqualTo(2);
+        assertThat(result.getDocIds()).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void testLastTermMatchesAsPrefix() {
+        assertThat(index.search("bak", 0, 10).getDocIds()).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(index.search("bak budget", 0, 10).getDocIds()).isEmpty();
+    }
+
+    @Test
+    void testSearchIsPaginated() {
+        SearchResult result = index.search("bread", 1, 1);
+
+        assertThat(result.getTotal()).isEqualTo(2);
+        assertThat(result.getDocIds()).containsExactly(1L);
+    }
+
+    @Test
+    void testSearchSkipsFilteredDocuments() {
+        SearchResult result = index.search("bread", 0, 10, docId -> docId != 2L);
+
+        assertThat(result.getTotal()).isEqualTo(1);
+        assertThat(result.getDocIds()).containsExactly(1L);
+    }
+
+    @Test
+    void testPutReplacesAndRemoveDeletes() {
+        index.put(1L, "Groceries: milk and cheese");
+        assertThat(index.search("eggs", 0, 10).getTotal()).isZero();
+        assertThat(index.search("cheese", 0, 10).getDocIds()).containsExactly(1L);
+
+        index.remove(1L);
+        assertThat(index.search("milk", 0, 10).getTotal()).isZero();
+        assertThat(index.size()).isEqualTo(2);
+    }
+}
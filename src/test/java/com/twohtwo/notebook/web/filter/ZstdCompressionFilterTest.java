@@ -0,0 +1,99 @@
+package com.twohtwo.notebook.web.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.twohtwo.notebook.config.ApplicationProperties;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import javax.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class ZstdCompressionFilterTest {
+
+    private static final String BODY = "[" + "{\"title\":\"Note\",\"content\":\"alpha bravo charlie delta\"},".repeat(100) + "{}]";
+
+    private ZstdCompressionFilter filter;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    public void setup() {
+        filter = new ZstdCompressionFilter(new ApplicationProperties());
+        request = new MockHttpServletRequest("GET", "/api/notes");
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    void testJsonIsCompressed() throws Exception {
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br, zstd");
+
+        filter.doFilter(request, response, writing(MediaType.APPLICATION_JSON_VALUE, BODY));
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo(ZstdCompressionFilter.ZSTD);
+        assertThat(response.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(response.getContentAsByteArray().length).isLessThan(BODY.length());
+        assertThat(decompress(response.getContentAsByteArray())).isEqualTo(BODY);
+    }
+
+    @Test
+    void testNotCompressedWithoutAcceptEncoding() throws Exception {
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, zstd;q=0");
+
+        filter.doFilter(request, response, writing(MediaType.APPLICATION_JSON_VALUE, BODY));
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getContentAsString()).isEqualTo(BODY);
+    }
+
+    @Test
+    void testOtherContentTypeIsNotCompressed() throws Exception {
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "zstd");
+
+        filter.doFilter(request, response, writing(MediaType.TEXT_PLAIN_VALUE, BODY));
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getContentAsString()).isEqualTo(BODY);
+    }
+
+    @Test
+    void testSmallResponseIsNotCompressed() throws Exception {
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "zstd");
+
+        filter.doFilter(
+            request,
+            response,
+            (req, res) -> {
+                res.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                res.setContentLength(2);
+                res.getOutputStream().write("{}".getBytes(StandardCharsets.UTF_8));
+            }
+        );
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getContentLength()).isEqualTo(2);
+        assertThat(response.getContentAsString()).isEqualTo("{}");
+    }
+
+    private static FilterChain writing(String contentType, String body) {
+        return (req, res) -> {
+            res.setContentType(contentType);
+            res.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            res.getWriter().write(body);
+        };
+    }
+
+    private static String decompress(byte[] compressed) throws IOException {
+        try (ZstdInputStream input = new ZstdInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
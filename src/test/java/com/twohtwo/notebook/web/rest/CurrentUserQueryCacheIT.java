@@ -0,0 +1,102 @@
+package com.twohtwo.notebook.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.twohtwo.notebook.IntegrationTest;
+import com.twohtwo.notebook.domain.NoteBook;
+import com.twohtwo.notebook.domain.Share;
+import com.twohtwo.notebook.repository.NoteBookRepository;
+import com.twohtwo.notebook.repository.ShareRepository;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration tests for the endpoints served from the Hibernate query cache, which the other tests disable. The writes
+ * are committed, as the cached results are only invalidated by committed transactions.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+@TestPropertySource(
+    properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+    }
+)
+class CurrentUserQueryCacheIT {
+
+    @Autowired
+    private NoteBookRepository noteBookRepository;
+
+    @Autowired
+    private ShareRepository shareRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc restMockMvc;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void init() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictQueryRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getCurrentUserNoteBooksFromQueryCache() throws Exception {
+        restMockMvc.perform(get("/api/note-books/mine")).andExpect(status().isOk());
+        restMockMvc.perform(get("/api/note-books/mine")).andExpect(status().isOk());
+
+        assertThat(statistics.getQueryCachePutCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+
+        // a committed noteBook invalidates the cached results
+        NoteBook noteBook = noteBookRepository.save(NoteBookResourceIT.createEntity(em));
+        try {
+            restMockMvc.perform(get("/api/note-books/mine")).andExpect(status().isOk());
+            assertThat(statistics.getQueryCacheMissCount()).isEqualTo(2);
+            assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        } finally {
+            noteBookRepository.delete(noteBook);
+        }
+    }
+
+    @Test
+    void getReceivedSharesFromQueryCache() throws Exception {
+        restMockMvc.perform(get("/api/shares/received")).andExpect(status().isOk());
+        restMockMvc.perform(get("/api/shares/received")).andExpect(status().isOk());
+
+        assertThat(statistics.getQueryCachePutCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+
+        // a committed share invalidates the cached results
+        Share share = shareRepository.save(new Share().invite("read"));
+        try {
+            restMockMvc.perform(get("/api/shares/received")).andExpect(status().isOk());
+            assertThat(statistics.getQueryCacheMissCount()).isEqualTo(2);
+            assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        } finally {
+            shareRepository.delete(share);
+        }
+    }
+}
@@ -176,6 +176,43 @@ class NoteBookResourceIT {
             .andExpect(jsonPath("$.[*].handle").value(hasItem(DEFAULT_HANDLE)));
     }
 
+    @Test
+    @Transactional
+    void getAllNoteBooksPaged() throws Exception {
+        // Initialize the database
+        noteBookRepository.saveAndFlush(noteBook);
+
+        // Get a page of the noteBookList
+        restNoteBookMockMvc
+            .perform(get(ENTITY_API_URL + "?page=0&size=1000&sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("X-Total-Count"))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(noteBook.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    void getAllNoteBooksByCursor() throws Exception {
+        // Initialize the database
+        noteBookRepository.saveAndFlush(noteBook);
+        noteBookRepository.saveAndFlush(createEntity(em));
+
+        // Get the first page
+        restNoteBookMockMvc
+            .perform(get(ENTITY_API_URL + "?cursor=&size=1"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().exists("X-Next-Cursor"))
+            .andExpect(jsonPath("$.length()").value(1));
+
+        // Get a page large enough to hold every noteBook
+        restNoteBookMockMvc
+            .perform(get(ENTITY_API_URL + "?cursor=&size=1000"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Next-Cursor"))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(noteBook.getId().intValue())));
+    }
+
     @SuppressWarnings({ "unchecked" })
     void getAllNoteBooksWithEagerRelationshipsIsEnabled() throws Exception {
         when(noteBookRepositoryMock.findAllWithEagerRelationships(any())).thenReturn(new PageImpl(new ArrayList<>()));
@@ -209,6 +246,32 @@ class NoteBookResourceIT {
             .andExpect(jsonPath("$.handle").value(DEFAULT_HANDLE));
     }
 
+    @Test
+    @Transactional
+    void getNoteBookNotModified() throws Exception {
+        // Initialize the database
+        noteBookRepository.saveAndFlush(noteBook);
+        String eTag = "\"" + noteBook.getVersion() + "\"";
+
+        restNoteBookMockMvc
+            .perform(get(ENTITY_API_URL_ID, noteBook.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", eTag));
+
+        // The client already has the current version
+        restNoteBookMockMvc
+            .perform(get(ENTITY_API_URL_ID, noteBook.getId()).header("If-None-Match", eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string("ETag", eTag))
+            .andExpect(content().string(""));
+
+        // The client has an older version
+        restNoteBookMockMvc
+            .perform(get(ENTITY_API_URL_ID, noteBook.getId()).header("If-None-Match", "\"" + (noteBook.getVersion() - 1) + "\""))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(noteBook.getId().intValue()));
+    }
+
     @Test
     @Transactional
     void getNonExistingNoteBook() throws Exception {
@@ -332,6 +395,55 @@ class NoteBookResourceIT {
         assertThat(testNoteBook.getHandle()).isEqualTo(UPDATED_HANDLE);
     }
 
+    @Test
+    @Transactional
+    void patchNoteBookWithIfMatch() throws Exception {
+        // Initialize the database
+        noteBookRepository.saveAndFlush(noteBook);
+        Long version = noteBook.getVersion();
+        String currentETag = "\"" + (version + 1) + "\"";
+
+        // The update is made on the current version and bumps it
+        restNoteBookMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, noteBook.getId())
+                    .header("If-Match", "\"" + version + "\"")
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(new NoteBook().id(noteBook.getId()).name(UPDATED_NAME)))
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", currentETag))
+            .andExpect(jsonPath("$.name").value(UPDATED_NAME));
+
+        // A second update made on the same version is a lost update
+        NoteBook updatedNoteBook = noteBookRepository.findById(noteBook.getId()).get();
+        em.detach(updatedNoteBook);
+        updatedNoteBook.handle(UPDATED_HANDLE);
+        restNoteBookMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedNoteBook.getId())
+                    .header("If-Match", "\"" + version + "\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedNoteBook))
+            )
+            .andExpect(status().isPreconditionFailed())
+            .andExpect(header().string("ETag", currentETag));
+        restNoteBookMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, noteBook.getId())
+                    .header("If-Match", "\"" + version + "\"")
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(new NoteBook().id(noteBook.getId()).handle(UPDATED_HANDLE)))
+            )
+            .andExpect(status().isPreconditionFailed())
+            .andExpect(header().string("ETag", currentETag));
+
+        NoteBook testNoteBook = noteBookRepository.findById(noteBook.getId()).get();
+        assertThat(testNoteBook.getName()).isEqualTo(UPDATED_NAME);
+        assertThat(testNoteBook.getHandle()).isEqualTo(DEFAULT_HANDLE);
+        assertThat(testNoteBook.getVersion()).isEqualTo(version + 1);
+    }
+
     @Test
     @Transactional
     void fullUpdateNoteBookWithPatch() throws Exception {
@@ -1,14 +1,26 @@
 package com.twohtwo.notebook.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.twohtwo.notebook.IntegrationTest;
 import com.twohtwo.notebook.domain.Note;
+import com.twohtwo.notebook.domain.Share;
+import com.twohtwo.notebook.domain.User;
 import com.twohtwo.notebook.repository.NoteRepository;
+import com.twohtwo.notebook.service.NoteAutosaveService;
+import com.twohtwo.notebook.service.NoteSearchService;
+import com.twohtwo.notebook.service.autosave.TextDelta;
+import com.twohtwo.notebook.service.dto.NoteAutosaveDTO;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
@@ -28,6 +40,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.transaction.AfterTransaction;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Base64Utils;
@@ -53,6 +66,8 @@ class NoteResourceIT {
     private static final String ENTITY_API_URL = "/api/notes";
     private static final String ENTITY_API_URL_ID = ENTITY_API_URL + "/{id}";
 
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+
     private static Random random = new Random();
     private static AtomicLong count = new AtomicLong(random.nextInt() + (2 * Integer.MAX_VALUE));
 
@@ -62,6 +77,12 @@ class NoteResourceIT {
     @Mock
     private NoteRepository noteRepositoryMock;
 
+    @Autowired
+    private NoteSearchService noteSearchService;
+
+    @Autowired
+    private NoteAutosaveService noteAutosaveService;
+
     @Autowired
     private EntityManager em;
 
@@ -70,6 +91,8 @@ class NoteResourceIT {
 
     private Note note;
 
+    private boolean searchIndexRebuilt;
+
     /**
      * Create an entity for this test.
      *
@@ -95,6 +118,17 @@ class NoteResourceIT {
     @BeforeEach
     public void initTest() {
         note = createEntity(em);
+        searchIndexRebuilt = false;
+    }
+
+    /**
+     * Rebuilds the search index once the test transaction rolled back, so that it does not keep the notes of the test.
+     */
+    @AfterTransaction
+    public void restoreSearchIndex() {
+        if (searchIndexRebuilt) {
+            noteSearchService.rebuild();
+        }
     }
 
     @Test
@@ -133,6 +167,37 @@ class NoteResourceIT {
         assertThat(noteList).hasSize(databaseSizeBeforeCreate);
     }
 
+    @Test
+    @Transactional
+    void importNotesInBulk() throws Exception {
+        int databaseSizeBeforeCreate = noteRepository.findAll().size();
+        String line = new String(TestUtil.convertObjectToJsonBytes(note), StandardCharsets.UTF_8);
+        String body = line + "\n\n" + line + "\n" + line + "\n";
+
+        restNoteMockMvc
+            .perform(post(ENTITY_API_URL + "/bulk").contentType(MediaType.APPLICATION_NDJSON).content(body))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.imported").value(3));
+
+        List<Note> noteList = noteRepository.findAll();
+        assertThat(noteList).hasSize(databaseSizeBeforeCreate + 3);
+        assertThat(noteList.get(noteList.size() - 1).getTitle()).isEqualTo(DEFAULT_TITLE);
+    }
+
+    @Test
+    @Transactional
+    void importNotesInBulkWithInvalidLine() throws Exception {
+        int databaseSizeBeforeCreate = noteRepository.findAll().size();
+        String valid = new String(TestUtil.convertObjectToJsonBytes(note), StandardCharsets.UTF_8);
+        String invalid = new String(TestUtil.convertObjectToJsonBytes(createEntity(em).title(null)), StandardCharsets.UTF_8);
+
+        restNoteMockMvc
+            .perform(post(ENTITY_API_URL + "/bulk").contentType(MediaType.APPLICATION_NDJSON).content(valid + "\n" + invalid + "\n"))
+            .andExpect(status().isBadRequest());
+
+        assertThat(noteRepository.findAll()).hasSize(databaseSizeBeforeCreate);
+    }
+
     @Test
     @Transactional
     void checkTitleIsRequired() throws Exception {
@@ -184,6 +249,189 @@ class NoteResourceIT {
             .andExpect(jsonPath("$.[*].date").value(hasItem(DEFAULT_DATE.toString())));
     }
 
+    @Test
+    @Transactional
+    @WithMockUser("timeline-user")
+    void getNoteTimeline() throws Exception {
+        User owner = UserResourceIT.createEntity(em);
+        owner.setLogin("timeline-user");
+        em.persist(owner);
+        User other = UserResourceIT.createEntity(em);
+        em.persist(other);
+        Note older = noteRepository.saveAndFlush(createEntity(em).date(Instant.parse("2100-01-01T00:00:00Z")).user(owner));
+        Note newer = noteRepository.saveAndFlush(createEntity(em).date(Instant.parse("2100-01-02T00:00:00Z")).user(owner));
+        noteRepository.saveAndFlush(createEntity(em).date(Instant.parse("2100-01-03T00:00:00Z")).user(other));
+
+        restNoteMockMvc
+            .perform(get(ENTITY_API_URL + "/timeline?size=1"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(newer.getId().intValue()));
+
+        restNoteMockMvc
+            .perform(get(ENTITY_API_URL + "/timeline?size=1&page=1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(older.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("note-access-reader")
+    void getNoteOfAnotherUserOnlyOnceShared() throws Exception {
+        User reader = UserResourceIT.createEntity(em);
+        reader.setLogin("note-access-reader");
+        em.persist(reader);
+        User owner = UserResourceIT.createEntity(em);
+        em.persist(owner);
+        noteRepository.saveAndFlush(note.user(owner));
+
+        restNoteMockMvc.perform(get(ENTITY_API_URL_ID, note.getId())).andExpect(status().isNotFound());
+        restNoteMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(not(hasItem(note.getId().intValue()))));
+
+        em.persist(new Share().invite("read").author(owner).withUser(reader).sharing(note));
+        em.flush();
+
+        restNoteMockMvc.perform(get(ENTITY_API_URL_ID, note.getId())).andExpect(status().isOk());
+        restNoteMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(note.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("note-access-writer")
+    void patchNoteOfAnotherUserOnlyOnceSharedForWriting() throws Exception {
+        User writer = UserResourceIT.createEntity(em);
+        writer.setLogin("note-access-writer");
+        em.persist(writer);
+        User owner = UserResourceIT.createEntity(em);
+        em.persist(owner);
+        noteRepository.saveAndFlush(note.user(owner));
+
+        Note partialUpdatedNote = new Note().id(note.getId()).date(UPDATED_DATE);
+        restNoteMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, note.getId())
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(partialUpdatedNote))
+            )
+            .andExpect(status().isNotFound())
+            .andExpect(header().doesNotExist("ETag"))
+            .andExpect(content().string(""));
+        restNoteMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, note.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(note))
+            )
+            .andExpect(status().isNotFound());
+
+        // reading the note is not enough
+        em.persist(new Share().invite("read").author(owner).withUser(writer).sharing(note));
+        em.flush();
+        restNoteMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, note.getId())
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(partialUpdatedNote))
+            )
+            .andExpect(status().isNotFound());
+        NoteAutosaveDTO autosave = new NoteAutosaveDTO(0, List.of(new TextDelta(0, 0, "A")));
+        restNoteMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID + "/draft", note.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(autosave))
+            )
+            .andExpect(status().isNotFound());
+
+        em.persist(new Share().invite(Share.WRITE_INVITE).author(owner).withUser(writer).sharing(note));
+        em.flush();
+        restNoteMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, note.getId())
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(partialUpdatedNote))
+            )
+            .andExpect(status().isOk());
+        assertThat(noteRepository.findById(note.getId()).orElseThrow().getDate()).isEqualTo(UPDATED_DATE);
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("note-access-deleter")
+    void deleteNoteOfAnotherUser() throws Exception {
+        User deleter = UserResourceIT.createEntity(em);
+        deleter.setLogin("note-access-deleter");
+        em.persist(deleter);
+        User owner = UserResourceIT.createEntity(em);
+        em.persist(owner);
+        noteRepository.saveAndFlush(note.user(owner));
+        em.persist(new Share().invite("read").author(owner).withUser(deleter).sharing(note));
+        em.flush();
+
+        restNoteMockMvc
+            .perform(delete(ENTITY_API_URL_ID, note.getId()).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNotFound());
+
+        assertThat(noteRepository.findById(note.getId())).isPresent();
+    }
+
+    @Test
+    @Transactional
+    void getAllNoteSummaries() throws Exception {
+        // Initialize the database
+        noteRepository.saveAndFlush(note);
+
+        // Get all the notes as summaries
+        restNoteMockMvc
+            .perform(get(ENTITY_API_URL + "?view=summary&sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(note.getId().intValue())))
+            .andExpect(jsonPath("$.[*].title").value(hasItem(DEFAULT_TITLE)))
+            .andExpect(jsonPath("$.[*].date").value(hasItem(DEFAULT_DATE.toString())))
+            .andExpect(jsonPath("$.[*].content").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    void getAllNotesByCursor() throws Exception {
+        // Initialize the database with notes newer than any other
+        Note oldest = noteRepository.saveAndFlush(createEntity(em).date(Instant.parse("2100-01-01T00:00:00Z")));
+        Note middle = noteRepository.saveAndFlush(createEntity(em).date(Instant.parse("2100-01-02T00:00:00Z")));
+        Note newest = noteRepository.saveAndFlush(createEntity(em).date(Instant.parse("2100-01-03T00:00:00Z")));
+
+        // Get the first page, newest first, without any count
+        String nextCursor = restNoteMockMvc
+            .perform(get(ENTITY_API_URL + "?cursor=&size=2"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().exists("X-Next-Cursor"))
+            .andExpect(jsonPath("$.[0].id").value(newest.getId().intValue()))
+            .andExpect(jsonPath("$.[1].id").value(middle.getId().intValue()))
+            .andReturn()
+            .getResponse()
+            .getHeader("X-Next-Cursor");
+
+        // Get the next page
+        restNoteMockMvc
+            .perform(get(ENTITY_API_URL + "?cursor=" + nextCursor + "&size=2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(oldest.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    void getAllNotesByInvalidCursor() throws Exception {
+        restNoteMockMvc.perform(get(ENTITY_API_URL + "?cursor=not-a-cursor")).andExpect(status().isBadRequest());
+    }
+
     @SuppressWarnings({ "unchecked" })
     void getAllNotesWithEagerRelationshipsIsEnabled() throws Exception {
         when(noteRepositoryMock.findAllWithEagerRelationships(any())).thenReturn(new PageImpl(new ArrayList<>()));
@@ -218,6 +466,362 @@ class NoteResourceIT {
             .andExpect(jsonPath("$.date").value(DEFAULT_DATE.toString()));
     }
 
+    @Test
+    @Transactional
+    void getNoteWithCompressedContent() throws Exception {
+        String largeContent = ("- " + DEFAULT_CONTENT + "\n- " + UPDATED_CONTENT + "\n").repeat(200);
+        noteRepository.saveAndFlush(note.content(largeContent));
+
+        Number storedLength = (Number) em
+            .createNativeQuery("select octet_length(content) from note where id = :id")
+            .setParameter("id", note.getId())
+            .getSingleResult();
+        assertThat(storedLength.intValue()).isLessThan(largeContent.length() / 10);
+        em.clear();
+
+        restNoteMockMvc
+            .perform(get(ENTITY_API_URL_ID, note.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content").value(largeContent));
+    }
+
+    @Test
+    @Transactional
+    void getNoteNotModified() throws Exception {
+        // Initialize the database
+        noteRepository.saveAndFlush(note);
+        String eTag = "\"" + note.getVersion() + "\"";
+
+        restNoteMockMvc.perform(get(ENTITY_API_URL_ID, note.getId())).andExpect(status().isOk()).andExpect(header().string("ETag", eTag));
+
+        // The client already has the current version
+        restNoteMockMvc
+            .perform(get(ENTITY_API_URL_ID, note.getId()).header("If-None-Match", eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string("ETag", eTag))
+            .andExpect(content().string(""));
+
+        // The client has an older version
+        restNoteMockMvc
+            .perform(get(ENTITY_API_URL_ID, note.getId()).header("If-None-Match", "\"" + (note.getVersion() - 1) + "\""))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(note.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    void getNoteAsSmile() throws Exception {
+        // Initialize the database
+        noteRepository.saveAndFlush(note);
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
+        // Get the note
+        byte[] body = restNoteMockMvc
+            .perform(get(ENTITY_API_URL_ID, note.getId()).accept(SMILE))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(SMILE))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+        JsonNode json = smileMapper.readTree(body);
+        assertThat(json.get("id").asLong()).isEqualTo(note.getId());
+        assertThat(json.get("title").asText()).isEqualTo(DEFAULT_TITLE);
+        assertThat(json.get("content").asText()).isEqualTo(DEFAULT_CONTENT);
+
+        // Get all the notes, JSON remains the default
+        restNoteMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE));
+        body =
+            restNoteMockMvc
+                .perform(get(ENTITY_API_URL + "?sort=id,desc").accept(SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+        assertThat(smileMapper.readTree(body).findValuesAsText("title")).contains(DEFAULT_TITLE);
+    }
+
+    @Test
+    @Transactional
+    void putNoteWithStaleVersion() throws Exception {
+        // Initialize the database
+        noteRepository.saveAndFlush(note);
+        Long version = note.getVersion();
+
+        Note updatedNote = noteRepository.findById(note.getId()).get();
+        em.detach(updatedNote);
+        updatedNote.title(UPDATED_TITLE);
+
+        // The first update is made on the current version and bumps it
+        restNoteMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedNote.getId())
+                    .header("If-Match", "\"" + version + "\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedNote))
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"" + (version + 1) + "\""))
+            .andExpect(jsonPath("$.version").value(version.intValue() + 1));
+
+        // A second update made on the same version is a lost update
+        restNoteMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedNote.getId())
+                    .header("If-Match", "\"" + version + "\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedNote))
+            )
+            .andExpect(status().isPreconditionFailed());
+        restNoteMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, updatedNote.getId())
+                    .header("If-Match", "\"" + version + "\"")
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(new Note().id(updatedNote.getId()).content(UPDATED_CONTENT)))
+            )
+            .andExpect(status().isPreconditionFailed());
+
+        // Without If-Match, the version of the note is checked
+        restNoteMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedNote.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedNote))
+            )
+            .andExpect(status().isConflict());
+
+        assertThat(noteRepository.findById(note.getId()).get().getContent()).isEqualTo(DEFAULT_CONTENT);
+    }
+
+    @Test
+    @Transactional
+    void patchNoteWithIfMatch() throws Exception {
+        // Initialize the database
+        noteRepository.saveAndFlush(note);
+        Long version = note.getVersion();
+        String currentETag = "\"" + (version + 1) + "\"";
+
+        // The update is made on the current version and bumps it
+        restNoteMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, note.getId())
+                    .header("If-Match", "\"" + version + "\"")
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(new Note().id(note.getId()).title(UPDATED_TITLE)))
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", currentETag))
+            .andExpect(jsonPath("$.version").value(version.intValue() + 1))
+            .andExpect(jsonPath("$.title").value(UPDATED_TITLE));
+
+        // An If-Match that is not the current version is rejected with the current ETag
+        Note updatedNote = noteRepository.findById(note.getId()).get();
+        em.detach(updatedNote);
+        updatedNote.content(UPDATED_CONTENT);
+        restNoteMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedNote.getId())
+                    .header("If-Match", "\"" + (version + 2) + "\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedNote))
+            )
+            .andExpect(status().isPreconditionFailed())
+            .andExpect(header().string("ETag", currentETag));
+        restNoteMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, note.getId())
+                    .header("If-Match", "\"" + (version + 2) + "\"")
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(new Note().id(note.getId()).content(UPDATED_CONTENT)))
+            )
+            .andExpect(status().isPreconditionFailed())
+            .andExpect(header().string("ETag", currentETag));
+
+        Note testNote = noteRepository.findById(note.getId()).get();
+        assertThat(testNote.getTitle()).isEqualTo(UPDATED_TITLE);
+        assertThat(testNote.getContent()).isEqualTo(DEFAULT_CONTENT);
+        assertThat(testNote.getVersion()).isEqualTo(version + 1);
+    }
+
+    @Test
+    @Transactional
+    void searchNotes() throws Exception {
+        // Initialize the database
+        noteRepository.saveAndFlush(note);
+        noteSearchService.rebuild();
+        searchIndexRebuilt = true;
+
+        // Search the note by a term of its content
+        restNoteMockMvc
+            .perform(get(ENTITY_API_URL + "/search?searchingFor=" + DEFAULT_CONTENT.toLowerCase()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(note.getId().intValue())))
+            .andExpect(jsonPath("$.[*].title").value(hasItem(DEFAULT_TITLE)));
+
+        // Search with a term matching no note
+        restNoteMockMvc
+            .perform(get(ENTITY_API_URL + "/search?searchingFor=zzzzzzzzzz"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "0"));
+    }
+
+    @Test
+    @Transactional
+    void searchNotesWithBlankQuery() throws Exception {
+        // Initialize the database, without indexing the note
+        noteRepository.saveAndFlush(note);
+
+        // A blank query pages through every readable note
+        restNoteMockMvc
+            .perform(get(ENTITY_API_URL + "/search?sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("X-Total-Count"))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(note.getId().intValue())));
+        restNoteMockMvc
+            .perform(get(ENTITY_API_URL + "/search?searchingFor=%20&view=summary&sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(note.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    void autosaveNote() throws Exception {
+        // Initialize the database
+        noteRepository.saveAndFlush(note);
+
+        restNoteMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/draft", note.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.revision").value(0))
+            .andExpect(jsonPath("$.content").value(DEFAULT_CONTENT));
+
+        // Autosave a change, then a concurrent one made on the same base revision
+        NoteAutosaveDTO first = new NoteAutosaveDTO(0, List.of(new TextDelta(0, 0, "B")));
+        restNoteMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID + "/draft", note.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(first))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.revision").value(1))
+            .andExpect(jsonPath("$.content").doesNotExist());
+        NoteAutosaveDTO second = new NoteAutosaveDTO(0, List.of(new TextDelta(10, 0, "C")));
+        restNoteMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID + "/draft", note.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(second))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.revision").value(2))
+            .andExpect(jsonPath("$.content").value("B" + DEFAULT_CONTENT + "C"));
+
+        // The note is written on flush only
+        assertThat(noteRepository.findById(note.getId()).get().getContent()).isEqualTo(DEFAULT_CONTENT);
+        noteAutosaveService.flush();
+        assertThat(noteRepository.findById(note.getId()).get().getContent()).isEqualTo("B" + DEFAULT_CONTENT + "C");
+
+        // The flush records one revision for the coalesced changes, after the previous content
+        restNoteMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/revisions", note.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].revision").value(contains(2, 1)))
+            .andExpect(jsonPath("$.[0].authorLogin").value("user"));
+        restNoteMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/revisions/{revision}", note.getId(), 2))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content").value("B" + DEFAULT_CONTENT + "C"));
+    }
+
+    @Test
+    @Transactional
+    void autosaveNoteWithConflict() throws Exception {
+        // Initialize the database
+        noteRepository.saveAndFlush(note);
+
+        NoteAutosaveDTO first = new NoteAutosaveDTO(0, List.of(new TextDelta(0, 5, "")));
+        restNoteMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID + "/draft", note.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(first))
+            )
+            .andExpect(status().isOk());
+
+        // A concurrent change to the same characters is rejected with the current draft
+        NoteAutosaveDTO overlapping = new NoteAutosaveDTO(0, List.of(new TextDelta(2, 2, "")));
+        restNoteMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID + "/draft", note.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(overlapping))
+            )
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.revision").value(1))
+            .andExpect(jsonPath("$.content").value(DEFAULT_CONTENT.substring(5)));
+
+        // So is a revision the draft never had
+        NoteAutosaveDTO unknown = new NoteAutosaveDTO(5, List.of(new TextDelta(0, 0, "")));
+        restNoteMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID + "/draft", note.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(unknown))
+            )
+            .andExpect(status().isConflict());
+
+        // And a delta out of bounds is invalid
+        NoteAutosaveDTO outOfBounds = new NoteAutosaveDTO(1, List.of(new TextDelta(6, 0, "")));
+        restNoteMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID + "/draft", note.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(outOfBounds))
+            )
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void autosaveNonExistingNote() throws Exception {
+        NoteAutosaveDTO autosave = new NoteAutosaveDTO(0, List.of(new TextDelta(0, 0, "A")));
+        restNoteMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID + "/draft", Long.MAX_VALUE)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(autosave))
+            )
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("note-autosave-reader")
+    void autosaveNoteOfAnotherUser() throws Exception {
+        User reader = UserResourceIT.createEntity(em);
+        reader.setLogin("note-autosave-reader");
+        em.persist(reader);
+        User owner = UserResourceIT.createEntity(em);
+        em.persist(owner);
+        noteRepository.saveAndFlush(note.user(owner));
+
+        NoteAutosaveDTO autosave = new NoteAutosaveDTO(0, List.of(new TextDelta(0, 0, "A")));
+        restNoteMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID + "/draft", note.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(autosave))
+            )
+            .andExpect(status().isNotFound());
+        restNoteMockMvc.perform(get(ENTITY_API_URL_ID + "/draft", note.getId())).andExpect(status().isNotFound());
+    }
+
     @Test
     @Transactional
     void getNonExistingNote() throws Exception {
@@ -343,6 +947,53 @@ class NoteResourceIT {
         assertThat(testNote.getDate()).isEqualTo(DEFAULT_DATE);
     }
 
+    @Test
+    @Transactional
+    void getNoteRevisions() throws Exception {
+        // Initialize the database, as by an import: without revisions
+        noteRepository.saveAndFlush(note);
+
+        for (Note partialUpdatedNote : List.of(
+            new Note().content(DEFAULT_CONTENT + UPDATED_CONTENT),
+            new Note().date(UPDATED_DATE),
+            new Note().title(UPDATED_TITLE).content(UPDATED_CONTENT)
+        )) {
+            partialUpdatedNote.setId(note.getId());
+            restNoteMockMvc
+                .perform(
+                    patch(ENTITY_API_URL_ID, note.getId())
+                        .contentType("application/merge-patch+json")
+                        .content(TestUtil.convertObjectToJsonBytes(partialUpdatedNote))
+                )
+                .andExpect(status().isOk());
+        }
+
+        // the previous content, then one revision per change of the title or content
+        restNoteMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/revisions", note.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "3"))
+            .andExpect(jsonPath("$.[*].revision").value(contains(3, 2, 1)))
+            .andExpect(jsonPath("$.[0].title").value(UPDATED_TITLE))
+            .andExpect(jsonPath("$.[0].authorLogin").value("user"))
+            .andExpect(jsonPath("$.[0].data").doesNotExist());
+        restNoteMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/revisions/{revision}", note.getId(), 1))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.title").value(DEFAULT_TITLE))
+            .andExpect(jsonPath("$.content").value(DEFAULT_CONTENT));
+        restNoteMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/revisions/{revision}", note.getId(), 2))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content").value(DEFAULT_CONTENT + UPDATED_CONTENT));
+        restNoteMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/revisions/{revision}", note.getId(), 3))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.title").value(UPDATED_TITLE))
+            .andExpect(jsonPath("$.content").value(UPDATED_CONTENT));
+        restNoteMockMvc.perform(get(ENTITY_API_URL_ID + "/revisions/{revision}", note.getId(), 4)).andExpect(status().isNotFound());
+    }
+
     @Test
     @Transactional
     void fullUpdateNoteWithPatch() throws Exception {
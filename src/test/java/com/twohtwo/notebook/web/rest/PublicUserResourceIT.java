@@ -9,12 +9,16 @@ import com.twohtwo.notebook.IntegrationTest;
 import com.twohtwo.notebook.domain.User;
 import com.twohtwo.notebook.repository.UserRepository;
 import com.twohtwo.notebook.security.AuthoritiesConstants;
+import com.twohtwo.notebook.service.UserService;
+import com.twohtwo.notebook.service.dto.AdminUserDTO;
+import com.twohtwo.notebook.web.rest.util.HttpResponseCache;
 import javax.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -33,6 +37,9 @@ class PublicUserResourceIT {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserService userService;
+
     @Autowired
     private EntityManager em;
 
@@ -48,6 +55,7 @@ class PublicUserResourceIT {
     public void setup() {
         cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).clear();
         cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).clear();
+        cacheManager.getCache(HttpResponseCache.PUBLIC_USERS_CACHE).clear();
     }
 
     @BeforeEach
@@ -72,6 +80,37 @@ class PublicUserResourceIT {
             .andExpect(jsonPath("$.[*].langKey").doesNotExist());
     }
 
+    @Test
+    @Transactional
+    void getAllPublicUsersFromCache() throws Exception {
+        // Initialize the database
+        userRepository.saveAndFlush(user);
+
+        String eTag = restUserMockMvc
+            .perform(get("/api/users?sort=id,desc").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=0, must-revalidate, private"))
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+        // The client revalidates its copy
+        restUserMockMvc
+            .perform(get("/api/users?sort=id,desc").accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified());
+
+        // A change of a user evicts the cached responses
+        AdminUserDTO updatedUser = new AdminUserDTO(user);
+        updatedUser.setLogin("janedoe");
+        userService.updateUser(updatedUser);
+
+        restUserMockMvc
+            .perform(get("/api/users?sort=id,desc").accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].login").value(hasItem("janedoe")));
+    }
+
     @Test
     @Transactional
     void getAllAuthorities() throws Exception {
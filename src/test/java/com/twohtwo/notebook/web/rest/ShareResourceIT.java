@@ -1,13 +1,18 @@
 package com.twohtwo.notebook.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.hasItem;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.jayway.jsonpath.JsonPath;
 import com.twohtwo.notebook.IntegrationTest;
+import com.twohtwo.notebook.domain.Note;
 import com.twohtwo.notebook.domain.Share;
+import com.twohtwo.notebook.domain.User;
 import com.twohtwo.notebook.repository.ShareRepository;
 import java.util.ArrayList;
 import java.util.List;
@@ -27,6 +32,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -44,6 +50,8 @@ class ShareResourceIT {
     private static final String ENTITY_API_URL = "/api/shares";
     private static final String ENTITY_API_URL_ID = ENTITY_API_URL + "/{id}";
 
+    private static final String RECIPIENT_LOGIN = "share-inbox-recipient";
+
     private static Random random = new Random();
     private static AtomicLong count = new AtomicLong(random.nextInt() + (2 * Integer.MAX_VALUE));
 
@@ -154,6 +162,72 @@ class ShareResourceIT {
             .andExpect(jsonPath("$.[*].invite").value(hasItem(DEFAULT_INVITE)));
     }
 
+    @Test
+    @Transactional
+    void getAllSharesPaged() throws Exception {
+        // Initialize the database
+        shareRepository.saveAndFlush(share);
+
+        // Get a page of the shareList
+        restShareMockMvc
+            .perform(get(ENTITY_API_URL + "?page=0&size=1000&sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("X-Total-Count"))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(share.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    void getAllSharesByCursor() throws Exception {
+        // Initialize the database
+        shareRepository.saveAndFlush(share);
+        shareRepository.saveAndFlush(createEntity(em));
+
+        // Get the first page
+        restShareMockMvc
+            .perform(get(ENTITY_API_URL + "?cursor=&size=1"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().exists("X-Next-Cursor"))
+            .andExpect(jsonPath("$.length()").value(1));
+
+        // Get a page large enough to hold every share
+        restShareMockMvc
+            .perform(get(ENTITY_API_URL + "?cursor=&size=1000"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Next-Cursor"))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(share.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    void getAllSharesByInvalidCursor() throws Exception {
+        restShareMockMvc.perform(get(ENTITY_API_URL + "?cursor=not-a-cursor")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamAllShares() throws Exception {
+        // Initialize the database, committed as the rows are streamed from another thread
+        shareRepository.saveAndFlush(share);
+        try {
+            MvcResult result = restShareMockMvc
+                .perform(get(ENTITY_API_URL).accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+            // One JSON document per line
+            restShareMockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(containsString("\"id\":" + share.getId() + ",")))
+                .andExpect(content().string(containsString("\"invite\":\"" + DEFAULT_INVITE + "\"")))
+                .andExpect(content().string(endsWith("\n")));
+        } finally {
+            shareRepository.delete(share);
+        }
+    }
+
     @SuppressWarnings({ "unchecked" })
     void getAllSharesWithEagerRelationshipsIsEnabled() throws Exception {
         when(shareRepositoryMock.findAllWithEagerRelationships(any())).thenReturn(new PageImpl(new ArrayList<>()));
@@ -186,6 +260,50 @@ class ShareResourceIT {
             .andExpect(jsonPath("$.invite").value(DEFAULT_INVITE));
     }
 
+    @Test
+    @Transactional
+    void getShareWithoutNoteContent() throws Exception {
+        // Initialize the database
+        Note note = NoteResourceIT.createEntity(em);
+        em.persist(note);
+        shareRepository.saveAndFlush(share.sharing(note));
+
+        // Neither the share nor the listings expose the content of the shared note
+        restShareMockMvc
+            .perform(get(ENTITY_API_URL_ID, share.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.sharing.id").value(note.getId().intValue()))
+            .andExpect(jsonPath("$.sharing.title").value(note.getTitle()))
+            .andExpect(jsonPath("$.sharing.content").doesNotExist());
+        restShareMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].sharing.content").isEmpty());
+    }
+
+    @Test
+    @Transactional
+    void getShareNotModified() throws Exception {
+        // Initialize the database
+        shareRepository.saveAndFlush(share);
+        String eTag = "\"" + share.getVersion() + "\"";
+
+        restShareMockMvc.perform(get(ENTITY_API_URL_ID, share.getId())).andExpect(status().isOk()).andExpect(header().string("ETag", eTag));
+
+        // The client already has the current version
+        restShareMockMvc
+            .perform(get(ENTITY_API_URL_ID, share.getId()).header("If-None-Match", eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string("ETag", eTag))
+            .andExpect(content().string(""));
+
+        // The client has an older version
+        restShareMockMvc
+            .perform(get(ENTITY_API_URL_ID, share.getId()).header("If-None-Match", "\"" + (share.getVersion() - 1) + "\""))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(share.getId().intValue()));
+    }
+
     @Test
     @Transactional
     void getNonExistingShare() throws Exception {
@@ -305,6 +423,54 @@ class ShareResourceIT {
         assertThat(testShare.getInvite()).isEqualTo(DEFAULT_INVITE);
     }
 
+    @Test
+    @Transactional
+    void patchShareWithIfMatch() throws Exception {
+        // Initialize the database
+        shareRepository.saveAndFlush(share);
+        Long version = share.getVersion();
+        String currentETag = "\"" + (version + 1) + "\"";
+
+        // The update is made on the current version and bumps it
+        restShareMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, share.getId())
+                    .header("If-Match", "\"" + version + "\"")
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(new Share().id(share.getId()).invite(UPDATED_INVITE)))
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", currentETag))
+            .andExpect(jsonPath("$.invite").value(UPDATED_INVITE));
+
+        // A second update made on the same version is a lost update
+        Share updatedShare = shareRepository.findById(share.getId()).get();
+        em.detach(updatedShare);
+        updatedShare.invite(DEFAULT_INVITE);
+        restShareMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedShare.getId())
+                    .header("If-Match", "\"" + version + "\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedShare))
+            )
+            .andExpect(status().isPreconditionFailed())
+            .andExpect(header().string("ETag", currentETag));
+        restShareMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, share.getId())
+                    .header("If-Match", "\"" + version + "\"")
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(new Share().id(share.getId()).invite(DEFAULT_INVITE)))
+            )
+            .andExpect(status().isPreconditionFailed())
+            .andExpect(header().string("ETag", currentETag));
+
+        Share testShare = shareRepository.findById(share.getId()).get();
+        assertThat(testShare.getInvite()).isEqualTo(UPDATED_INVITE);
+        assertThat(testShare.getVersion()).isEqualTo(version + 1);
+    }
+
     @Test
     @Transactional
     void fullUpdateShareWithPatch() throws Exception {
@@ -407,4 +573,62 @@ class ShareResourceIT {
         List<Share> shareList = shareRepository.findAll();
         assertThat(shareList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    @Transactional
+    @WithMockUser(RECIPIENT_LOGIN)
+    void getShareInbox() throws Exception {
+        // Initialize the database
+        User author = UserResourceIT.createEntity(em);
+        em.persist(author);
+        User recipient = UserResourceIT.createEntity(em);
+        recipient.setLogin(RECIPIENT_LOGIN);
+        em.persist(recipient);
+        Note note = NoteResourceIT.createEntity(em);
+        em.persist(note);
+        em.flush();
+        share.setAuthor(author);
+        share.setWithUser(recipient);
+        share.setSharing(note);
+
+        String created = restShareMockMvc
+            .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(share)))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+        long shareId = ((Number) JsonPath.read(created, "$.id")).longValue();
+
+        // The inbox of the recipient lists the share with the note title and the author login
+        restShareMockMvc
+            .perform(get(ENTITY_API_URL + "/inbox"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "1"))
+            .andExpect(jsonPath("$.[0].shareId").value(shareId))
+            .andExpect(jsonPath("$.[0].noteTitle").value(note.getTitle()))
+            .andExpect(jsonPath("$.[0].authorLogin").value(author.getLogin()))
+            .andExpect(jsonPath("$.[0].invite").value(DEFAULT_INVITE));
+
+        // Renaming the note renames it in the inbox
+        restShareMockMvc
+            .perform(
+                patch("/api/notes/{id}", note.getId())
+                    .contentType("application/merge-patch+json")
+                    .content("{\"id\":" + note.getId() + ",\"title\":\"Renamed\"}")
+            )
+            .andExpect(status().isOk());
+        // read the inbox again from the database, as a new request would
+        em.clear();
+        restShareMockMvc
+            .perform(get(ENTITY_API_URL + "/inbox"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].noteTitle").value("Renamed"));
+
+        // Deleting the share removes it from the inbox
+        restShareMockMvc.perform(delete(ENTITY_API_URL_ID, shareId)).andExpect(status().isNoContent());
+        restShareMockMvc
+            .perform(get(ENTITY_API_URL + "/inbox"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "0"));
+    }
 }
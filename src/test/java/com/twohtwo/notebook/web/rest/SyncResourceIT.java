@@ -0,0 +1,265 @@
+package com.twohtwo.notebook.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.jayway.jsonpath.JsonPath;
+import com.twohtwo.notebook.IntegrationTest;
+import com.twohtwo.notebook.config.ApplicationProperties;
+import com.twohtwo.notebook.domain.Note;
+import com.twohtwo.notebook.domain.NoteBook;
+import com.twohtwo.notebook.domain.Share;
+import com.twohtwo.notebook.domain.SyncChange;
+import com.twohtwo.notebook.domain.User;
+import com.twohtwo.notebook.repository.NoteBookRepository;
+import com.twohtwo.notebook.repository.NoteRepository;
+import com.twohtwo.notebook.repository.ShareRepository;
+import com.twohtwo.notebook.repository.SyncChangeRepository;
+import com.twohtwo.notebook.repository.UserRepository;
+import com.twohtwo.notebook.service.SyncService;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for the {@link SyncResource} REST controller. The tests commit their changes, as the sync log is
+ * written right before commit.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class SyncResourceIT {
+
+    private static final String ENTITY_API_URL = "/api/sync";
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private NoteBookRepository noteBookRepository;
+
+    @Autowired
+    private SyncChangeRepository syncChangeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ShareRepository shareRepository;
+
+    @Autowired
+    private SyncService syncService;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc restSyncMockMvc;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final List<Object> created = new ArrayList<>();
+
+    @BeforeEach
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Deletes the entities committed by the test, as the sync log is only written by committed transactions.
+     */
+    @AfterEach
+    public void cleanup() {
+        transactionTemplate.executeWithoutResult(status -> {
+            PersistenceUnitUtil persistenceUnitUtil = em.getEntityManagerFactory().getPersistenceUnitUtil();
+            for (int i = created.size() - 1; i >= 0; i--) {
+                Object entity = created.get(i);
+                Object managed = em.find(entity.getClass(), persistenceUnitUtil.getIdentifier(entity));
+                if (managed != null) {
+                    em.remove(managed);
+                }
+            }
+        });
+    }
+
+    private <T> T save(JpaRepository<T, Long> repository, T entity) {
+        T saved = repository.save(entity);
+        created.add(saved);
+        return saved;
+    }
+
+    private String lastToken() {
+        return Long.toString(syncChangeRepository.findAll().stream().mapToLong(SyncChange::getSeq).max().orElse(0));
+    }
+
+    private static String tokenOf(ResultActions result) throws Exception {
+        return JsonPath.read(result.andReturn().getResponse().getContentAsString(), "$.token");
+    }
+
+    @Test
+    void syncChangesSinceToken() throws Exception {
+        String token = lastToken();
+        Note note = save(noteRepository, NoteResourceIT.createEntity(em));
+        NoteBook noteBook = save(noteBookRepository, NoteBookResourceIT.createEntity(em));
+        User owner = save(userRepository, UserResourceIT.createEntity(em));
+        Note otherNote = save(noteRepository, NoteResourceIT.createEntity(em).user(owner));
+
+        // the note of another user is not readable: it is returned as deleted
+        String nextToken = tokenOf(
+            restSyncMockMvc
+                .perform(get(ENTITY_API_URL + "?since={since}", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasMore").value(false))
+                .andExpect(jsonPath("$.notes.[*].id").value(contains(note.getId().intValue())))
+                .andExpect(jsonPath("$.noteBooks.[*].id").value(contains(noteBook.getId().intValue())))
+                .andExpect(jsonPath("$.deletedNotes").value(contains(otherNote.getId().intValue())))
+                .andExpect(jsonPath("$.deletedNoteBooks").isEmpty())
+        );
+
+        note.setTitle("Synced title");
+        noteRepository.save(note);
+        noteBookRepository.delete(noteBook);
+
+        String lastToken = tokenOf(
+            restSyncMockMvc
+                .perform(get(ENTITY_API_URL + "?since={since}", nextToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.notes.[*].title").value(contains("Synced title")))
+                .andExpect(jsonPath("$.noteBooks").isEmpty())
+                .andExpect(jsonPath("$.deletedNoteBooks").value(contains(noteBook.getId().intValue())))
+        );
+
+        restSyncMockMvc
+            .perform(get(ENTITY_API_URL + "?since={since}", lastToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.token").value(lastToken))
+            .andExpect(jsonPath("$.notes").isEmpty())
+            .andExpect(jsonPath("$.deletedNoteBooks").isEmpty());
+    }
+
+    @Test
+    void syncSharedNotes() throws Exception {
+        User reader = userRepository.findOneByLogin("user").get();
+        User owner = save(userRepository, UserResourceIT.createEntity(em));
+        Note note = save(noteRepository, NoteResourceIT.createEntity(em).user(owner));
+        String token = lastToken();
+
+        // sharing the note makes it appear
+        Share share = save(shareRepository, new Share().invite("read").author(owner).withUser(reader).sharing(note));
+        String nextToken = tokenOf(
+            restSyncMockMvc
+                .perform(get(ENTITY_API_URL + "?since={since}", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.notes.[*].id").value(contains(note.getId().intValue())))
+                .andExpect(jsonPath("$.shares.[*].id").value(contains(share.getId().intValue())))
+                .andExpect(jsonPath("$.deletedNotes").isEmpty())
+        );
+
+        // revoking the share deletes it
+        shareRepository.delete(share);
+        restSyncMockMvc
+            .perform(get(ENTITY_API_URL + "?since={since}", nextToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.notes").isEmpty())
+            .andExpect(jsonPath("$.deletedNotes").value(contains(note.getId().intValue())))
+            .andExpect(jsonPath("$.deletedShares").value(contains(share.getId().intValue())));
+    }
+
+    @Test
+    void syncNeverExposesUnreadableNotes() throws Exception {
+        User owner = save(userRepository, UserResourceIT.createEntity(em));
+        User recipient = save(userRepository, UserResourceIT.createEntity(em));
+        String token = lastToken();
+
+        // a note shared between two other users
+        Note note = save(
+            noteRepository,
+            NoteResourceIT.createEntity(em).title("Unreadable title").content("Unreadable content").user(owner)
+        );
+        Share share = save(shareRepository, new Share().invite("read").author(owner).withUser(recipient).sharing(note));
+
+        String body = restSyncMockMvc
+            .perform(get(ENTITY_API_URL + "?since={since}", token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.notes").isEmpty())
+            .andExpect(jsonPath("$.shares").isEmpty())
+            .andExpect(jsonPath("$.deletedNotes").value(contains(note.getId().intValue())))
+            .andExpect(jsonPath("$.deletedShares").value(contains(share.getId().intValue())))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+        assertThat(body).doesNotContain("Unreadable title").doesNotContain("Unreadable content");
+    }
+
+    @Test
+    void syncLogIsWrittenOnCommitOnly() throws Exception {
+        String token = lastToken();
+        transactionTemplate.executeWithoutResult(status -> {
+            noteRepository.saveAndFlush(NoteResourceIT.createEntity(em));
+            assertThat(lastToken()).isEqualTo(token);
+            status.setRollbackOnly();
+        });
+
+        assertThat(lastToken()).isEqualTo(token);
+    }
+
+    @Test
+    void syncIsPaginated() throws Exception {
+        String token = lastToken();
+        for (int i = 0; i < 3; i++) {
+            save(noteRepository, NoteResourceIT.createEntity(em));
+        }
+
+        String nextToken = tokenOf(
+            restSyncMockMvc
+                .perform(get(ENTITY_API_URL + "?since={since}&size=2", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasMore").value(true))
+                .andExpect(jsonPath("$.notes.length()").value(2))
+        );
+        restSyncMockMvc
+            .perform(get(ENTITY_API_URL + "?since={since}&size=2", nextToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.hasMore").value(false))
+            .andExpect(jsonPath("$.notes.length()").value(1));
+    }
+
+    @Test
+    void syncSinceTrimmedTombstonesIsGone() throws Exception {
+        save(noteRepository, NoteResourceIT.createEntity(em));
+        String token = lastToken();
+        Note note = save(noteRepository, NoteResourceIT.createEntity(em));
+        noteRepository.delete(note);
+
+        syncService.compact(Instant.now().plus(applicationProperties.getSync().getTombstoneRetention()).plusSeconds(60));
+
+        restSyncMockMvc.perform(get(ENTITY_API_URL + "?since={since}", token)).andExpect(status().isGone());
+        restSyncMockMvc.perform(get(ENTITY_API_URL)).andExpect(status().isOk());
+    }
+
+    @Test
+    void syncWithInvalidToken() throws Exception {
+        restSyncMockMvc.perform(get(ENTITY_API_URL + "?since=not-a-token")).andExpect(status().isBadRequest());
+    }
+}